@@ -0,0 +1,76 @@
+package io.riverrun.audit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Audit diffs of records with increasing numbers of fields, half of them changed, either top-level
+ * or nested in a {@code customFields} map, and of records that did not change at all.
+ * Lives in the audit package to reach the package-private {@code calculateChanges}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AuditDiffBenchmark {
+
+    @Param({ "10", "100", "1000" })
+    private int fields;
+
+    @Param({ "flat", "nested" })
+    private String shape;
+
+    private AuditService auditService;
+    private Map<String, Object> oldValues;
+    private Map<String, Object> newValues;
+    private Map<String, Object> sameValues;
+
+    @Setup
+    public void setUp() {
+        auditService = new AuditService(null, null, new ObjectMapper());
+        Map<String, Object> oldFields = new HashMap<>();
+        Map<String, Object> newFields = new HashMap<>();
+        Map<String, Object> sameFields = new HashMap<>();
+        for (int i = 0; i < fields; i++) {
+            oldFields.put("field" + i, "value " + i);
+            newFields.put("field" + i, i % 2 == 0 ? "value " + i : "changed " + i);
+            sameFields.put("field" + i, "value " + i);
+        }
+        if (shape.equals("nested")) {
+            oldValues = new HashMap<>(Map.of("status", "OPEN", "customFields", oldFields));
+            newValues = new HashMap<>(Map.of("status", "OPEN", "customFields", newFields));
+            sameValues = new HashMap<>(Map.of("status", "OPEN", "customFields", sameFields));
+        } else {
+            oldValues = oldFields;
+            newValues = newFields;
+            sameValues = sameFields;
+        }
+    }
+
+    @Benchmark
+    public Object calculateChanges() {
+        return auditService.calculateChanges(oldValues, newValues);
+    }
+
+    @Benchmark
+    public Object calculateNoChanges() {
+        return auditService.calculateChanges(oldValues, sameValues);
+    }
+
+}
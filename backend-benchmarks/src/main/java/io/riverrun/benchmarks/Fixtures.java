@@ -0,0 +1,72 @@
+package io.riverrun.benchmarks;
+
+import io.riverrun.multitenancy.TenantContext;
+import io.riverrun.workflow.GuardEvaluator;
+import io.riverrun.workflow.WorkflowActionRegistry;
+import io.riverrun.workflow.WorkflowDefinition;
+import io.riverrun.workflow.WorkflowEngine;
+import io.riverrun.workflow.WorkflowGuardRegistry;
+import org.springframework.context.support.GenericApplicationContext;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builds engine components and workflow definitions without a Spring context.
+ */
+final class Fixtures {
+
+    private Fixtures() {
+    }
+
+    static WorkflowGuardRegistry guardRegistry() {
+        return new WorkflowGuardRegistry(new GenericApplicationContext(), 10_000);
+    }
+
+    static WorkflowEngine engine(WorkflowGuardRegistry guardRegistry) {
+        return new WorkflowEngine(guardRegistry, new WorkflowActionRegistry(new GenericApplicationContext()),
+                new GuardEvaluator(new TenantContext()));
+    }
+
+    static String state(int index) {
+        return "S" + index;
+    }
+
+    /**
+     * A chain S0 -> S1 -> ... -> S(n-1) -> DONE on event "next", with a "reset" back to S0 from
+     * every state; every "next" transition carries the given guards.
+     */
+    static WorkflowDefinition chain(int states, List<WorkflowDefinition.GuardDefinition> guards) {
+        Map<String, WorkflowDefinition.StateDefinition> definitions = new LinkedHashMap<>();
+        for (int i = 0; i < states; i++) {
+            List<WorkflowDefinition.TransitionDefinition> transitions = new ArrayList<>();
+            transitions.add(WorkflowDefinition.TransitionDefinition.builder()
+                    .to(i + 1 < states ? state(i + 1) : "DONE")
+                    .event("next")
+                    .guards(guards)
+                    .build());
+            if (i > 0) {
+                transitions.add(WorkflowDefinition.TransitionDefinition.builder()
+                        .to(state(0))
+                        .event("reset")
+                        .build());
+            }
+            definitions.put(state(i), WorkflowDefinition.StateDefinition.builder()
+                    .name(state(i))
+                    .transitions(transitions)
+                    .build());
+        }
+        definitions.put("DONE", WorkflowDefinition.StateDefinition.builder().name("DONE").build());
+
+        return WorkflowDefinition.builder()
+                .id("benchmark-" + states)
+                .name("Benchmark " + states)
+                .version("1")
+                .initialState(state(0))
+                .states(definitions)
+                .build();
+    }
+
+}
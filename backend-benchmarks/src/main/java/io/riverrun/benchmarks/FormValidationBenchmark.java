@@ -0,0 +1,127 @@
+package io.riverrun.benchmarks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.riverrun.domain.model.FormSchema;
+import io.riverrun.forms.FgeSchemaValidator;
+import io.riverrun.forms.FormValidationService;
+import io.riverrun.forms.NetworkntSchemaValidator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON schema validation of a small form and of a large one with many fields and a repeated section,
+ * with each schema engine.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FormValidationBenchmark {
+
+    @Param({ "small", "large" })
+    private String payload;
+
+    @Param({ FgeSchemaValidator.NAME, NetworkntSchemaValidator.NAME })
+    private String engine;
+
+    /** Only the small form is flat enough for a plan. */
+    @Param({ "true", "false" })
+    private boolean flatPlans;
+
+    private FormValidationService service;
+    private Map<String, Object> schema;
+    private FormSchema formSchema;
+    private Map<String, Object> validData;
+    private Map<String, Object> invalidData;
+    private JsonNode validTree;
+
+    @Setup
+    public void setUp() {
+        ObjectMapper objectMapper = new ObjectMapper();
+        // No tenant repository: forms without a tenant use the default engine
+        service = new FormValidationService(objectMapper,
+                List.of(new FgeSchemaValidator(), new NetworkntSchemaValidator()), null, engine, 1000, 50, flatPlans);
+        int fields = "small".equals(payload) ? 5 : 200;
+        int items = "small".equals(payload) ? 0 : 100;
+
+        Map<String, Object> properties = new LinkedHashMap<>();
+        List<String> required = new ArrayList<>();
+        validData = new LinkedHashMap<>();
+        for (int i = 0; i < fields; i++) {
+            String name = "field" + i;
+            if (i % 2 == 0) {
+                properties.put(name, Map.of("type", "string", "maxLength", 100));
+                validData.put(name, "value " + i);
+            } else {
+                properties.put(name, Map.of("type", "integer", "minimum", 0));
+                validData.put(name, i);
+            }
+            required.add(name);
+        }
+        if (items > 0) {
+            properties.put("lines", Map.of("type", "array", "items", Map.of(
+                    "type", "object",
+                    "properties", Map.of("sku", Map.of("type", "string"), "quantity", Map.of("type", "integer")),
+                    "required", List.of("sku", "quantity"))));
+            List<Map<String, Object>> lines = new ArrayList<>();
+            for (int i = 0; i < items; i++) {
+                lines.add(Map.of("sku", "SKU-" + i, "quantity", i));
+            }
+            validData.put("lines", lines);
+        }
+
+        schema = Map.of("type", "object", "properties", properties, "required", required);
+        formSchema = FormSchema.builder().id(UUID.randomUUID()).code("benchmark").schema(schema).build();
+
+        invalidData = new LinkedHashMap<>(validData);
+        invalidData.put("field0", 42);
+        invalidData.remove("field1");
+        validTree = objectMapper.valueToTree(validData);
+    }
+
+    @Benchmark
+    public Object validPayload() {
+        return service.validate(schema, validData);
+    }
+
+    /**
+     * Stored form: the compiled schema comes from the cache.
+     */
+    @Benchmark
+    public Object validPayloadCachedSchema() {
+        return service.validate(formSchema, validData);
+    }
+
+    /**
+     * Stored form with the payload already parsed into a tree, as the validate endpoint binds it.
+     */
+    @Benchmark
+    public Object validTreeCachedSchema() {
+        return service.validate(formSchema, validTree);
+    }
+
+    @Benchmark
+    public Object invalidPayload() {
+        return service.validate(schema, invalidData);
+    }
+
+}
@@ -0,0 +1,104 @@
+package io.riverrun.benchmarks;
+
+import io.riverrun.workflow.CompiledWorkflow;
+import io.riverrun.workflow.WorkflowContext;
+import io.riverrun.workflow.WorkflowDefinition;
+import io.riverrun.workflow.WorkflowEngine;
+import io.riverrun.workflow.WorkflowGuardRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Guard chains of increasing length, as stacked named guards and as one compiled expression,
+ * plus raw registry lookups.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GuardBenchmark {
+
+    @Param({ "1", "4", "16" })
+    private int guards;
+
+    private WorkflowGuardRegistry registry;
+    private WorkflowEngine engine;
+    private CompiledWorkflow namedGuardWorkflow;
+    private CompiledWorkflow expressionWorkflow;
+    private WorkflowContext context;
+
+    @Setup
+    public void setUp() {
+        registry = Fixtures.guardRegistry();
+        engine = Fixtures.engine(registry);
+
+        Map<String, Object> data = new HashMap<>();
+        List<WorkflowDefinition.GuardDefinition> named = new ArrayList<>();
+        StringBuilder expression = new StringBuilder();
+        for (int i = 0; i < guards; i++) {
+            String field = "field" + i;
+            data.put(field, "value" + i);
+            named.add(WorkflowDefinition.GuardDefinition.builder()
+                    .rule("fieldEquals")
+                    .parameters(Map.of("field", field, "value", "value" + i))
+                    .build());
+            if (i > 0) {
+                expression.append(" && ");
+            }
+            expression.append(field).append(" == 'value").append(i).append('\'');
+        }
+
+        namedGuardWorkflow = engine.compile(Fixtures.chain(2, named));
+        expressionWorkflow = engine.compile(Fixtures.chain(2, List.of(WorkflowDefinition.GuardDefinition.builder()
+                .rule(WorkflowGuardRegistry.EXPRESSION_RULE)
+                .expression(expression.toString())
+                .build())));
+
+        context = WorkflowContext.builder()
+                .entityId(UUID.randomUUID())
+                .entityType("Case")
+                .currentState(Fixtures.state(0))
+                .targetState(Fixtures.state(1))
+                .data(data)
+                .build();
+    }
+
+    @Benchmark
+    public Object namedGuardChain() {
+        return engine.executeTransition(namedGuardWorkflow, context);
+    }
+
+    @Benchmark
+    public Object expressionGuard() {
+        return engine.executeTransition(expressionWorkflow, context);
+    }
+
+    @Benchmark
+    public Object registryLookup() {
+        return registry.getGuard("fieldEquals");
+    }
+
+    @Benchmark
+    public Object registryLookupMissing() {
+        return registry.getGuard("noSuchGuard");
+    }
+
+}
@@ -0,0 +1,64 @@
+package io.riverrun.benchmarks;
+
+import io.riverrun.security.JwtTokenProvider;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.Field;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token parsing as done for every authenticated request.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtBenchmark {
+
+    private JwtTokenProvider provider;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        provider = new JwtTokenProvider();
+        set("secret", "benchmarkSecretKeyThatIsLongEnoughForHmacSha256Signing");
+        set("jwtExpiration", 3_600_000L);
+        set("jwtExpirationRememberMe", 3_600_000L);
+        token = provider.generateToken(UUID.randomUUID(), "benchmark", UUID.randomUUID());
+    }
+
+    @Benchmark
+    public Object extractUsername() {
+        return provider.extractUsername(token);
+    }
+
+    @Benchmark
+    public Object validateToken() {
+        return provider.validateToken(token, "benchmark");
+    }
+
+    @Benchmark
+    public Object generateToken() {
+        return provider.generateToken(UUID.randomUUID(), "benchmark", UUID.randomUUID());
+    }
+
+    private void set(String name, Object value) {
+        Field field = ReflectionUtils.findField(JwtTokenProvider.class, name);
+        ReflectionUtils.makeAccessible(field);
+        ReflectionUtils.setField(field, provider, value);
+    }
+
+}
@@ -0,0 +1,89 @@
+package io.riverrun.benchmarks;
+
+import io.riverrun.workflow.CompiledWorkflow;
+import io.riverrun.workflow.WorkflowContext;
+import io.riverrun.workflow.WorkflowDefinition;
+import io.riverrun.workflow.WorkflowEngine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Transition throughput against workflows of increasing size.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WorkflowEngineBenchmark {
+
+    @Param({ "10", "100", "1000" })
+    private int states;
+
+    private WorkflowEngine engine;
+    private WorkflowDefinition definition;
+    private CompiledWorkflow workflow;
+    private WorkflowContext context;
+    private String targetState;
+
+    @Setup
+    public void setUp() {
+        engine = Fixtures.engine(Fixtures.guardRegistry());
+        definition = Fixtures.chain(states, List.of());
+        workflow = engine.compile(definition);
+
+        int from = states / 2;
+        targetState = from + 1 < states ? Fixtures.state(from + 1) : "DONE";
+        context = WorkflowContext.builder()
+                .entityId(UUID.randomUUID())
+                .entityType("Case")
+                .currentState(Fixtures.state(from))
+                .data(new HashMap<>())
+                .build();
+    }
+
+    @Benchmark
+    public Object transitionByTarget() {
+        context.setTargetState(targetState);
+        context.setEvent(null);
+        return engine.executeTransition(workflow, context);
+    }
+
+    @Benchmark
+    public Object transitionByEvent() {
+        context.setTargetState(null);
+        context.setEvent("next");
+        return engine.executeTransition(workflow, context);
+    }
+
+    /**
+     * The uncompiled path: compiles the definition on every call.
+     */
+    @Benchmark
+    public Object transitionFromDefinition() {
+        context.setTargetState(targetState);
+        context.setEvent(null);
+        return engine.executeTransition(definition, context);
+    }
+
+    @Benchmark
+    public Object compile() {
+        return engine.compile(definition);
+    }
+
+}
@@ -0,0 +1,96 @@
+package io.riverrun.api.controller;
+
+import io.riverrun.audit.AuditArchiveService;
+import io.riverrun.audit.AuditQueryService;
+import io.riverrun.audit.AuditWriter;
+import io.riverrun.multitenancy.TenantContext;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/audit")
+@RequiredArgsConstructor
+@Slf4j
+public class AuditController {
+
+    private final AuditWriter auditWriter;
+    private final AuditQueryService auditQueryService;
+    private final AuditArchiveService auditArchiveService;
+    private final TenantContext tenantContext;
+
+    // Newest first; pass the returned nextCursor back to get the following page
+    @GetMapping
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> getAuditLogs(
+            @RequestParam(required = false) String entityType,
+            @RequestParam(required = false) UUID entityId,
+            @RequestParam(required = false) UUID userId,
+            @RequestParam(required = false) String username,
+            @RequestParam(required = false) String action,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) String changedField,
+            @RequestParam(required = false) List<String> fields,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+
+        AuditQueryService.AuditQuery query = AuditQueryService.AuditQuery.builder()
+                .entityType(entityType)
+                .entityId(entityId)
+                .userId(userId)
+                .username(username)
+                .action(action)
+                .from(from)
+                .to(to)
+                .changedField(changedField)
+                .build();
+
+        try {
+            return ResponseEntity.ok(auditQueryService.find(tenantContext.getCurrentTenant(), query, fields,
+                    cursor, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    // Entries moved to the archive, newest first; pass the returned nextCursor back to get the following page
+    @GetMapping("/archive")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> getArchivedAuditLogs(
+            @RequestParam(required = false) String entityType,
+            @RequestParam(required = false) UUID entityId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+
+        try {
+            return ResponseEntity.ok(auditArchiveService.find(tenantContext.getCurrentTenant(), entityType, entityId,
+                    from, to, cursor, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/archive/manifest")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<List<AuditArchiveService.ArchivedPeriod>> getArchiveManifest() {
+        return ResponseEntity.ok(auditArchiveService.getManifest(tenantContext.getCurrentTenant()));
+    }
+
+    @GetMapping("/writer")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<AuditWriter.Stats> getWriterStats() {
+        return ResponseEntity.ok(auditWriter.getStats());
+    }
+
+}
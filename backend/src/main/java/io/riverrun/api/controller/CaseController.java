@@ -1,21 +1,35 @@
 package io.riverrun.api.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.riverrun.api.dto.AvailableTransitionsRequest;
+import io.riverrun.api.dto.BulkTransitionRequest;
 import io.riverrun.api.dto.CaseRequest;
 import io.riverrun.api.dto.CaseResponse;
 import io.riverrun.domain.model.Case;
 import io.riverrun.domain.repository.CaseRepository;
 import io.riverrun.multitenancy.TenantContext;
+import io.riverrun.workflow.AvailableTransitionService;
+import io.riverrun.workflow.BulkTransitionService;
+import io.riverrun.workflow.CaseTransitionService;
+import io.riverrun.workflow.WorkflowEventStore;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
@@ -25,8 +39,16 @@ import java.util.stream.Collectors;
 @Slf4j
 public class CaseController {
 
+    /** Set on bulk transitions by filter: whether cases beyond {@code max-cases} were left out. */
+    public static final String TRUNCATED_HEADER = "X-Truncated";
+
     private final CaseRepository caseRepository;
     private final TenantContext tenantContext;
+    private final CaseTransitionService caseTransitionService;
+    private final BulkTransitionService bulkTransitionService;
+    private final AvailableTransitionService availableTransitionService;
+    private final WorkflowEventStore workflowEventStore;
+    private final ObjectMapper objectMapper;
 
     @GetMapping
     @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
@@ -78,9 +100,8 @@ public class CaseController {
                 .build();
 
         caseEntity.setTenantId(tenantContext.getCurrentTenant());
-        // TODO: Set createdBy from authenticated user
 
-        Case saved = caseRepository.save(caseEntity);
+        Case saved = caseTransitionService.create(caseEntity, userDetails.getUsername());
         log.info("Created case: {} by user: {}", saved.getCaseNumber(), userDetails.getUsername());
 
         return ResponseEntity.status(HttpStatus.CREATED).body(toResponse(saved));
@@ -88,35 +109,33 @@ public class CaseController {
 
     @PutMapping("/{id}")
     @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
-    public ResponseEntity<CaseResponse> updateCase(
+    public ResponseEntity<?> updateCase(
             @PathVariable UUID id,
             @RequestBody CaseRequest request,
             @AuthenticationPrincipal UserDetails userDetails) {
 
-        return caseRepository.findById(id)
-                .map(caseEntity -> {
-                    if (request.getTitle() != null) caseEntity.setTitle(request.getTitle());
-                    if (request.getDescription() != null) caseEntity.setDescription(request.getDescription());
-                    if (request.getStatus() != null) caseEntity.setStatus(request.getStatus());
-                    if (request.getPriority() != null) caseEntity.setPriority(request.getPriority());
-                    if (request.getAssignedTo() != null) caseEntity.setAssignedTo(request.getAssignedTo());
-                    if (request.getCustomFields() != null) caseEntity.setCustomFields(request.getCustomFields());
-                    if (request.getMetadata() != null) caseEntity.setMetadata(request.getMetadata());
-                    if (request.getDueDate() != null) caseEntity.setDueDate(request.getDueDate());
-
-                    // Handle status transitions
-                    if ("RESOLVED".equals(request.getStatus()) && caseEntity.getResolvedAt() == null) {
-                        caseEntity.setResolvedAt(LocalDateTime.now());
-                    }
-                    if ("CLOSED".equals(request.getStatus()) && caseEntity.getClosedAt() == null) {
-                        caseEntity.setClosedAt(LocalDateTime.now());
-                    }
+        Case caseEntity = caseRepository.findById(id).orElse(null);
+        if (caseEntity == null) {
+            return ResponseEntity.notFound().build();
+        }
+        // Status changes go through the workflow, which also maintains the case's timers and history
+        if (request.getStatus() != null && !request.getStatus().equals(caseEntity.getStatus())) {
+            return ResponseEntity.unprocessableEntity().body(Map.of("error",
+                    "Status cannot be changed directly; use POST /cases/" + id + "/transition"));
+        }
 
-                    Case saved = caseRepository.save(caseEntity);
-                    log.info("Updated case: {} by user: {}", saved.getCaseNumber(), userDetails.getUsername());
-                    return ResponseEntity.ok(toResponse(saved));
-                })
-                .orElse(ResponseEntity.notFound().build());
+        if (request.getTitle() != null) caseEntity.setTitle(request.getTitle());
+        if (request.getDescription() != null) caseEntity.setDescription(request.getDescription());
+        if (request.getPriority() != null) caseEntity.setPriority(request.getPriority());
+        if (request.getAssignedTo() != null) caseEntity.setAssignedTo(request.getAssignedTo());
+        if (request.getCustomFields() != null) caseEntity.setCustomFields(request.getCustomFields());
+        if (request.getMetadata() != null) caseEntity.setMetadata(request.getMetadata());
+        boolean dueDateChanged = request.getDueDate() != null && !request.getDueDate().equals(caseEntity.getDueDate());
+        if (dueDateChanged) caseEntity.setDueDate(request.getDueDate());
+
+        Case saved = caseTransitionService.saveEdits(caseEntity, dueDateChanged);
+        log.info("Updated case: {} by user: {}", saved.getCaseNumber(), userDetails.getUsername());
+        return ResponseEntity.ok(toResponse(saved));
     }
 
     @DeleteMapping("/{id}")
@@ -133,28 +152,140 @@ public class CaseController {
 
     @PostMapping("/{id}/transition")
     @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
-    public ResponseEntity<CaseResponse> transitionCaseState(
+    public ResponseEntity<?> transitionCaseState(
             @PathVariable UUID id,
             @RequestParam String targetState,
+            @RequestParam(required = false) String event,
             @AuthenticationPrincipal UserDetails userDetails) {
 
-        return caseRepository.findById(id)
-                .map(caseEntity -> {
-                    // TODO: Integrate with workflow engine for validation
-                    caseEntity.setStatus(targetState);
+        CaseTransitionService.CaseTransitionResult result =
+                caseTransitionService.transition(id, targetState, event, userDetails.getUsername());
+
+        return switch (result.getOutcome()) {
+            case SUCCESS -> {
+                log.info("Transitioned case {} to state {} by user {}",
+                    result.getCaseEntity().getCaseNumber(), targetState, userDetails.getUsername());
+                yield ResponseEntity.ok(toResponse(result.getCaseEntity()));
+            }
+            case NOT_FOUND -> ResponseEntity.notFound().build();
+            case REJECTED -> ResponseEntity.unprocessableEntity().body(Map.of("error", result.getErrorMessage()));
+            case CONFLICT -> ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", result.getErrorMessage()));
+        };
+    }
+
+    @PostMapping("/transitions:bulk")
+    @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
+    public ResponseEntity<?> bulkTransition(
+            @RequestBody BulkTransitionRequest request,
+            @AuthenticationPrincipal UserDetails userDetails) {
+
+        if (request.getEvent() == null && request.getTargetState() == null) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Either event or targetState is required"));
+        }
+        if (request.getCaseIds() == null && request.getFilter() == null) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Either caseIds or filter is required"));
+        }
+
+        UUID tenantId = tenantContext.getCurrentTenant();
+        List<UUID> caseIds;
+        boolean truncated = false;
+        if (request.getCaseIds() != null) {
+            if (request.getCaseIds().size() > bulkTransitionService.getMaxCases()) {
+                return ResponseEntity.badRequest().body(Map.of("error",
+                        "At most " + bulkTransitionService.getMaxCases() + " cases per request"));
+            }
+            caseIds = request.getCaseIds().stream().distinct().toList();
+        } else {
+            BulkTransitionRequest.Filter filter = request.getFilter();
+            LocalDateTime createdBefore = filter.getCreatedBefore();
+            if (createdBefore == null && filter.getOlderThanDays() != null) {
+                createdBefore = LocalDateTime.now().minusDays(filter.getOlderThanDays());
+            }
+            BulkTransitionService.CaseSelection selection = bulkTransitionService.findCaseIds(tenantId,
+                    filter.getStatus(), filter.getCaseType(), filter.getAssignedTo(), createdBefore);
+            caseIds = selection.caseIds();
+            truncated = selection.truncated();
+        }
+
+        String username = userDetails.getUsername();
+        log.info("Bulk transition of {} cases{} (event: {}, target: {}) by user {}", caseIds.size(),
+                truncated ? " (filter truncated)" : "", request.getEvent(), request.getTargetState(), username);
 
-                    if ("RESOLVED".equals(targetState)) {
-                        caseEntity.setResolvedAt(LocalDateTime.now());
-                    } else if ("CLOSED".equals(targetState)) {
-                        caseEntity.setClosedAt(LocalDateTime.now());
+        StreamingResponseBody body = out -> bulkTransitionService.execute(tenantId, username, caseIds,
+                request.getEvent(), request.getTargetState(), results -> {
+                    try {
+                        for (BulkTransitionService.ItemResult result : results) {
+                            out.write(objectMapper.writeValueAsBytes(result));
+                            out.write('\n');
+                        }
+                        out.flush();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
                     }
+                });
 
-                    Case saved = caseRepository.save(caseEntity);
-                    log.info("Transitioned case {} to state {} by user {}",
-                        saved.getCaseNumber(), targetState, userDetails.getUsername());
-                    return ResponseEntity.ok(toResponse(saved));
-                })
-                .orElse(ResponseEntity.notFound().build());
+        // More cases matched the filter than one request may move: repeat it for the rest
+        return ResponseEntity.ok()
+                .header(TRUNCATED_HEADER, String.valueOf(truncated))
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .body(body);
+    }
+
+    @GetMapping("/{id}/history")
+    @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
+    public ResponseEntity<List<WorkflowEventStore.Event>> getCaseHistory(@PathVariable UUID id) {
+        UUID tenantId = tenantContext.getCurrentTenant();
+        if (caseRepository.findByIdAndTenantId(id, tenantId).isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(workflowEventStore.getEvents(tenantId, id));
+    }
+
+    @GetMapping("/{id}/history/state")
+    @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
+    public ResponseEntity<WorkflowEventStore.EntityState> getCaseStateAt(
+            @PathVariable UUID id,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime at) {
+
+        UUID tenantId = tenantContext.getCurrentTenant();
+        if (caseRepository.findByIdAndTenantId(id, tenantId).isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        WorkflowEventStore.EntityState state = workflowEventStore.fold(tenantId, id,
+                at != null ? at : LocalDateTime.now());
+        return state != null ? ResponseEntity.ok(state) : ResponseEntity.notFound().build();
+    }
+
+    @GetMapping("/{id}/history/time-in-state")
+    @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
+    public ResponseEntity<Map<String, Long>> getCaseTimeInState(@PathVariable UUID id) {
+        UUID tenantId = tenantContext.getCurrentTenant();
+        if (caseRepository.findByIdAndTenantId(id, tenantId).isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        Map<String, Long> seconds = new LinkedHashMap<>();
+        workflowEventStore.getTimeInState(tenantId, id)
+                .forEach((state, duration) -> seconds.put(state, duration.toSeconds()));
+        return ResponseEntity.ok(seconds);
+    }
+
+    @PostMapping("/transitions:available")
+    @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
+    public ResponseEntity<?> getAvailableTransitions(
+            @RequestBody AvailableTransitionsRequest request,
+            @AuthenticationPrincipal UserDetails userDetails) {
+
+        if (request.getCaseIds() == null || request.getCaseIds().isEmpty()) {
+            return ResponseEntity.badRequest().body(Map.of("error", "caseIds is required"));
+        }
+        if (request.getCaseIds().size() > availableTransitionService.getMaxCases()) {
+            return ResponseEntity.badRequest().body(Map.of("error",
+                    "At most " + availableTransitionService.getMaxCases() + " cases per request"));
+        }
+
+        List<UUID> caseIds = request.getCaseIds().stream().distinct().toList();
+        return ResponseEntity.ok(availableTransitionService.evaluate(tenantContext.getCurrentTenant(), caseIds,
+                userDetails.getUsername()));
     }
 
     private CaseResponse toResponse(Case caseEntity) {
@@ -1,17 +1,31 @@
 package io.riverrun.api.controller;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.riverrun.api.dto.FieldValidationRequest;
 import io.riverrun.api.dto.FormSchemaRequest;
 import io.riverrun.api.dto.FormSchemaResponse;
 import io.riverrun.domain.model.FormSchema;
 import io.riverrun.domain.repository.FormSchemaRepository;
+import io.riverrun.forms.FormBatchValidationService;
+import io.riverrun.forms.FormDeliveryService;
 import io.riverrun.forms.FormValidationService;
 import io.riverrun.multitenancy.TenantContext;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
@@ -23,8 +37,13 @@ import java.util.stream.Collectors;
 @Slf4j
 public class FormSchemaController {
 
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
     private final FormSchemaRepository formSchemaRepository;
     private final FormValidationService formValidationService;
+    private final FormBatchValidationService formBatchValidationService;
+    private final FormDeliveryService formDeliveryService;
+    private final ObjectMapper objectMapper;
     private final TenantContext tenantContext;
 
     @GetMapping
@@ -36,16 +55,18 @@ public class FormSchemaController {
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<FormSchemaResponse> getFormSchema(@PathVariable UUID id) {
-        return formSchemaRepository.findByIdAndActiveTrue(id)
-                .map(schema -> ResponseEntity.ok(toResponse(schema)))
+    public ResponseEntity<byte[]> getFormSchema(@PathVariable UUID id, WebRequest request) {
+        return formDeliveryService.get(tenantContext.getCurrentTenant(), "id:" + id,
+                        () -> formSchemaRepository.findByIdAndActiveTrue(id), this::toResponse)
+                .map(content -> deliver(content, request))
                 .orElse(ResponseEntity.notFound().build());
     }
 
     @GetMapping("/code/{code}")
-    public ResponseEntity<FormSchemaResponse> getFormSchemaByCode(@PathVariable String code) {
-        return formSchemaRepository.findByCodeAndActiveTrue(code)
-                .map(schema -> ResponseEntity.ok(toResponse(schema)))
+    public ResponseEntity<byte[]> getFormSchemaByCode(@PathVariable String code, WebRequest request) {
+        return formDeliveryService.get(tenantContext.getCurrentTenant(), "code:" + code,
+                        () -> formSchemaRepository.findByCodeAndActiveTrue(code), this::toResponse)
+                .map(content -> deliver(content, request))
                 .orElse(ResponseEntity.notFound().build());
     }
 
@@ -86,6 +107,8 @@ public class FormSchemaController {
                     }
 
                     FormSchema saved = formSchemaRepository.save(schema);
+                    formValidationService.invalidate(saved.getId());
+                    formDeliveryService.invalidate(saved.getId());
                     return ResponseEntity.ok(toResponse(saved));
                 })
                 .orElse(ResponseEntity.notFound().build());
@@ -94,12 +117,13 @@ public class FormSchemaController {
     @PostMapping("/{id}/validate")
     public ResponseEntity<Map<String, Object>> validateFormData(
             @PathVariable UUID id,
-            @RequestBody Map<String, Object> formData) {
+            @RequestBody JsonNode formData) {
 
+        // Bound as a tree: the body is parsed once and validated as-is, without a Map in between
         return formSchemaRepository.findByIdAndActiveTrue(id)
                 .map(schema -> {
                     FormValidationService.ValidationResult result =
-                            formValidationService.validate(schema.getSchema(), formData);
+                            formValidationService.validate(schema, formData);
 
                     return ResponseEntity.ok(Map.of(
                             "valid", result.isValid(),
@@ -109,17 +133,101 @@ public class FormSchemaController {
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    @PostMapping("/{id}/validate:field")
+    public ResponseEntity<Map<String, Object>> validateField(
+            @PathVariable UUID id,
+            @RequestBody FieldValidationRequest request) {
+
+        if (request.getPath() == null || request.getPath().isBlank()) {
+            return ResponseEntity.badRequest().body(Map.of("error", "path is required"));
+        }
+
+        FormSchema schema = formSchemaRepository.findByIdAndActiveTrue(id).orElse(null);
+        if (schema == null) {
+            return ResponseEntity.notFound().build();
+        }
+
+        try {
+            FormValidationService.ValidationResult result = formValidationService.validateField(
+                    schema, request.getPath(), request.getValue(), request.getData());
+            return ResponseEntity.ok(Map.of(
+                    "valid", result.isValid(),
+                    "errors", result.getErrors()
+            ));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @PostMapping(value = "/{id}/validate:batch",
+            consumes = { "application/x-ndjson", MediaType.APPLICATION_JSON_VALUE })
+    public ResponseEntity<StreamingResponseBody> validateFormDataBatch(
+            @PathVariable UUID id,
+            HttpServletRequest request) throws IOException {
+
+        FormSchema schema = formSchemaRepository.findByIdAndActiveTrue(id).orElse(null);
+        if (schema == null) {
+            return ResponseEntity.notFound().build();
+        }
+
+        // Records are read from the body while results stream back, one NDJSON line per record in input order
+        boolean ndjson = NDJSON.isCompatibleWith(MediaType.parseMediaType(request.getContentType()));
+        InputStream input = request.getInputStream();
+        StreamingResponseBody body = out -> formBatchValidationService.validate(schema, input, ndjson, results -> {
+            try {
+                for (FormBatchValidationService.ItemResult result : results) {
+                    out.write(objectMapper.writeValueAsBytes(result));
+                    out.write('\n');
+                }
+                out.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+
+        return ResponseEntity.ok()
+                .contentType(NDJSON)
+                .body(body);
+    }
+
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteFormSchema(@PathVariable UUID id) {
         return formSchemaRepository.findById(id)
                 .map(schema -> {
                     schema.setActive(false);
                     formSchemaRepository.save(schema);
+                    formValidationService.invalidate(schema.getId());
+                    formDeliveryService.invalidate(schema.getId());
                     return ResponseEntity.noContent().<Void>build();
                 })
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    // Pre-rendered content: gzip when the client accepts it, 304 when its copy is current
+    private ResponseEntity<byte[]> deliver(FormDeliveryService.Content content, WebRequest request) {
+        String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        boolean gzip = acceptEncoding != null && acceptEncoding.contains("gzip");
+        String etag = gzip ? content.getGzipEtag() : content.getEtag();
+
+        if (request.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(etag)
+                    .cacheControl(CacheControl.noCache())
+                    .varyBy(HttpHeaders.ACCEPT_ENCODING)
+                    .build();
+        }
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache())
+                .varyBy(HttpHeaders.ACCEPT_ENCODING)
+                .contentType(MediaType.APPLICATION_JSON);
+        if (gzip) {
+            return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(content.getGzip());
+        }
+        return response.body(content.getJson());
+    }
+
     private FormSchemaResponse toResponse(FormSchema schema) {
         return FormSchemaResponse.builder()
                 .id(schema.getId())
@@ -0,0 +1,197 @@
+package io.riverrun.api.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.riverrun.api.dto.WorkflowDefinitionRequest;
+import io.riverrun.api.dto.WorkflowDefinitionResponse;
+import io.riverrun.domain.model.WorkflowDefinitionEntity;
+import io.riverrun.domain.repository.WorkflowDefinitionRepository;
+import io.riverrun.multitenancy.TenantContext;
+import io.riverrun.workflow.WorkflowAnalysis;
+import io.riverrun.workflow.WorkflowDefinition;
+import io.riverrun.workflow.WorkflowDefinitionCache;
+import io.riverrun.workflow.WorkflowEngine;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+@RestController
+@RequestMapping("/workflows")
+@RequiredArgsConstructor
+@Slf4j
+public class WorkflowDefinitionController {
+
+    private final WorkflowDefinitionRepository workflowDefinitionRepository;
+    private final WorkflowDefinitionCache workflowDefinitionCache;
+    private final WorkflowEngine workflowEngine;
+    private final ObjectMapper objectMapper;
+    private final TenantContext tenantContext;
+
+    @GetMapping
+    @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
+    public ResponseEntity<List<WorkflowDefinitionResponse>> getAllWorkflows(
+            @RequestParam(required = false) Boolean active) {
+
+        List<WorkflowDefinitionEntity> workflows = active != null
+                ? workflowDefinitionRepository.findByActive(active)
+                : workflowDefinitionRepository.findAll();
+
+        return ResponseEntity.ok(workflows.stream()
+                .map(this::toResponse)
+                .collect(Collectors.toList()));
+    }
+
+    @GetMapping("/{id}")
+    @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
+    public ResponseEntity<WorkflowDefinitionResponse> getWorkflow(@PathVariable UUID id) {
+        return workflowDefinitionRepository.findById(id)
+                .map(workflow -> ResponseEntity.ok(toResponse(workflow)))
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @GetMapping("/workflowId/{workflowId}")
+    @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
+    public ResponseEntity<WorkflowDefinitionResponse> getWorkflowByWorkflowId(@PathVariable String workflowId) {
+        return workflowDefinitionRepository.findFirstByWorkflowIdAndActiveTrueOrderByCreatedAtDesc(workflowId)
+                .map(workflow -> ResponseEntity.ok(toResponse(workflow)))
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @PostMapping
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> createWorkflow(@RequestBody WorkflowDefinitionRequest request) {
+        String error = validate(request.getDefinition());
+        if (error != null) {
+            return ResponseEntity.badRequest().body(Map.of("error", error));
+        }
+
+        WorkflowDefinitionEntity workflow = WorkflowDefinitionEntity.builder()
+                .workflowId(request.getWorkflowId())
+                .name(request.getName())
+                .description(request.getDescription())
+                .definition(request.getDefinition())
+                .version(request.getVersion() != null ? request.getVersion() : "1.0.0")
+                .active(request.getActive() != null ? request.getActive() : true)
+                .build();
+
+        workflow.setTenantId(tenantContext.getCurrentTenant());
+        WorkflowDefinitionEntity saved = workflowDefinitionRepository.save(workflow);
+        workflowDefinitionCache.invalidate(saved.getTenantId(), saved.getWorkflowId());
+        log.info("Created workflow definition: {} v{}", saved.getWorkflowId(), saved.getVersion());
+
+        return ResponseEntity.status(HttpStatus.CREATED).body(toResponse(saved));
+    }
+
+    @PutMapping("/{id}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> updateWorkflow(
+            @PathVariable UUID id,
+            @RequestBody WorkflowDefinitionRequest request) {
+
+        if (request.getDefinition() != null) {
+            String error = validate(request.getDefinition());
+            if (error != null) {
+                return ResponseEntity.badRequest().body(Map.of("error", error));
+            }
+        }
+
+        return workflowDefinitionRepository.findById(id)
+                .map(workflow -> {
+                    if (request.getName() != null) workflow.setName(request.getName());
+                    if (request.getDescription() != null) workflow.setDescription(request.getDescription());
+                    if (request.getDefinition() != null) workflow.setDefinition(request.getDefinition());
+                    if (request.getVersion() != null) workflow.setVersion(request.getVersion());
+                    if (request.getActive() != null) workflow.setActive(request.getActive());
+
+                    WorkflowDefinitionEntity saved = workflowDefinitionRepository.save(workflow);
+                    workflowDefinitionCache.invalidate(saved.getTenantId(), saved.getWorkflowId());
+                    log.info("Updated workflow definition: {} v{}", saved.getWorkflowId(), saved.getVersion());
+                    return ResponseEntity.ok(toResponse(saved));
+                })
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @DeleteMapping("/{id}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Void> deleteWorkflow(@PathVariable UUID id) {
+        return workflowDefinitionRepository.findById(id)
+                .map(workflow -> {
+                    workflow.setActive(false);
+                    workflowDefinitionRepository.save(workflow);
+                    workflowDefinitionCache.invalidate(workflow.getTenantId(), workflow.getWorkflowId());
+                    log.info("Deactivated workflow definition: {} v{}", workflow.getWorkflowId(), workflow.getVersion());
+                    return ResponseEntity.noContent().<Void>build();
+                })
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @GetMapping("/{id}/analysis")
+    @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
+    public ResponseEntity<?> getWorkflowAnalysis(@PathVariable UUID id) {
+        return workflowDefinitionRepository.findById(id)
+                .map(workflow -> {
+                    WorkflowDefinition parsed = objectMapper.convertValue(workflow.getDefinition(),
+                            WorkflowDefinition.class);
+                    WorkflowEngine.ValidationResult structure = workflowEngine.validateStructure(parsed);
+                    if (!structure.isValid()) {
+                        return ResponseEntity.unprocessableEntity()
+                                .body(Map.of("error", structure.getErrorMessage()));
+                    }
+
+                    WorkflowAnalysis analysis = workflowEngine.compile(parsed).getAnalysis();
+                    Map<String, Object> body = new LinkedHashMap<>();
+                    body.put("errors", analysis.getErrors());
+                    body.put("warnings", analysis.getWarnings());
+                    body.put("unreachableStates", analysis.getUnreachableStates());
+                    body.put("stuckStates", analysis.getStuckStates());
+                    body.put("ambiguousTransitions", analysis.getAmbiguousTransitions());
+                    body.put("unguardedCycles", analysis.getUnguardedCycles());
+                    body.put("automaticCycles", analysis.getAutomaticCycles());
+                    return ResponseEntity.ok(body);
+                })
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @GetMapping("/cache/stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> getCacheStats() {
+        return ResponseEntity.ok(workflowDefinitionCache.getStats());
+    }
+
+    private String validate(Map<String, Object> definition) {
+        if (definition == null) {
+            return "Workflow definition is required";
+        }
+        try {
+            WorkflowDefinition parsed = objectMapper.convertValue(definition, WorkflowDefinition.class);
+            WorkflowEngine.ValidationResult result = workflowEngine.validate(parsed);
+            return result.isValid() ? null : result.getErrorMessage();
+        } catch (IllegalArgumentException e) {
+            return "Malformed workflow definition: " + e.getMessage();
+        }
+    }
+
+    private WorkflowDefinitionResponse toResponse(WorkflowDefinitionEntity workflow) {
+        return WorkflowDefinitionResponse.builder()
+                .id(workflow.getId())
+                .tenantId(workflow.getTenantId())
+                .workflowId(workflow.getWorkflowId())
+                .name(workflow.getName())
+                .description(workflow.getDescription())
+                .definition(workflow.getDefinition())
+                .version(workflow.getVersion())
+                .active(workflow.getActive())
+                .createdBy(workflow.getCreatedBy())
+                .createdAt(workflow.getCreatedAt())
+                .build();
+    }
+
+}
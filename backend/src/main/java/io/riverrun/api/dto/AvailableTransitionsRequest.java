@@ -0,0 +1,19 @@
+package io.riverrun.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.UUID;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AvailableTransitionsRequest {
+
+    private List<UUID> caseIds;
+
+}
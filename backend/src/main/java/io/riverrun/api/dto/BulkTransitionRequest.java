@@ -0,0 +1,35 @@
+package io.riverrun.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkTransitionRequest {
+
+    private List<UUID> caseIds;
+    private Filter filter;
+    private String event;
+    private String targetState;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Filter {
+        private String status;
+        private String caseType;
+        private UUID assignedTo;
+        private LocalDateTime createdBefore;
+        private Integer olderThanDays;
+    }
+
+}
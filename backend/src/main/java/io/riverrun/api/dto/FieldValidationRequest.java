@@ -0,0 +1,19 @@
+package io.riverrun.api.dto;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FieldValidationRequest {
+
+    private String path;
+    private JsonNode value;
+    private JsonNode data;
+
+}
@@ -0,0 +1,23 @@
+package io.riverrun.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class WorkflowDefinitionRequest {
+
+    private String workflowId;
+    private String name;
+    private String description;
+    private Map<String, Object> definition;
+    private String version;
+    private Boolean active;
+
+}
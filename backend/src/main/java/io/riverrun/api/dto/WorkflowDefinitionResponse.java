@@ -0,0 +1,29 @@
+package io.riverrun.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.UUID;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class WorkflowDefinitionResponse {
+
+    private UUID id;
+    private UUID tenantId;
+    private String workflowId;
+    private String name;
+    private String description;
+    private Map<String, Object> definition;
+    private String version;
+    private Boolean active;
+    private UUID createdBy;
+    private LocalDateTime createdAt;
+
+}
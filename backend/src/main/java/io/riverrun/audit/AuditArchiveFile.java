@@ -0,0 +1,660 @@
+package io.riverrun.audit;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Columnar file of archived audit rows.
+ * Rows are stored in groups of up to {@code rowGroupSize} rows, and within a group every column is a
+ * separately deflated chunk. Repetitive columns (tenant, entity type, action, user, username, ip
+ * address, user agent) are dictionary encoded, {@code created_at} is delta encoded, ids are raw
+ * and the json values length-prefixed UTF-8. The footer keeps the chunk offsets and statistics of
+ * every group (tenants, entity types, entity id and created_at ranges), so scans skip the groups
+ * that cannot match, and decode the other columns only for groups with matching rows:
+ * <pre>
+ * MAGIC group* footer footer-offset:long MAGIC
+ * </pre>
+ */
+final class AuditArchiveFile {
+
+    static final String EXTENSION = ".audit";
+
+    private static final byte[] MAGIC = "RRAUDIT1".getBytes(StandardCharsets.US_ASCII);
+
+    private static final int ID = 0;
+    private static final int TENANT_ID = 1;
+    private static final int ENTITY_TYPE = 2;
+    private static final int ENTITY_ID = 3;
+    private static final int ACTION = 4;
+    private static final int USER_ID = 5;
+    private static final int USERNAME = 6;
+    private static final int OLD_VALUES = 7;
+    private static final int NEW_VALUES = 8;
+    private static final int CHANGES = 9;
+    private static final int IP_ADDRESS = 10;
+    private static final int USER_AGENT = 11;
+    private static final int CREATED_AT = 12;
+    private static final int COLUMNS = 13;
+
+    private AuditArchiveFile() {
+    }
+
+    /**
+     * One archived audit_logs row.
+     */
+    record Row(UUID id, UUID tenantId, String entityType, UUID entityId, String action, UUID userId,
+               String username, String oldValues, String newValues, String changes, String ipAddress,
+               String userAgent, LocalDateTime createdAt) {
+    }
+
+    /**
+     * Predicate pushed down into scans; null fields match everything, {@code to} is exclusive.
+     */
+    record Filter(UUID tenantId, String entityType, UUID entityId, LocalDateTime from, LocalDateTime to) {
+
+        long fromMicros() {
+            return from != null ? micros(from) : Long.MIN_VALUE;
+        }
+
+        long toMicros() {
+            return to != null ? micros(to) : Long.MAX_VALUE;
+        }
+    }
+
+    /**
+     * Writes rows to a temporary file, moved into place by {@link #finish}; closing an unfinished
+     * writer deletes it.
+     */
+    static final class Writer implements Closeable {
+
+        private final Path target;
+        private final Path temp;
+        private final FileChannel channel;
+        private final OutputStream out;
+        private final int rowGroupSize;
+        private final List<Row> rows;
+        private final List<Group> groups = new ArrayList<>();
+        private long position;
+        private boolean finished;
+
+        Writer(Path target, int rowGroupSize) throws IOException {
+            this.target = target;
+            this.temp = target.resolveSibling(target.getFileName() + ".tmp");
+            this.channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+            this.out = new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16);
+            this.rowGroupSize = Math.max(1, rowGroupSize);
+            this.rows = new ArrayList<>(this.rowGroupSize);
+            write(MAGIC);
+        }
+
+        void add(Row row) throws IOException {
+            rows.add(row);
+            if (rows.size() >= rowGroupSize) {
+                flushGroup();
+            }
+        }
+
+        /**
+         * Write the footer, sync the file to disk and move it into place.
+         *
+         * @return The size of the file in bytes
+         */
+        long finish() throws IOException {
+            if (!rows.isEmpty()) {
+                flushGroup();
+            }
+            long footerOffset = position;
+            ByteArrayOutputStream footer = new ByteArrayOutputStream();
+            DataOutputStream data = new DataOutputStream(footer);
+            data.writeInt(groups.size());
+            for (Group group : groups) {
+                group.write(data);
+            }
+            data.writeLong(footerOffset);
+            data.write(MAGIC);
+            write(footer.toByteArray());
+
+            out.flush();
+            channel.force(true);
+            out.close();
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            finished = true;
+            return position;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!finished) {
+                out.close();
+                Files.deleteIfExists(temp);
+            }
+        }
+
+        private void flushGroup() throws IOException {
+            Group group = Group.of(rows);
+            for (int column = 0; column < COLUMNS; column++) {
+                byte[] raw = encode(column, rows);
+                byte[] compressed = deflate(raw);
+                group.offsets[column] = position;
+                group.lengths[column] = compressed.length;
+                group.rawLengths[column] = raw.length;
+                write(compressed);
+            }
+            groups.add(group);
+            rows.clear();
+        }
+
+        private void write(byte[] bytes) throws IOException {
+            out.write(bytes);
+            position += bytes.length;
+        }
+
+        private static byte[] encode(int column, List<Row> rows) {
+            return switch (column) {
+                case ID -> encodeUuids(rows, Row::id);
+                case TENANT_ID -> encodeDictionary(rows, row -> row.tenantId().toString());
+                case ENTITY_TYPE -> encodeDictionary(rows, Row::entityType);
+                case ENTITY_ID -> encodeUuids(rows, Row::entityId);
+                case ACTION -> encodeDictionary(rows, Row::action);
+                case USER_ID -> encodeDictionary(rows, row -> row.userId() != null ? row.userId().toString() : null);
+                case USERNAME -> encodeDictionary(rows, Row::username);
+                case OLD_VALUES -> encodeText(rows, Row::oldValues);
+                case NEW_VALUES -> encodeText(rows, Row::newValues);
+                case CHANGES -> encodeText(rows, Row::changes);
+                case IP_ADDRESS -> encodeDictionary(rows, Row::ipAddress);
+                case USER_AGENT -> encodeDictionary(rows, Row::userAgent);
+                case CREATED_AT -> encodeTimestamps(rows);
+                default -> throw new IllegalStateException("Unknown column " + column);
+            };
+        }
+    }
+
+    /**
+     * Reads a file written by {@link Writer}.
+     */
+    static final class Reader implements Closeable {
+
+        private final Path path;
+        private final FileChannel channel;
+        private final List<Group> groups;
+
+        private Reader(Path path, FileChannel channel, List<Group> groups) {
+            this.path = path;
+            this.channel = channel;
+            this.groups = groups;
+        }
+
+        static Reader open(Path path) throws IOException {
+            FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+            try {
+                long size = channel.size();
+                int trailer = Long.BYTES + MAGIC.length;
+                if (size < MAGIC.length + trailer) {
+                    throw new IOException("Not an audit archive: " + path);
+                }
+                ByteBuffer tail = read(channel, size - trailer, trailer);
+                long footerOffset = tail.getLong();
+                byte[] magic = new byte[MAGIC.length];
+                tail.get(magic);
+                if (!Arrays.equals(magic, MAGIC) || footerOffset < MAGIC.length || footerOffset > size - trailer) {
+                    throw new IOException("Not an audit archive: " + path);
+                }
+
+                ByteBuffer footer = read(channel, footerOffset, (int) (size - trailer - footerOffset));
+                DataInputStream data = new DataInputStream(new ByteArrayInputStream(
+                        footer.array(), footer.arrayOffset(), footer.remaining()));
+                int count = data.readInt();
+                List<Group> groups = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    groups.add(Group.read(data));
+                }
+                return new Reader(path, channel, groups);
+            } catch (IOException | RuntimeException e) {
+                channel.close();
+                throw e;
+            }
+        }
+
+        /**
+         * Pass the rows matching a filter to a sink, in file order, until it returns false.
+         *
+         * @return Whether the sink took every match
+         */
+        boolean scan(Filter filter, Predicate<Row> sink) throws IOException {
+            long fromMicros = filter.fromMicros();
+            long toMicros = filter.toMicros();
+            for (Group group : groups) {
+                if (!group.mayMatch(filter, fromMicros, toMicros)) {
+                    continue;
+                }
+
+                // Filter columns first; the others are only decoded for groups with matching rows
+                Object[] tenants = decodeDictionary(chunk(group, TENANT_ID), group.rows, UUID::fromString);
+                Object[] entityTypes = decodeDictionary(chunk(group, ENTITY_TYPE), group.rows, Function.identity());
+                UUID[] entityIds = decodeUuids(chunk(group, ENTITY_ID), group.rows);
+                long[] createdAt = decodeTimestamps(chunk(group, CREATED_AT), group.rows);
+                int[] matches = new int[group.rows];
+                int count = 0;
+                for (int i = 0; i < group.rows; i++) {
+                    if ((filter.tenantId() == null || filter.tenantId().equals(tenants[i]))
+                            && (filter.entityType() == null || filter.entityType().equals(entityTypes[i]))
+                            && (filter.entityId() == null || filter.entityId().equals(entityIds[i]))
+                            && createdAt[i] >= fromMicros && createdAt[i] < toMicros) {
+                        matches[count++] = i;
+                    }
+                }
+                if (count == 0) {
+                    continue;
+                }
+
+                UUID[] ids = decodeUuids(chunk(group, ID), group.rows);
+                Object[] actions = decodeDictionary(chunk(group, ACTION), group.rows, Function.identity());
+                Object[] userIds = decodeDictionary(chunk(group, USER_ID), group.rows, UUID::fromString);
+                Object[] usernames = decodeDictionary(chunk(group, USERNAME), group.rows, Function.identity());
+                String[] oldValues = decodeText(chunk(group, OLD_VALUES), group.rows);
+                String[] newValues = decodeText(chunk(group, NEW_VALUES), group.rows);
+                String[] changes = decodeText(chunk(group, CHANGES), group.rows);
+                Object[] ipAddresses = decodeDictionary(chunk(group, IP_ADDRESS), group.rows, Function.identity());
+                Object[] userAgents = decodeDictionary(chunk(group, USER_AGENT), group.rows, Function.identity());
+                for (int j = 0; j < count; j++) {
+                    int i = matches[j];
+                    Row row = new Row(ids[i], (UUID) tenants[i], (String) entityTypes[i], entityIds[i],
+                            (String) actions[i], (UUID) userIds[i], (String) usernames[i], oldValues[i],
+                            newValues[i], changes[i], (String) ipAddresses[i], (String) userAgents[i],
+                            fromMicros(createdAt[i]));
+                    if (!sink.test(row)) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+
+        private Decoder chunk(Group group, int column) throws IOException {
+            ByteBuffer compressed = read(channel, group.offsets[column], group.lengths[column]);
+            return new Decoder(inflate(compressed.array(), group.rawLengths[column], path));
+        }
+
+        private static ByteBuffer read(FileChannel channel, long offset, int length) throws IOException {
+            ByteBuffer buffer = ByteBuffer.allocate(length);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, offset + buffer.position()) < 0) {
+                    throw new IOException("Unexpected end of audit archive");
+                }
+            }
+            return buffer.flip();
+        }
+    }
+
+    /**
+     * Location and statistics of a row group.
+     */
+    private static final class Group {
+
+        private final int rows;
+        private final long minCreatedAt;
+        private final long maxCreatedAt;
+        private final Set<UUID> tenants;
+        private final Set<String> entityTypes;
+        private final UUID minEntityId;
+        private final UUID maxEntityId;
+        private final long[] offsets = new long[COLUMNS];
+        private final int[] lengths = new int[COLUMNS];
+        private final int[] rawLengths = new int[COLUMNS];
+
+        private Group(int rows, long minCreatedAt, long maxCreatedAt, Set<UUID> tenants, Set<String> entityTypes,
+                      UUID minEntityId, UUID maxEntityId) {
+            this.rows = rows;
+            this.minCreatedAt = minCreatedAt;
+            this.maxCreatedAt = maxCreatedAt;
+            this.tenants = tenants;
+            this.entityTypes = entityTypes;
+            this.minEntityId = minEntityId;
+            this.maxEntityId = maxEntityId;
+        }
+
+        static Group of(List<Row> rows) {
+            long minCreatedAt = Long.MAX_VALUE;
+            long maxCreatedAt = Long.MIN_VALUE;
+            Set<UUID> tenants = new LinkedHashSet<>();
+            Set<String> entityTypes = new LinkedHashSet<>();
+            UUID minEntityId = null;
+            UUID maxEntityId = null;
+            for (Row row : rows) {
+                long createdAt = micros(row.createdAt());
+                minCreatedAt = Math.min(minCreatedAt, createdAt);
+                maxCreatedAt = Math.max(maxCreatedAt, createdAt);
+                tenants.add(row.tenantId());
+                entityTypes.add(row.entityType());
+                if (minEntityId == null || compare(row.entityId(), minEntityId) < 0) {
+                    minEntityId = row.entityId();
+                }
+                if (maxEntityId == null || compare(row.entityId(), maxEntityId) > 0) {
+                    maxEntityId = row.entityId();
+                }
+            }
+            return new Group(rows.size(), minCreatedAt, maxCreatedAt, tenants, entityTypes, minEntityId, maxEntityId);
+        }
+
+        boolean mayMatch(Filter filter, long fromMicros, long toMicros) {
+            return maxCreatedAt >= fromMicros && minCreatedAt < toMicros
+                    && (filter.tenantId() == null || tenants.contains(filter.tenantId()))
+                    && (filter.entityType() == null || entityTypes.contains(filter.entityType()))
+                    && (filter.entityId() == null || (compare(filter.entityId(), minEntityId) >= 0
+                    && compare(filter.entityId(), maxEntityId) <= 0));
+        }
+
+        void write(DataOutputStream out) throws IOException {
+            out.writeInt(rows);
+            out.writeLong(minCreatedAt);
+            out.writeLong(maxCreatedAt);
+            out.writeInt(tenants.size());
+            for (UUID tenant : tenants) {
+                writeUuid(out, tenant);
+            }
+            out.writeInt(entityTypes.size());
+            for (String entityType : entityTypes) {
+                out.writeUTF(entityType);
+            }
+            writeUuid(out, minEntityId);
+            writeUuid(out, maxEntityId);
+            for (int column = 0; column < COLUMNS; column++) {
+                out.writeLong(offsets[column]);
+                out.writeInt(lengths[column]);
+                out.writeInt(rawLengths[column]);
+            }
+        }
+
+        static Group read(DataInputStream in) throws IOException {
+            int rows = in.readInt();
+            long minCreatedAt = in.readLong();
+            long maxCreatedAt = in.readLong();
+            int tenantCount = in.readInt();
+            Set<UUID> tenants = new LinkedHashSet<>();
+            for (int i = 0; i < tenantCount; i++) {
+                tenants.add(readUuid(in));
+            }
+            int entityTypeCount = in.readInt();
+            Set<String> entityTypes = new LinkedHashSet<>();
+            for (int i = 0; i < entityTypeCount; i++) {
+                entityTypes.add(in.readUTF());
+            }
+            Group group = new Group(rows, minCreatedAt, maxCreatedAt, tenants, entityTypes, readUuid(in), readUuid(in));
+            for (int column = 0; column < COLUMNS; column++) {
+                group.offsets[column] = in.readLong();
+                group.lengths[column] = in.readInt();
+                group.rawLengths[column] = in.readInt();
+            }
+            return group;
+        }
+
+        private static void writeUuid(DataOutputStream out, UUID uuid) throws IOException {
+            out.writeLong(uuid.getMostSignificantBits());
+            out.writeLong(uuid.getLeastSignificantBits());
+        }
+
+        private static UUID readUuid(DataInputStream in) throws IOException {
+            return new UUID(in.readLong(), in.readLong());
+        }
+    }
+
+    private static byte[] encodeUuids(List<Row> rows, Function<Row, UUID> column) {
+        ByteBuffer buffer = ByteBuffer.allocate(rows.size() * 16);
+        for (Row row : rows) {
+            UUID uuid = column.apply(row);
+            buffer.putLong(uuid.getMostSignificantBits()).putLong(uuid.getLeastSignificantBits());
+        }
+        return buffer.array();
+    }
+
+    private static UUID[] decodeUuids(Decoder in, int rows) {
+        UUID[] values = new UUID[rows];
+        for (int i = 0; i < rows; i++) {
+            values[i] = new UUID(in.readLong(), in.readLong());
+        }
+        return values;
+    }
+
+    /**
+     * Distinct values, then a code per row: 0 for null, i for the i-th value.
+     */
+    private static byte[] encodeDictionary(List<Row> rows, Function<Row, String> column) {
+        Map<String, Integer> dictionary = new HashMap<>();
+        List<String> values = new ArrayList<>();
+        int[] codes = new int[rows.size()];
+        for (int i = 0; i < codes.length; i++) {
+            String value = column.apply(rows.get(i));
+            if (value != null) {
+                Integer code = dictionary.get(value);
+                if (code == null) {
+                    values.add(value);
+                    code = values.size();
+                    dictionary.put(value, code);
+                }
+                codes[i] = code;
+            }
+        }
+
+        Encoder out = new Encoder();
+        out.writeVarLong(values.size());
+        for (String value : values) {
+            out.writeString(value);
+        }
+        for (int code : codes) {
+            out.writeVarLong(code);
+        }
+        return out.toByteArray();
+    }
+
+    private static Object[] decodeDictionary(Decoder in, int rows, Function<String, ?> parse) {
+        Object[] dictionary = new Object[(int) in.readVarLong() + 1];
+        for (int i = 1; i < dictionary.length; i++) {
+            dictionary[i] = parse.apply(in.readString());
+        }
+        Object[] values = new Object[rows];
+        for (int i = 0; i < rows; i++) {
+            values[i] = dictionary[(int) in.readVarLong()];
+        }
+        return values;
+    }
+
+    private static byte[] encodeText(List<Row> rows, Function<Row, String> column) {
+        Encoder out = new Encoder();
+        for (Row row : rows) {
+            String value = column.apply(row);
+            if (value == null) {
+                out.writeVarLong(0);
+            } else {
+                byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                out.writeVarLong(bytes.length + 1L);
+                out.write(bytes, 0, bytes.length);
+            }
+        }
+        return out.toByteArray();
+    }
+
+    private static String[] decodeText(Decoder in, int rows) {
+        String[] values = new String[rows];
+        for (int i = 0; i < rows; i++) {
+            long length = in.readVarLong();
+            values[i] = length == 0 ? null : in.readString((int) length - 1);
+        }
+        return values;
+    }
+
+    /**
+     * Microseconds since the epoch, each as the zigzag delta to the previous row.
+     */
+    private static byte[] encodeTimestamps(List<Row> rows) {
+        Encoder out = new Encoder();
+        long previous = 0;
+        for (Row row : rows) {
+            long micros = micros(row.createdAt());
+            long delta = micros - previous;
+            out.writeVarLong((delta << 1) ^ (delta >> 63));
+            previous = micros;
+        }
+        return out.toByteArray();
+    }
+
+    private static long[] decodeTimestamps(Decoder in, int rows) {
+        long[] values = new long[rows];
+        long previous = 0;
+        for (int i = 0; i < rows; i++) {
+            long zigzag = in.readVarLong();
+            previous += (zigzag >>> 1) ^ -(zigzag & 1);
+            values[i] = previous;
+        }
+        return values;
+    }
+
+    static long micros(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC) * 1_000_000L + time.getNano() / 1_000;
+    }
+
+    static LocalDateTime fromMicros(long micros) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000L),
+                (int) Math.floorMod(micros, 1_000_000L) * 1_000, ZoneOffset.UTC);
+    }
+
+    /**
+     * Unsigned byte order, as PostgreSQL sorts uuids.
+     */
+    private static int compare(UUID a, UUID b) {
+        int high = Long.compareUnsigned(a.getMostSignificantBits(), b.getMostSignificantBits());
+        return high != 0 ? high : Long.compareUnsigned(a.getLeastSignificantBits(), b.getLeastSignificantBits());
+    }
+
+    private static byte[] deflate(byte[] raw) {
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(raw.length / 4 + 64);
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                int length = deflater.deflate(buffer);
+                out.write(buffer, 0, length);
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] compressed, int rawLength, Path path) throws IOException {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed);
+            byte[] raw = new byte[rawLength];
+            int length = 0;
+            while (length < rawLength) {
+                int read = inflater.inflate(raw, length, rawLength - length);
+                if (read == 0 && (inflater.finished() || inflater.needsInput())) {
+                    break;
+                }
+                length += read;
+            }
+            if (length != rawLength) {
+                throw new IOException("Corrupt column chunk in " + path);
+            }
+            return raw;
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt column chunk in " + path, e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static final class Encoder extends ByteArrayOutputStream {
+
+        void writeVarLong(long value) {
+            while ((value & ~0x7FL) != 0) {
+                write((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            write((int) value);
+        }
+
+        void writeString(String value) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(bytes.length);
+            write(bytes, 0, bytes.length);
+        }
+    }
+
+    private static final class Decoder {
+
+        private final byte[] bytes;
+        private int position;
+
+        Decoder(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        long readVarLong() {
+            long value = 0;
+            for (int shift = 0; ; shift += 7) {
+                byte b = bytes[position++];
+                value |= (long) (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return value;
+                }
+            }
+        }
+
+        long readLong() {
+            long value = 0;
+            for (int i = 0; i < Long.BYTES; i++) {
+                value = (value << 8) | (bytes[position++] & 0xFF);
+            }
+            return value;
+        }
+
+        String readString() {
+            return readString((int) readVarLong());
+        }
+
+        String readString(int length) {
+            String value = new String(bytes, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+    }
+
+}
@@ -0,0 +1,392 @@
+package io.riverrun.audit;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.riverrun.config.SchedulingConfig;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.PreparedStatement;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Moves closed monthly partitions of {@code audit_logs} out of the database into
+ * {@link AuditArchiveFile}s, and reads them back.
+ * A partition is archived once its month ended {@code after-days} ago, whether it is still attached
+ * or was detached by {@link AuditPartitionManager}: its rows are written to
+ * {@code <directory>/<partition>.audit}, recorded in {@code manifest.json}, and the table is
+ * dropped in the same transaction. Reads prune files through the manifest (tenants, entity types,
+ * months) and row groups through the file statistics, and page on {@code (created_at, id)} like
+ * {@link AuditQueryService}. Archives past the longest retention are deleted; shorter tenant
+ * retentions are applied when reading. Instances sharing a database should share the directory too;
+ * every manifest change is made under the same advisory lock.
+ */
+@Service
+@Slf4j
+public class AuditArchiveService {
+
+    private static final String MANIFEST = "manifest.json";
+    private static final String LOCK_SQL =
+            "SELECT pg_try_advisory_xact_lock(hashtext('" + AuditPartitionManager.TABLE + "_archive'))";
+    private static final int FETCH_SIZE = 1000;
+
+    private static final String SELECT_SQL =
+            "SELECT id, tenant_id, entity_type, entity_id, action, user_id, username, old_values::text, " +
+            "new_values::text, changes::text, ip_address, user_agent, created_at FROM %s " +
+            "ORDER BY tenant_id, entity_type, entity_id, created_at";
+
+    private static final Comparator<AuditArchiveFile.Row> NEWEST_LAST =
+            Comparator.comparing(AuditArchiveFile.Row::createdAt).thenComparing(AuditArchiveFile.Row::id);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final AuditPartitionManager partitionManager;
+    private final boolean enabled;
+    private final Path directory;
+    private final int afterDays;
+    private final int rowGroupSize;
+    private final int defaultLimit;
+    private final int maxLimit;
+    private final Object manifestLock = new Object();
+
+    public AuditArchiveService(JdbcTemplate jdbcTemplate,
+                               PlatformTransactionManager transactionManager,
+                               ObjectMapper objectMapper,
+                               AuditPartitionManager partitionManager,
+                               @Value("${riverrun.audit.archive.enabled:false}") boolean enabled,
+                               @Value("${riverrun.audit.archive.directory:./data/audit-archive}") String directory,
+                               @Value("${riverrun.audit.archive.after-days:90}") int afterDays,
+                               @Value("${riverrun.audit.archive.row-group-size:8192}") int rowGroupSize,
+                               @Value("${riverrun.audit.query.default-limit:50}") int defaultLimit,
+                               @Value("${riverrun.audit.query.max-limit:500}") int maxLimit) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.objectMapper = objectMapper;
+        this.partitionManager = partitionManager;
+        this.enabled = enabled;
+        this.directory = Path.of(directory);
+        this.afterDays = afterDays;
+        this.rowGroupSize = rowGroupSize;
+        this.maxLimit = Math.max(1, maxLimit);
+        this.defaultLimit = Math.min(Math.max(1, defaultLimit), this.maxLimit);
+    }
+
+    @Scheduled(initialDelayString = "${riverrun.audit.archive.check-interval-millis:3600000}",
+            fixedDelayString = "${riverrun.audit.archive.check-interval-millis:3600000}",
+            scheduler = SchedulingConfig.AUDIT_SCHEDULER)
+    public void archive() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            Files.createDirectories(directory);
+            YearMonth lastClosed = YearMonth.from(LocalDate.now().minusDays(afterDays)).minusMonths(1);
+            List<String> tables = jdbcTemplate.queryForList(
+                    "SELECT c.relname FROM pg_class c JOIN pg_namespace n ON n.oid = c.relnamespace " +
+                    "WHERE c.relkind = 'r' AND n.nspname = current_schema() AND c.relname LIKE ? ORDER BY c.relname",
+                    String.class, AuditPartitionManager.PARTITION_PREFIX.replace("_", "\\_") + "%");
+            for (String table : tables) {
+                YearMonth month = AuditPartitionManager.partitionMonth(table);
+                if (month != null && !month.isAfter(lastClosed)) {
+                    transactionTemplate.executeWithoutResult(status -> archivePartition(table, month));
+                }
+            }
+            transactionTemplate.executeWithoutResult(status -> deleteExpired());
+        } catch (Exception e) {
+            log.error("Audit archival failed", e);
+        }
+    }
+
+    /**
+     * One page of a tenant's archived entries, newest first.
+     *
+     * @param cursor {@link AuditQueryService.Page#getNextCursor()} of the previous page, null for the first one
+     * @param limit Page size, null for the default; capped at {@code max-limit}
+     * @throws IllegalArgumentException on a malformed cursor
+     */
+    public AuditQueryService.Page find(UUID tenantId, String entityType, UUID entityId, LocalDateTime from,
+                                       LocalDateTime to, String cursor, Integer limit) {
+        int max = limit != null ? Math.min(Math.max(1, limit), maxLimit) : defaultLimit;
+        AuditQueryService.Cursor after = cursor != null ? AuditQueryService.Cursor.decode(cursor) : null;
+        LocalDateTime oldestKept = partitionManager.oldestKept(tenantId);
+        LocalDateTime since = oldestKept == null || (from != null && from.isAfter(oldestKept)) ? from : oldestKept;
+        // Rows up to and including the cursor's microsecond; ties with it are told apart by id below
+        LocalDateTime until = to;
+        if (after != null && (to == null || after.createdAt().isBefore(to))) {
+            until = after.createdAt().plusNanos(1000);
+        }
+        AuditArchiveFile.Filter filter = new AuditArchiveFile.Filter(tenantId, entityType, entityId, since, until);
+
+        List<ArchiveEntry> candidates = new ArrayList<>();
+        for (ArchiveEntry entry : readManifest()) {
+            if (entry.tenants().contains(tenantId)
+                    && (entityType == null || entry.entityTypes().contains(entityType))
+                    && (since == null || entry.to().isAfter(since))
+                    && (until == null || entry.from().isBefore(until))) {
+                candidates.add(entry);
+            }
+        }
+        candidates.sort(Comparator.comparing(ArchiveEntry::from).reversed());
+
+        // One extra row tells whether there is a next page. Archives cover disjoint months: once a
+        // file fills the page, older files cannot improve it
+        PriorityQueue<AuditArchiveFile.Row> newest = new PriorityQueue<>(NEWEST_LAST);
+        for (ArchiveEntry entry : candidates) {
+            try (AuditArchiveFile.Reader reader = AuditArchiveFile.Reader.open(directory.resolve(entry.file()))) {
+                reader.scan(filter, row -> {
+                    if (after == null || isBefore(row, after)) {
+                        newest.add(row);
+                        if (newest.size() > max + 1) {
+                            newest.poll();
+                        }
+                    }
+                    return true;
+                });
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot read audit archive " + entry.file(), e);
+            }
+            if (newest.size() > max) {
+                break;
+            }
+        }
+
+        List<AuditArchiveFile.Row> rows = new ArrayList<>(newest);
+        rows.sort(NEWEST_LAST.reversed());
+        String nextCursor = null;
+        if (rows.size() > max) {
+            rows = rows.subList(0, max);
+            AuditArchiveFile.Row last = rows.get(max - 1);
+            nextCursor = new AuditQueryService.Cursor(last.createdAt(), last.id()).encode();
+        }
+        List<Map<String, Object>> items = new ArrayList<>(rows.size());
+        for (AuditArchiveFile.Row row : rows) {
+            items.add(toItem(row));
+        }
+        return new AuditQueryService.Page(items, nextCursor);
+    }
+
+    /**
+     * The archived months holding entries of a tenant that are still within its retention. Other
+     * tenants' presence and the files' sizes are not disclosed.
+     */
+    public List<ArchivedPeriod> getManifest(UUID tenantId) {
+        LocalDateTime oldestKept = partitionManager.oldestKept(tenantId);
+        List<ArchivedPeriod> periods = new ArrayList<>();
+        for (ArchiveEntry entry : readManifest()) {
+            if (entry.tenants().contains(tenantId) && (oldestKept == null || entry.to().isAfter(oldestKept))) {
+                periods.add(new ArchivedPeriod(entry.from(), entry.to(), entry.archivedAt()));
+            }
+        }
+        return periods;
+    }
+
+    private void archivePartition(String table, YearMonth month) {
+        Boolean locked = jdbcTemplate.queryForObject(LOCK_SQL, Boolean.class);
+        if (!Boolean.TRUE.equals(locked)
+                || !jdbcTemplate.queryForObject("SELECT to_regclass(?) IS NOT NULL", Boolean.class, table)) {
+            return;
+        }
+        // Rows of a closed month should not change any more; make sure until the table is dropped
+        jdbcTemplate.execute("LOCK TABLE " + table + " IN SHARE MODE");
+
+        String file = table + AuditArchiveFile.EXTENSION;
+        Set<UUID> tenants = new LinkedHashSet<>();
+        Set<String> entityTypes = new LinkedHashSet<>();
+        long[] rows = new long[1];
+        long bytes;
+        try (AuditArchiveFile.Writer writer = new AuditArchiveFile.Writer(directory.resolve(file), rowGroupSize)) {
+            jdbcTemplate.query(connection -> {
+                PreparedStatement statement = connection.prepareStatement(String.format(SELECT_SQL, table));
+                statement.setFetchSize(FETCH_SIZE);
+                return statement;
+            }, (RowCallbackHandler) rs -> {
+                AuditArchiveFile.Row row = new AuditArchiveFile.Row(
+                        rs.getObject("id", UUID.class),
+                        rs.getObject("tenant_id", UUID.class),
+                        rs.getString("entity_type"),
+                        rs.getObject("entity_id", UUID.class),
+                        rs.getString("action"),
+                        rs.getObject("user_id", UUID.class),
+                        rs.getString("username"),
+                        rs.getString("old_values"),
+                        rs.getString("new_values"),
+                        rs.getString("changes"),
+                        rs.getString("ip_address"),
+                        rs.getString("user_agent"),
+                        rs.getTimestamp("created_at").toLocalDateTime());
+                try {
+                    writer.add(row);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                tenants.add(row.tenantId());
+                entityTypes.add(row.entityType());
+                rows[0]++;
+            });
+            if (rows[0] == 0) {
+                jdbcTemplate.execute("DROP TABLE " + table);
+                log.info("Dropped empty audit partition {}", table);
+                return;
+            }
+            bytes = writer.finish();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write audit archive " + file, e);
+        }
+
+        // A failed commit leaves the table in place; archiving it again overwrites file and entry
+        ArchiveEntry entry = new ArchiveEntry(file, table, month.atDay(1).atStartOfDay(),
+                month.plusMonths(1).atDay(1).atStartOfDay(), rows[0], bytes, tenants, entityTypes,
+                LocalDateTime.now());
+        updateManifest(entries -> {
+            entries.removeIf(existing -> existing.file().equals(file));
+            entries.add(entry);
+        });
+        jdbcTemplate.execute("DROP TABLE " + table);
+        log.info("Archived audit partition {} ({} rows, {} bytes)", table, rows[0], bytes);
+    }
+
+    /**
+     * Drop the archives past the longest retention; runs in a transaction to hold the lock.
+     */
+    private void deleteExpired() {
+        int retentionDays = partitionManager.maxRetentionDays();
+        if (retentionDays == AuditPartitionManager.FOREVER
+                || !Boolean.TRUE.equals(jdbcTemplate.queryForObject(LOCK_SQL, Boolean.class))) {
+            return;
+        }
+        LocalDateTime oldestKept = LocalDate.now().minusDays(retentionDays).atStartOfDay();
+        List<ArchiveEntry> expired = new ArrayList<>();
+        updateManifest(entries -> entries.removeIf(entry -> {
+            boolean old = !entry.to().isAfter(oldestKept);
+            if (old) {
+                expired.add(entry);
+            }
+            return old;
+        }));
+        for (ArchiveEntry entry : expired) {
+            try {
+                Files.deleteIfExists(directory.resolve(entry.file()));
+                log.info("Deleted expired audit archive {}", entry.file());
+            } catch (IOException e) {
+                log.warn("Cannot delete audit archive {}", entry.file(), e);
+            }
+        }
+    }
+
+    private List<ArchiveEntry> readManifest() {
+        Path manifest = directory.resolve(MANIFEST);
+        if (!Files.exists(manifest)) {
+            return new ArrayList<>();
+        }
+        try {
+            return objectMapper.readValue(manifest.toFile(), new TypeReference<List<ArchiveEntry>>() { });
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read audit archive manifest", e);
+        }
+    }
+
+    private void updateManifest(Consumer<List<ArchiveEntry>> update) {
+        synchronized (manifestLock) {
+            List<ArchiveEntry> entries = readManifest();
+            update.accept(entries);
+            entries.sort(Comparator.comparing(ArchiveEntry::from));
+            Path manifest = directory.resolve(MANIFEST);
+            Path temp = null;
+            try {
+                temp = Files.createTempFile(directory, MANIFEST, ".tmp");
+                objectMapper.writerWithDefaultPrettyPrinter().writeValue(temp.toFile(), entries);
+                Files.move(temp, manifest, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                deleteQuietly(temp);
+                throw new UncheckedIOException("Cannot write audit archive manifest", e);
+            }
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Cannot delete {}", file, e);
+        }
+    }
+
+    /**
+     * Whether a row sorts below a page cursor, newest first.
+     */
+    private static boolean isBefore(AuditArchiveFile.Row row, AuditQueryService.Cursor cursor) {
+        int byTime = row.createdAt().compareTo(cursor.createdAt());
+        return byTime < 0 || (byTime == 0 && row.id().compareTo(cursor.id()) < 0);
+    }
+
+    private Map<String, Object> toItem(AuditArchiveFile.Row row) {
+        Map<String, Object> item = new LinkedHashMap<>();
+        item.put("id", row.id());
+        item.put("entityType", row.entityType());
+        item.put("entityId", row.entityId());
+        item.put("action", row.action());
+        item.put("userId", row.userId());
+        item.put("username", row.username());
+        item.put("oldValues", readJson(row.oldValues()));
+        item.put("newValues", readJson(row.newValues()));
+        item.put("changes", readJson(row.changes()));
+        item.put("ipAddress", row.ipAddress());
+        item.put("userAgent", row.userAgent());
+        item.put("createdAt", row.createdAt());
+        return item;
+    }
+
+    private JsonNode readJson(String json) {
+        if (json == null) {
+            return null;
+        }
+        try {
+            return objectMapper.readTree(json);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot read archived audit values", e);
+        }
+    }
+
+    /**
+     * One archive file in the manifest; {@code from} and {@code to} bound its entries' created_at.
+     */
+    public record ArchiveEntry(String file, String source, LocalDateTime from, LocalDateTime to, long rows,
+                               long bytes, Set<UUID> tenants, Set<String> entityTypes, LocalDateTime archivedAt) {
+    }
+
+    /**
+     * What a tenant sees of an archive file: the months it covers and when it was written.
+     */
+    public record ArchivedPeriod(LocalDateTime from, LocalDateTime to, LocalDateTime archivedAt) {
+    }
+
+}
@@ -0,0 +1,152 @@
+package io.riverrun.audit;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Structural diff of audited values into JSON-Patch style operations.
+ * Nested maps and lists are walked down to the leaves that changed, so one changed key of a jsonb
+ * blob records that key rather than the whole blob. The result maps the JSON Pointer of each
+ * changed leaf ({@code /customFields/priority}, {@code /tags/2}) to its operation:
+ * {@code {"op": "add", "value": ...}}, {@code {"op": "remove", "old": ...}} or
+ * {@code {"op": "replace", "old": ..., "value": ...}}. Nulls are ordinary values.
+ * Equal values are skipped with {@code equals} before descending, and the result and path buffer
+ * are only created at the first difference, so diffing unchanged values allocates nothing.
+ */
+final class AuditDiff {
+
+    private Map<String, Object> changes;
+    private StringBuilder path;
+
+    private AuditDiff() {
+    }
+
+    /**
+     * The operations turning {@code oldValues} into {@code newValues}.
+     *
+     * @return The operations by path; a shared empty map if nothing changed
+     */
+    static Map<String, Object> diff(Map<String, Object> oldValues, Map<String, Object> newValues) {
+        if (oldValues.equals(newValues)) {
+            return Map.of();
+        }
+        AuditDiff diff = new AuditDiff();
+        diff.path = new StringBuilder(64);
+        diff.diffMaps(oldValues, newValues);
+        return diff.changes != null ? diff.changes : Map.of();
+    }
+
+    private void diffMaps(Map<?, ?> oldMap, Map<?, ?> newMap) {
+        for (Map.Entry<?, ?> entry : newMap.entrySet()) {
+            Object key = entry.getKey();
+            Object newValue = entry.getValue();
+            if (!oldMap.containsKey(key)) {
+                int length = push(key);
+                add(newValue);
+                path.setLength(length);
+            } else {
+                Object oldValue = oldMap.get(key);
+                if (!Objects.equals(oldValue, newValue)) {
+                    int length = push(key);
+                    diffValues(oldValue, newValue);
+                    path.setLength(length);
+                }
+            }
+        }
+        for (Map.Entry<?, ?> entry : oldMap.entrySet()) {
+            if (!newMap.containsKey(entry.getKey())) {
+                int length = push(entry.getKey());
+                remove(entry.getValue());
+                path.setLength(length);
+            }
+        }
+    }
+
+    private void diffLists(List<?> oldList, List<?> newList) {
+        int common = Math.min(oldList.size(), newList.size());
+        for (int i = 0; i < common; i++) {
+            Object oldValue = oldList.get(i);
+            Object newValue = newList.get(i);
+            if (!Objects.equals(oldValue, newValue)) {
+                int length = push(i);
+                diffValues(oldValue, newValue);
+                path.setLength(length);
+            }
+        }
+        for (int i = common; i < newList.size(); i++) {
+            int length = push(i);
+            add(newList.get(i));
+            path.setLength(length);
+        }
+        // Highest index first, so the operations still apply in order
+        for (int i = oldList.size() - 1; i >= common; i--) {
+            int length = push(i);
+            remove(oldList.get(i));
+            path.setLength(length);
+        }
+    }
+
+    /**
+     * Diff two values known to differ.
+     */
+    private void diffValues(Object oldValue, Object newValue) {
+        if (oldValue instanceof Map<?, ?> oldMap && newValue instanceof Map<?, ?> newMap) {
+            diffMaps(oldMap, newMap);
+        } else if (oldValue instanceof List<?> oldList && newValue instanceof List<?> newList) {
+            diffLists(oldList, newList);
+        } else {
+            Map<String, Object> operation = operation("replace");
+            operation.put("old", oldValue);
+            operation.put("value", newValue);
+        }
+    }
+
+    private void add(Object value) {
+        operation("add").put("value", value);
+    }
+
+    private void remove(Object value) {
+        operation("remove").put("old", value);
+    }
+
+    private Map<String, Object> operation(String op) {
+        if (changes == null) {
+            changes = new LinkedHashMap<>();
+        }
+        Map<String, Object> operation = new LinkedHashMap<>(4);
+        operation.put("op", op);
+        changes.put(path.toString(), operation);
+        return operation;
+    }
+
+    /**
+     * Append a JSON Pointer segment to the path; keys are escaped, indexes are not.
+     *
+     * @return The path length before, to restore it with {@code setLength}
+     */
+    private int push(int index) {
+        int length = path.length();
+        path.append('/').append(index);
+        return length;
+    }
+
+    private int push(Object key) {
+        int length = path.length();
+        path.append('/');
+        String name = String.valueOf(key);
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (c == '~') {
+                path.append("~0");
+            } else if (c == '/') {
+                path.append("~1");
+            } else {
+                path.append(c);
+            }
+        }
+        return length;
+    }
+
+}
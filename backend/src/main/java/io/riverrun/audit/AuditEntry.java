@@ -0,0 +1,11 @@
+package io.riverrun.audit;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * One audit_logs row, with its values already serialized so it can be queued and written later.
+ */
+record AuditEntry(UUID id, UUID tenantId, String entityType, UUID entityId, String action, UUID userId,
+                  String username, String oldValues, String newValues, String changes, LocalDateTime createdAt) {
+}
@@ -0,0 +1,284 @@
+package io.riverrun.audit;
+
+import io.riverrun.config.SchedulingConfig;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+
+/**
+ * Maintains the monthly partitions of {@code audit_logs}.
+ * Partitions are created {@code premake-months} ahead; rows that already landed in the default
+ * partition for a month are moved into it. Retention is opt-in: without {@code retention-days}
+ * or a tenant's {@code audit_retention_days} entries are kept forever. Partitions older than the
+ * longest retention are detached and left to {@link AuditArchiveService}, or dropped if
+ * {@code expiry} says so, and tenants with a shorter retention have their older rows deleted in
+ * batches, which only touches the old partitions.
+ * <p>
+ * Every partition change and every delete batch is its own short transaction: creating, attaching
+ * and detaching partitions lock {@code audit_logs} exclusively, so they give up after
+ * {@code lock-timeout-millis} rather than queue audit writes behind a long reader, and are retried
+ * on the next run. (Detaching concurrently is not an option while the table has a default
+ * partition.) Each transaction takes the same advisory lock, so one instance of the cluster does
+ * the work at a time.
+ */
+@Component
+@Slf4j
+public class AuditPartitionManager {
+
+    static final String TABLE = "audit_logs";
+    static final String PARTITION_PREFIX = TABLE + "_p";
+
+    private static final String DEFAULT_PARTITION = TABLE + "_default";
+    private static final DateTimeFormatter SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+
+    private static final String PARTITIONS_SQL =
+            "SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid " +
+            "JOIN pg_class p ON p.oid = i.inhparent WHERE p.relname = ? AND c.relname LIKE ?";
+
+    private static final String ATTACHED_SQL =
+            "SELECT EXISTS (SELECT 1 FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid " +
+            "JOIN pg_class p ON p.oid = i.inhparent WHERE p.relname = ? AND c.relname = ?)";
+
+    private static final String DELETE_BATCH_SQL =
+            "DELETE FROM " + TABLE + " WHERE (id, created_at) IN (SELECT id, created_at FROM " + TABLE +
+            " WHERE tenant_id = ? AND created_at < ? LIMIT ?)";
+
+    /**
+     * Retention of entries that are never deleted.
+     */
+    static final int FOREVER = Integer.MAX_VALUE;
+
+    public enum Expiry {
+        DETACH, DROP
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int premakeMonths;
+    private final int retentionDays;
+    private final Expiry expiry;
+    private final int deleteBatchSize;
+    private final long lockTimeoutMillis;
+    private final boolean archiveEnabled;
+
+    public AuditPartitionManager(JdbcTemplate jdbcTemplate,
+                                 PlatformTransactionManager transactionManager,
+                                 @Value("${riverrun.audit.partitions.premake-months:3}") int premakeMonths,
+                                 @Value("${riverrun.audit.partitions.retention-days:0}") int retentionDays,
+                                 @Value("${riverrun.audit.partitions.expiry:detach}") String expiry,
+                                 @Value("${riverrun.audit.partitions.delete-batch-size:10000}") int deleteBatchSize,
+                                 @Value("${riverrun.audit.partitions.lock-timeout-millis:5000}") long lockTimeoutMillis,
+                                 @Value("${riverrun.audit.archive.enabled:false}") boolean archiveEnabled) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.premakeMonths = Math.max(1, premakeMonths);
+        this.retentionDays = retentionDays > 0 ? retentionDays : FOREVER;
+        this.expiry = Expiry.valueOf(expiry.toUpperCase(Locale.ROOT));
+        this.deleteBatchSize = Math.max(1, deleteBatchSize);
+        this.lockTimeoutMillis = Math.max(1, lockTimeoutMillis);
+        this.archiveEnabled = archiveEnabled;
+    }
+
+    @Scheduled(initialDelay = 0, fixedDelayString = "${riverrun.audit.partitions.check-interval-millis:3600000}",
+            scheduler = SchedulingConfig.AUDIT_SCHEDULER)
+    public void maintain() {
+        try {
+            // Stops as soon as another instance holds the lock
+            YearMonth current = YearMonth.now();
+            for (int i = 0; i <= premakeMonths; i++) {
+                YearMonth month = current.plusMonths(i);
+                if (!step(() -> createPartition(month))) {
+                    return;
+                }
+            }
+            if (expirePartitions()) {
+                applyTenantRetention();
+            }
+        } catch (Exception e) {
+            log.error("Audit partition maintenance failed", e);
+        }
+    }
+
+    /**
+     * Name of the partition holding a month.
+     */
+    static String partitionName(YearMonth month) {
+        return PARTITION_PREFIX + month.format(SUFFIX);
+    }
+
+    /**
+     * Month held by a partition, from its name.
+     *
+     * @return The month, or null if the table is not a monthly partition
+     */
+    static YearMonth partitionMonth(String partition) {
+        if (!partition.startsWith(PARTITION_PREFIX)) {
+            return null;
+        }
+        try {
+            return YearMonth.parse(partition.substring(PARTITION_PREFIX.length()), SUFFIX);
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Days audit entries of a tenant are kept, {@link #FOREVER} without a retention.
+     */
+    int retentionDays(UUID tenantId) {
+        List<Integer> days = jdbcTemplate.query("SELECT audit_retention_days FROM tenants WHERE id = ?",
+                (rs, rowNum) -> (Integer) rs.getObject("audit_retention_days"), tenantId);
+        return !days.isEmpty() && days.get(0) != null ? days.get(0) : retentionDays;
+    }
+
+    /**
+     * Start of the oldest day of a tenant's audit entries still kept, null if they are kept forever.
+     */
+    LocalDateTime oldestKept(UUID tenantId) {
+        int days = retentionDays(tenantId);
+        return days != FOREVER ? LocalDate.now().minusDays(days).atStartOfDay() : null;
+    }
+
+    /**
+     * Days the longest kept audit entries are kept, over all tenants; {@link #FOREVER} as long as
+     * one of them has no retention.
+     */
+    int maxRetentionDays() {
+        if (retentionDays == FOREVER && jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM tenants WHERE audit_retention_days IS NULL)", Boolean.class)) {
+            return FOREVER;
+        }
+        Integer max = jdbcTemplate.queryForObject("SELECT MAX(audit_retention_days) FROM tenants", Integer.class);
+        return max != null ? Math.max(max, retentionDays) : retentionDays;
+    }
+
+    /**
+     * Run one maintenance step in its own transaction, holding the maintenance lock.
+     *
+     * @return false if another instance holds the lock
+     */
+    private boolean step(Runnable work) {
+        return Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+            Boolean locked = jdbcTemplate.queryForObject(
+                    "SELECT pg_try_advisory_xact_lock(hashtext('" + TABLE + "_partitions'))", Boolean.class);
+            if (!Boolean.TRUE.equals(locked)) {
+                return false;
+            }
+            jdbcTemplate.execute("SET LOCAL lock_timeout = " + lockTimeoutMillis);
+            work.run();
+            return true;
+        }));
+    }
+
+    private void createPartition(YearMonth month) {
+        String name = partitionName(month);
+        if (jdbcTemplate.queryForObject("SELECT to_regclass(?) IS NOT NULL", Boolean.class, name)) {
+            return;
+        }
+
+        Timestamp from = Timestamp.valueOf(month.atDay(1).atStartOfDay());
+        Timestamp to = Timestamp.valueOf(month.plusMonths(1).atDay(1).atStartOfDay());
+        String bounds = "FOR VALUES FROM ('" + from + "') TO ('" + to + "')";
+        boolean stray = jdbcTemplate.queryForObject("SELECT EXISTS (SELECT 1 FROM " + DEFAULT_PARTITION +
+                " WHERE created_at >= ? AND created_at < ?)", Boolean.class, from, to);
+
+        if (!stray) {
+            jdbcTemplate.execute("CREATE TABLE " + name + " PARTITION OF " + TABLE + " " + bounds);
+        } else {
+            // A partition cannot be added over rows sitting in the default one: move them first
+            jdbcTemplate.execute("CREATE TABLE " + name + " (LIKE " + TABLE + " INCLUDING DEFAULTS)");
+            int moved = jdbcTemplate.update("WITH moved AS (DELETE FROM " + DEFAULT_PARTITION +
+                    " WHERE created_at >= ? AND created_at < ? RETURNING *) INSERT INTO " + name +
+                    " SELECT * FROM moved", from, to);
+            jdbcTemplate.execute("ALTER TABLE " + TABLE + " ATTACH PARTITION " + name + " " + bounds);
+            log.info("Moved {} audit rows from the default partition into {}", moved, name);
+        }
+        log.info("Created audit partition {}", name);
+    }
+
+    /**
+     * @return false if another instance holds the lock
+     */
+    private boolean expirePartitions() {
+        int maxRetention = maxRetentionDays();
+        if (maxRetention == FOREVER) {
+            return true;
+        }
+        YearMonth oldestKept = YearMonth.from(LocalDate.now().minusDays(maxRetention));
+        List<String> partitions = jdbcTemplate.queryForList(PARTITIONS_SQL, String.class, TABLE,
+                PARTITION_PREFIX + "%");
+        for (String partition : partitions) {
+            YearMonth month = partitionMonth(partition);
+            if (month != null && month.isBefore(oldestKept) && !step(() -> expirePartition(partition))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void expirePartition(String partition) {
+        if (!jdbcTemplate.queryForObject(ATTACHED_SQL, Boolean.class, TABLE, partition)) {
+            return;
+        }
+        if (expiry == Expiry.DROP) {
+            jdbcTemplate.execute("DROP TABLE " + partition);
+        } else {
+            jdbcTemplate.execute("ALTER TABLE " + TABLE + " DETACH PARTITION " + partition);
+        }
+        log.info("Expired audit partition {} ({})", partition, expiry.name().toLowerCase(Locale.ROOT));
+        if (expiry == Expiry.DETACH && !archiveEnabled) {
+            log.warn("Audit archival is disabled: detached partition {} stays in the database until dropped by hand",
+                    partition);
+        }
+    }
+
+    /**
+     * Delete the rows of tenants keeping audit data for less than the partitions do.
+     */
+    private void applyTenantRetention() {
+        int maxRetention = maxRetentionDays();
+        List<TenantRetention> tenants = jdbcTemplate.query(
+                "SELECT id, audit_retention_days FROM tenants WHERE audit_retention_days < ?",
+                (rs, rowNum) -> new TenantRetention(rs.getObject("id", UUID.class), rs.getInt("audit_retention_days")),
+                maxRetention);
+        if (retentionDays < maxRetention) {
+            tenants = new ArrayList<>(tenants);
+            tenants.addAll(jdbcTemplate.query("SELECT id FROM tenants WHERE audit_retention_days IS NULL",
+                    (rs, rowNum) -> new TenantRetention(rs.getObject("id", UUID.class), retentionDays)));
+        }
+
+        for (TenantRetention tenant : tenants) {
+            Timestamp cutoff = Timestamp.valueOf(LocalDate.now().minusDays(tenant.days()).atStartOfDay());
+            long deleted = 0;
+            int[] batch = new int[1];
+            do {
+                if (!step(() -> batch[0] = jdbcTemplate.update(DELETE_BATCH_SQL, tenant.id(), cutoff,
+                        deleteBatchSize))) {
+                    return;
+                }
+                deleted += batch[0];
+            } while (batch[0] == deleteBatchSize);
+            if (deleted > 0) {
+                log.info("Deleted {} audit rows of tenant {} older than {} days", deleted, tenant.id(), tenant.days());
+            }
+        }
+    }
+
+    private record TenantRetention(UUID id, int days) {
+    }
+
+}
@@ -0,0 +1,243 @@
+package io.riverrun.audit;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Pages through a tenant's audit log, newest first.
+ * Pages are keyed on {@code (created_at, id)} rather than offsets: the cursor of a page is its last
+ * row, and the next page starts strictly below it, so every page costs one index range scan however
+ * deep the caller goes, and rows written meanwhile neither shift nor repeat entries. Only the
+ * requested columns are read, and page sizes are capped at {@code max-limit}.
+ */
+@Service
+public class AuditQueryService {
+
+    /**
+     * Columns callers may project, by their name in responses.
+     */
+    private static final Map<String, String> COLUMNS = Map.ofEntries(
+            Map.entry("id", "id"),
+            Map.entry("entityType", "entity_type"),
+            Map.entry("entityId", "entity_id"),
+            Map.entry("action", "action"),
+            Map.entry("userId", "user_id"),
+            Map.entry("username", "username"),
+            Map.entry("oldValues", "old_values"),
+            Map.entry("newValues", "new_values"),
+            Map.entry("changes", "changes"),
+            Map.entry("ipAddress", "ip_address"),
+            Map.entry("userAgent", "user_agent"),
+            Map.entry("createdAt", "created_at"));
+
+    private static final Set<String> JSON_COLUMNS = Set.of("old_values", "new_values", "changes");
+    private static final List<String> DEFAULT_FIELDS = List.of(
+            "id", "entityType", "entityId", "action", "userId", "username", "changes", "createdAt");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final int defaultLimit;
+    private final int maxLimit;
+
+    public AuditQueryService(JdbcTemplate jdbcTemplate,
+                             ObjectMapper objectMapper,
+                             @Value("${riverrun.audit.query.default-limit:50}") int defaultLimit,
+                             @Value("${riverrun.audit.query.max-limit:500}") int maxLimit) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.maxLimit = Math.max(1, maxLimit);
+        this.defaultLimit = Math.min(Math.max(1, defaultLimit), this.maxLimit);
+    }
+
+    /**
+     * One page of audit entries matching a query.
+     *
+     * @param fields Fields to return, null for the defaults; {@code id} and {@code createdAt} are always included
+     * @param cursor {@link Page#getNextCursor()} of the previous page, null for the first one
+     * @param limit Page size, null for the default; capped at {@code max-limit}
+     * @throws IllegalArgumentException on an unknown field or a malformed cursor
+     */
+    public Page find(UUID tenantId, AuditQuery query, Collection<String> fields, String cursor, Integer limit) {
+        Set<String> selected = new LinkedHashSet<>(List.of("id", "createdAt"));
+        for (String field : fields != null && !fields.isEmpty() ? fields : DEFAULT_FIELDS) {
+            if (!COLUMNS.containsKey(field)) {
+                throw new IllegalArgumentException("Unknown field: " + field);
+            }
+            selected.add(field);
+        }
+        int pageSize = limit != null ? Math.min(Math.max(1, limit), maxLimit) : defaultLimit;
+
+        StringBuilder sql = new StringBuilder("SELECT ");
+        int column = 0;
+        for (String field : selected) {
+            sql.append(column++ > 0 ? ", " : "").append(COLUMNS.get(field));
+        }
+        sql.append(" FROM audit_logs WHERE tenant_id = ?");
+        List<Object> args = new ArrayList<>();
+        args.add(tenantId);
+
+        if (query.getEntityType() != null) {
+            sql.append(" AND entity_type = ?");
+            args.add(query.getEntityType());
+        }
+        if (query.getEntityId() != null) {
+            sql.append(" AND entity_id = ?");
+            args.add(query.getEntityId());
+        }
+        if (query.getUserId() != null) {
+            sql.append(" AND user_id = ?");
+            args.add(query.getUserId());
+        }
+        if (query.getUsername() != null) {
+            sql.append(" AND username = ?");
+            args.add(query.getUsername());
+        }
+        if (query.getAction() != null) {
+            sql.append(" AND action = ?");
+            args.add(query.getAction());
+        }
+        // Bounds on created_at also prune the monthly partitions
+        if (query.getFrom() != null) {
+            sql.append(" AND created_at >= ?");
+            args.add(Timestamp.valueOf(query.getFrom()));
+        }
+        if (query.getTo() != null) {
+            sql.append(" AND created_at < ?");
+            args.add(Timestamp.valueOf(query.getTo()));
+        }
+        if (query.getChangedField() != null) {
+            // Changes are keyed by JSON Pointer; entries written before that by top-level field.
+            // jsonb_exists is the ? operator, which JDBC would take for a parameter
+            String field = query.getChangedField();
+            String pointer = field.startsWith("/") ? field : "/" + field.replace("~", "~0").replace("/", "~1");
+            sql.append(" AND (jsonb_exists(changes, ?) OR EXISTS (SELECT 1 FROM jsonb_object_keys(changes) k")
+                    .append(" WHERE k = ? OR k LIKE ?))");
+            args.add(field);
+            args.add(pointer);
+            args.add(pointer.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "/%");
+        }
+        if (cursor != null) {
+            Cursor after = Cursor.decode(cursor);
+            sql.append(" AND (created_at, id) < (?, ?)");
+            args.add(Timestamp.valueOf(after.createdAt()));
+            args.add(after.id());
+        }
+        // One extra row tells whether there is a next page
+        sql.append(" ORDER BY created_at DESC, id DESC LIMIT ?");
+        args.add(pageSize + 1);
+
+        List<Map<String, Object>> items = jdbcTemplate.query(sql.toString(),
+                (rs, rowNum) -> toItem(rs, selected), args.toArray());
+
+        String nextCursor = null;
+        if (items.size() > pageSize) {
+            items = items.subList(0, pageSize);
+            Map<String, Object> last = items.get(pageSize - 1);
+            nextCursor = new Cursor((LocalDateTime) last.get("createdAt"), (UUID) last.get("id")).encode();
+        }
+        return new Page(items, nextCursor);
+    }
+
+    private Map<String, Object> toItem(ResultSet rs, Set<String> fields) throws SQLException {
+        Map<String, Object> item = new LinkedHashMap<>();
+        for (String field : fields) {
+            String column = COLUMNS.get(field);
+            Object value;
+            if (JSON_COLUMNS.contains(column)) {
+                value = readJson(rs.getString(column));
+            } else if (column.equals("created_at")) {
+                value = rs.getTimestamp(column).toLocalDateTime();
+            } else if (column.equals("id") || column.endsWith("_id")) {
+                value = rs.getObject(column, UUID.class);
+            } else {
+                value = rs.getString(column);
+            }
+            item.put(field, value);
+        }
+        return item;
+    }
+
+    private JsonNode readJson(String json) {
+        if (json == null) {
+            return null;
+        }
+        try {
+            return objectMapper.readTree(json);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot read audit values", e);
+        }
+    }
+
+    /**
+     * Filters of an audit query; null fields match everything. {@code from} is inclusive, {@code to}
+     * exclusive. {@code changedField} is a top-level field name or a JSON Pointer and matches entries
+     * that changed it or anything below it.
+     */
+    @Getter
+    @Builder
+    public static class AuditQuery {
+        private final String entityType;
+        private final UUID entityId;
+        private final UUID userId;
+        private final String username;
+        private final String action;
+        private final LocalDateTime from;
+        private final LocalDateTime to;
+        private final String changedField;
+    }
+
+    /**
+     * A page of entries; {@code nextCursor} is null on the last page.
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class Page {
+        private final List<Map<String, Object>> items;
+        private final String nextCursor;
+    }
+
+    /**
+     * Position after the last row of a page; also used by {@link AuditArchiveService}.
+     */
+    record Cursor(LocalDateTime createdAt, UUID id) {
+
+        String encode() {
+            String raw = createdAt + "|" + id;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        static Cursor decode(String cursor) {
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+                int separator = raw.indexOf('|');
+                return new Cursor(LocalDateTime.parse(raw.substring(0, separator)),
+                        UUID.fromString(raw.substring(separator + 1)));
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Invalid cursor", e);
+            }
+        }
+    }
+
+}
@@ -1,7 +1,7 @@
 package io.riverrun.audit;
 
-import io.riverrun.domain.model.AuditLog;
-import io.riverrun.domain.repository.AuditLogRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.riverrun.multitenancy.TenantContext;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -9,19 +9,23 @@ import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 
 /**
- * Service for creating audit log entries.
+ * Service for creating audit log entries; {@link AuditWriter} decides when they reach the database.
  */
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class AuditService {
 
-    private final AuditLogRepository auditLogRepository;
     private final TenantContext tenantContext;
+    private final AuditWriter auditWriter;
+    private final ObjectMapper objectMapper;
 
     public void logCreate(String entityType, UUID entityId, Map<String, Object> newValues) {
         createAuditLog(entityType, entityId, "CREATE", null, newValues);
@@ -41,25 +45,51 @@ public class AuditService {
         createAuditLog(entityType, entityId, "STATE_CHANGE", oldValues, newValues);
     }
 
+    /**
+     * Record many state changes in one go. Tenant and user are passed explicitly
+     * because batch callers typically run outside the request thread.
+     */
+    public void logStateChanges(String entityType, List<StateChange> stateChanges,
+                                UUID tenantId, UUID userId, String username) {
+        if (stateChanges.isEmpty()) {
+            return;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        List<AuditEntry> entries = new ArrayList<>(stateChanges.size());
+        for (StateChange change : stateChanges) {
+            Map<String, Object> oldValues = Map.of("state", change.oldState());
+            Map<String, Object> newValues = Map.of("state", change.newState());
+            entries.add(new AuditEntry(UUID.randomUUID(), tenantId, entityType, change.entityId(), "STATE_CHANGE",
+                    userId, username != null ? username : "system", toJson(oldValues), toJson(newValues),
+                    toJson(calculateChanges(oldValues, newValues)), now));
+        }
+        auditWriter.write(entries);
+        log.debug("Audit logs created: {} STATE_CHANGE entries for {}", stateChanges.size(), entityType);
+    }
+
+    private String toJson(Map<String, Object> values) {
+        if (values == null) {
+            return null;
+        }
+        try {
+            return objectMapper.writeValueAsString(values);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Cannot serialize audit values", e);
+        }
+    }
+
     private void createAuditLog(String entityType, UUID entityId, String action,
                                 Map<String, Object> oldValues, Map<String, Object> newValues) {
         try {
             Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
             String username = authentication != null ? authentication.getName() : "system";
 
-            AuditLog auditLog = AuditLog.builder()
-                    .entityType(entityType)
-                    .entityId(entityId)
-                    .action(action)
-                    .username(username)
-                    .oldValues(oldValues)
-                    .newValues(newValues)
-                    .changes(calculateChanges(oldValues, newValues))
-                    .build();
-
-            auditLog.setTenantId(tenantContext.getCurrentTenant());
+            AuditEntry entry = new AuditEntry(UUID.randomUUID(), tenantContext.getCurrentTenant(), entityType,
+                    entityId, action, null, username, toJson(oldValues), toJson(newValues),
+                    toJson(calculateChanges(oldValues, newValues)), LocalDateTime.now());
 
-            auditLogRepository.save(auditLog);
+            auditWriter.write(List.of(entry));
             log.debug("Audit log created: {} {} for entity {}", action, entityType, entityId);
         } catch (Exception e) {
             log.error("Failed to create audit log", e);
@@ -67,24 +97,20 @@ public class AuditService {
         }
     }
 
-    private Map<String, Object> calculateChanges(Map<String, Object> oldValues, Map<String, Object> newValues) {
+    /**
+     * Changed leaves between two versions as JSON-Patch style operations by path; see {@link AuditDiff}.
+     */
+    Map<String, Object> calculateChanges(Map<String, Object> oldValues, Map<String, Object> newValues) {
         if (oldValues == null || newValues == null) {
             return null;
         }
+        return AuditDiff.diff(oldValues, newValues);
+    }
 
-        return newValues.entrySet().stream()
-                .filter(entry -> {
-                    Object oldValue = oldValues.get(entry.getKey());
-                    Object newValue = entry.getValue();
-                    return !java.util.Objects.equals(oldValue, newValue);
-                })
-                .collect(java.util.stream.Collectors.toMap(
-                        Map.Entry::getKey,
-                        entry -> Map.of(
-                                "old", oldValues.get(entry.getKey()),
-                                "new", entry.getValue()
-                        )
-                ));
+    /**
+     * A single state change to be audited in a batch.
+     */
+    public record StateChange(UUID entityId, String oldState, String newState) {
     }
 
 }
@@ -0,0 +1,228 @@
+package io.riverrun.audit;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Local write-ahead log for queued audit entries, one JSON line per entry in numbered segment files.
+ * Each segment counts its entries not yet written to the database; a segment is deleted once it
+ * is no longer appended to and that count drops to zero. Segments left over by a crash are
+ * replayed on startup, so entries are written at least once. With {@code fsync}, {@link #sync}
+ * forces appended entries to disk, so they also survive an operating system crash; without it they
+ * only survive the process.
+ */
+@Slf4j
+final class AuditWal implements Closeable {
+
+    private static final String PREFIX = "audit-";
+    private static final String SUFFIX = ".wal";
+
+    private final Path directory;
+    private final ObjectMapper objectMapper;
+    private final long segmentBytes;
+    private final boolean fsync;
+    private final Map<Long, Segment> segments = new HashMap<>();
+    private Segment current;
+
+    AuditWal(Path directory, ObjectMapper objectMapper, long segmentBytes, boolean fsync) {
+        this.directory = directory;
+        this.objectMapper = objectMapper;
+        this.segmentBytes = segmentBytes;
+        this.fsync = fsync;
+    }
+
+    /**
+     * Read the entries of segments left over by a previous run. They stay on disk until
+     * {@link #deleteRecovered} is called after they were written.
+     */
+    List<AuditEntry> recover() throws IOException {
+        Files.createDirectories(directory);
+        List<AuditEntry> entries = new ArrayList<>();
+        for (Path file : segmentFiles()) {
+            try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.isBlank()) {
+                        continue;
+                    }
+                    try {
+                        entries.add(objectMapper.readValue(line, AuditEntry.class));
+                    } catch (JsonProcessingException e) {
+                        // A torn last line from a crash mid-append
+                        log.warn("Skipping unreadable audit WAL line in {}", file.getFileName());
+                    }
+                }
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Delete the segments read by {@link #recover}; must run before the first append.
+     */
+    void deleteRecovered() throws IOException {
+        for (Path file : segmentFiles()) {
+            Files.delete(file);
+        }
+    }
+
+    /**
+     * Append an entry to the current segment; it is durable once {@link #sync} returns.
+     *
+     * @return The segment holding the entry, to pass to {@link #written}
+     */
+    synchronized long append(AuditEntry entry) {
+        try {
+            if (current == null || current.size >= segmentBytes) {
+                rotate();
+            }
+            byte[] line = (objectMapper.writeValueAsString(entry) + "\n").getBytes(StandardCharsets.UTF_8);
+            ByteBuffer buffer = ByteBuffer.wrap(line);
+            while (buffer.hasRemaining()) {
+                current.channel.write(buffer);
+            }
+            current.size += line.length;
+            current.pending++;
+            return current.id;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot append to audit WAL", e);
+        }
+    }
+
+    /**
+     * Force the entries appended so far to disk, if {@code fsync} is on. Callers appending several
+     * entries sync once after the last, and concurrent callers share the device flush.
+     */
+    void sync() {
+        if (!fsync) {
+            return;
+        }
+        FileChannel channel;
+        synchronized (this) {
+            if (current == null) {
+                return;
+            }
+            channel = current.channel;
+        }
+        try {
+            channel.force(false);
+        } catch (ClosedChannelException e) {
+            // Deleted meanwhile: everything in it was written to the database
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot sync audit WAL", e);
+        }
+    }
+
+    /**
+     * Record that entries of a segment were written to the database.
+     */
+    synchronized void written(long segmentId, int count) {
+        Segment segment = segments.get(segmentId);
+        if (segment == null) {
+            return;
+        }
+        segment.pending -= count;
+        if (segment.pending <= 0) {
+            if (segment == current) {
+                // Nothing outstanding: start the live segment over instead of rotating
+                truncate(segment);
+            } else {
+                delete(segment);
+            }
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        for (Segment segment : new ArrayList<>(segments.values())) {
+            if (segment.pending <= 0) {
+                delete(segment);
+            } else {
+                try {
+                    segment.channel.close();
+                } catch (IOException e) {
+                    log.warn("Cannot close audit WAL segment {}", segment.path.getFileName(), e);
+                }
+            }
+        }
+        current = null;
+    }
+
+    private void rotate() throws IOException {
+        Segment previous = current;
+        if (previous != null && fsync) {
+            // sync() only forces the live segment
+            previous.channel.force(false);
+        }
+        long id = previous != null ? previous.id + 1 : System.currentTimeMillis();
+        Path path = directory.resolve(PREFIX + id + SUFFIX);
+        current = new Segment(id, path, FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND));
+        segments.put(id, current);
+        if (previous != null && previous.pending <= 0) {
+            delete(previous);
+        }
+    }
+
+    private void truncate(Segment segment) {
+        try {
+            segment.channel.truncate(0);
+            segment.size = 0;
+            segment.pending = 0;
+        } catch (IOException e) {
+            log.warn("Cannot truncate audit WAL segment {}", segment.path.getFileName(), e);
+        }
+    }
+
+    private void delete(Segment segment) {
+        segments.remove(segment.id);
+        try {
+            segment.channel.close();
+            Files.deleteIfExists(segment.path);
+        } catch (IOException e) {
+            log.warn("Cannot delete audit WAL segment {}", segment.path.getFileName(), e);
+        }
+    }
+
+    private List<Path> segmentFiles() throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, PREFIX + "*" + SUFFIX)) {
+            stream.forEach(files::add);
+        }
+        files.sort(null);
+        return files;
+    }
+
+    private static final class Segment {
+        private final long id;
+        private final Path path;
+        private final FileChannel channel;
+        private long size;
+        private long pending;
+
+        private Segment(long id, Path path, FileChannel channel) {
+            this.id = id;
+            this.path = path;
+            this.channel = channel;
+        }
+    }
+
+}
@@ -0,0 +1,353 @@
+package io.riverrun.audit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Writes audit entries to {@code audit_logs}.
+ * With {@code sync} durability entries are inserted in the caller's transaction. Otherwise they
+ * are queued once the caller's transaction commits, in a bounded {@link AuditRingBuffer} drained by
+ * a dedicated thread with batched inserts:
+ * <ul>
+ *   <li>{@code wal}: every entry is first appended to a local {@link AuditWal}, so entries lost
+ *   with the process are replayed on the next start; a full buffer makes callers wait, then
+ *   insert directly.</li>
+ *   <li>{@code fire-and-forget}: entries that find the buffer full are dropped and counted.</li>
+ * </ul>
+ * A batch that cannot be written is retried with growing pauses until it is, holding up the ones
+ * behind it; only at shutdown is it given up (and, with the WAL, left for the next start).
+ * Replayed entries keep their id, so writing one twice inserts it once.
+ * <p>
+ * The WAL is at-least-once from the append on, not from the commit: entries are appended after the
+ * caller's transaction commits, so a crash between the two loses them, and without {@code fsync}
+ * appended entries survive the process but not the machine. Only {@code sync} durability, the
+ * default, has no such window. The WAL directory must be writable and outlive the process, e.g. a
+ * persistent volume per pod rather than the container filesystem.
+ */
+@Component
+@Slf4j
+public class AuditWriter implements SmartInitializingSingleton {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO audit_logs (id, tenant_id, entity_type, entity_id, action, user_id, username, " +
+            "old_values, new_values, changes, created_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?::jsonb, ?::jsonb, ?::jsonb, ?) ON CONFLICT DO NOTHING";
+
+    private static final int MAX_ATTEMPTS = 3;
+    private static final long MAX_BACKOFF_NANOS = TimeUnit.SECONDS.toNanos(30);
+
+    /**
+     * How far an audit entry is guaranteed to be stored when the audited operation returns.
+     */
+    public enum Durability {
+        SYNC, WAL, FIRE_AND_FORGET
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Durability durability;
+    private final AuditRingBuffer<Pending> buffer;
+    private final AuditWal wal;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final long maxBlockNanos;
+
+    private final LongAdder enqueued = new LongAdder();
+    private final LongAdder written = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder blocked = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder retried = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+
+    private volatile boolean running;
+    private Thread writerThread;
+
+    public AuditWriter(JdbcTemplate jdbcTemplate,
+                       ObjectMapper objectMapper,
+                       @Value("${riverrun.audit.writer.durability:sync}") String durability,
+                       @Value("${riverrun.audit.writer.capacity:65536}") int capacity,
+                       @Value("${riverrun.audit.writer.batch-size:500}") int batchSize,
+                       @Value("${riverrun.audit.writer.flush-interval-millis:100}") long flushIntervalMillis,
+                       @Value("${riverrun.audit.writer.max-block-millis:1000}") long maxBlockMillis,
+                       @Value("${riverrun.audit.writer.wal.directory:./data/audit-wal}") String walDirectory,
+                       @Value("${riverrun.audit.writer.wal.segment-bytes:67108864}") long walSegmentBytes,
+                       @Value("${riverrun.audit.writer.wal.fsync:true}") boolean walFsync) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.durability = Durability.valueOf(durability.toUpperCase(Locale.ROOT).replace('-', '_'));
+        this.buffer = new AuditRingBuffer<>(capacity);
+        this.wal = this.durability == Durability.WAL
+                ? new AuditWal(Path.of(walDirectory), objectMapper, walSegmentBytes, walFsync)
+                : null;
+        this.batchSize = Math.max(1, batchSize);
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+        this.maxBlockNanos = TimeUnit.MILLISECONDS.toNanos(maxBlockMillis);
+    }
+
+    /**
+     * Replay the WAL left by a previous run and start the writer thread.
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (durability == Durability.SYNC) {
+            return;
+        }
+        if (wal != null) {
+            try {
+                List<AuditEntry> recovered = wal.recover();
+                for (int start = 0; start < recovered.size(); start += batchSize) {
+                    insert(recovered.subList(start, Math.min(start + batchSize, recovered.size())));
+                }
+                wal.deleteRecovered();
+                if (!recovered.isEmpty()) {
+                    log.info("Replayed {} audit entries from the WAL", recovered.size());
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot recover audit WAL", e);
+            }
+        }
+
+        running = true;
+        writerThread = Thread.ofPlatform().name("audit-writer").daemon().start(this::run);
+    }
+
+    /**
+     * Write entries according to the configured durability.
+     */
+    void write(List<AuditEntry> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        if (durability == Durability.SYNC || !running) {
+            insert(entries);
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // Rolled back operations leave no audit trail, as with inserts in the transaction
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    try {
+                        enqueue(entries);
+                    } catch (Exception e) {
+                        log.error("Failed to queue {} audit entries", entries.size(), e);
+                    }
+                }
+            });
+        } else {
+            enqueue(entries);
+        }
+    }
+
+    public Stats getStats() {
+        return new Stats(durability, buffer.capacity(), buffer.size(), enqueued.sum(), written.sum(),
+                dropped.sum(), blocked.sum(), failed.sum(), retried.sum(), batches.sum());
+    }
+
+    /**
+     * Stop accepting entries and write everything still queued.
+     */
+    @PreDestroy
+    public void shutdown() {
+        if (writerThread == null) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(writerThread);
+        try {
+            writerThread.join(TimeUnit.SECONDS.toMillis(30));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // Entries queued by commits that raced with the writer thread exiting
+        List<Pending> rest = new ArrayList<>();
+        buffer.drainTo(rest, Integer.MAX_VALUE);
+        if (!rest.isEmpty() && !writeBatch(rest)) {
+            giveUp(rest);
+        }
+        if (wal != null) {
+            wal.close();
+        }
+        log.info("Audit writer stopped ({} entries written, {} dropped, {} failed)",
+                written.sum(), dropped.sum(), failed.sum());
+    }
+
+    private void enqueue(List<AuditEntry> entries) {
+        long[] segments = new long[entries.size()];
+        if (wal != null) {
+            for (int i = 0; i < segments.length; i++) {
+                segments[i] = wal.append(entries.get(i));
+            }
+            wal.sync();
+        }
+        for (int i = 0; i < segments.length; i++) {
+            AuditEntry entry = entries.get(i);
+            long segment = wal != null ? segments[i] : -1;
+            Pending pending = new Pending(entry, segment);
+            if (!buffer.offer(pending) && !offerBlocking(pending)) {
+                if (durability == Durability.FIRE_AND_FORGET) {
+                    dropped.increment();
+                } else {
+                    // Still full after waiting: write it ourselves rather than lose it
+                    insert(List.of(entry));
+                    wal.written(segment, 1);
+                }
+                continue;
+            }
+            enqueued.increment();
+        }
+        if (buffer.size() >= batchSize) {
+            LockSupport.unpark(writerThread);
+        }
+    }
+
+    private boolean offerBlocking(Pending pending) {
+        if (durability == Durability.FIRE_AND_FORGET) {
+            return false;
+        }
+        blocked.increment();
+        LockSupport.unpark(writerThread);
+        long deadline = System.nanoTime() + maxBlockNanos;
+        while (System.nanoTime() < deadline) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+            if (buffer.offer(pending)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void run() {
+        List<Pending> batch = new ArrayList<>(batchSize);
+        int failures = 0;
+        while (running || !batch.isEmpty() || buffer.size() > 0) {
+            if (batch.isEmpty() && buffer.drainTo(batch, batchSize) == 0) {
+                if (running) {
+                    LockSupport.parkNanos(flushIntervalNanos);
+                }
+                continue;
+            }
+            if (writeBatch(batch)) {
+                batch.clear();
+                failures = 0;
+                continue;
+            }
+
+            // Keep the batch and try again; when stopping, give up after a few attempts
+            failures++;
+            if (!running && failures >= MAX_ATTEMPTS) {
+                giveUp(batch);
+                batch.clear();
+                failures = 0;
+                continue;
+            }
+            retried.add(batch.size());
+            long deadline = System.nanoTime() + Math.min(MAX_BACKOFF_NANOS,
+                    TimeUnit.MILLISECONDS.toNanos(100L << Math.min(failures, 16)));
+            long remaining;
+            // Producers unpark the thread when the buffer fills up, which must not cut the pause short;
+            // a shutdown does, unless the pause is one of the last few short ones
+            while ((remaining = deadline - System.nanoTime()) > 0 && (running || failures < MAX_ATTEMPTS)) {
+                LockSupport.parkNanos(remaining);
+            }
+        }
+    }
+
+    /**
+     * Insert a batch and release its WAL entries.
+     *
+     * @return false if the insert failed; the entries are then still pending
+     */
+    private boolean writeBatch(List<Pending> batch) {
+        List<AuditEntry> entries = new ArrayList<>(batch.size());
+        for (Pending pending : batch) {
+            entries.add(pending.entry());
+        }
+
+        try {
+            insert(entries);
+        } catch (Exception e) {
+            log.warn("Failed to write {} audit entries", entries.size(), e);
+            return false;
+        }
+
+        if (wal != null) {
+            Map<Long, Integer> bySegment = new HashMap<>();
+            for (Pending pending : batch) {
+                bySegment.merge(pending.segment(), 1, Integer::sum);
+            }
+            bySegment.forEach(wal::written);
+        }
+        return true;
+    }
+
+    private void giveUp(List<Pending> batch) {
+        // Entries stay in the WAL, if any, and are replayed on the next start
+        failed.add(batch.size());
+        log.error("Gave up writing {} audit entries{}", batch.size(),
+                wal != null ? "; they stay in the WAL" : "");
+    }
+
+    private void insert(List<AuditEntry> entries) {
+        jdbcTemplate.batchUpdate(INSERT_SQL, entries, entries.size(), (ps, entry) -> {
+            ps.setObject(1, entry.id());
+            ps.setObject(2, entry.tenantId());
+            ps.setString(3, entry.entityType());
+            ps.setObject(4, entry.entityId());
+            ps.setString(5, entry.action());
+            ps.setObject(6, entry.userId());
+            ps.setString(7, entry.username());
+            ps.setString(8, entry.oldValues());
+            ps.setString(9, entry.newValues());
+            ps.setString(10, entry.changes());
+            ps.setTimestamp(11, Timestamp.valueOf(entry.createdAt()));
+        });
+        written.add(entries.size());
+        batches.increment();
+    }
+
+    private record Pending(AuditEntry entry, long segment) {
+    }
+
+    /**
+     * Writer counters; {@code blocked} counts callers that had to wait for room in the buffer,
+     * {@code retried} entries whose batch failed and was tried again, and {@code failed} entries
+     * given up at shutdown.
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class Stats {
+        private final Durability durability;
+        private final int capacity;
+        private final int queued;
+        private final long enqueued;
+        private final long written;
+        private final long dropped;
+        private final long blocked;
+        private final long failed;
+        private final long retried;
+        private final long batches;
+    }
+
+}
@@ -0,0 +1,40 @@
+package io.riverrun.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+/**
+ * Enables scheduled background jobs.
+ * The latency-sensitive jobs (workflow timers, outbox) run on the default {@code taskScheduler};
+ * long audit maintenance and archival jobs run on their own {@link #AUDIT_SCHEDULER}, so an hour of
+ * archiving cannot hold up a timer tick.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+
+    public static final String AUDIT_SCHEDULER = "auditTaskScheduler";
+
+    @Bean
+    public ThreadPoolTaskScheduler taskScheduler(@Value("${riverrun.scheduling.pool-size:2}") int poolSize) {
+        return scheduler("scheduling-", poolSize);
+    }
+
+    @Bean(AUDIT_SCHEDULER)
+    public ThreadPoolTaskScheduler auditTaskScheduler() {
+        return scheduler("audit-scheduling-", 1);
+    }
+
+    private static ThreadPoolTaskScheduler scheduler(String threadNamePrefix, int poolSize) {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setThreadNamePrefix(threadNamePrefix);
+        scheduler.setPoolSize(Math.max(1, poolSize));
+        scheduler.setWaitForTasksToCompleteOnShutdown(true);
+        scheduler.setAwaitTerminationSeconds(30);
+        return scheduler;
+    }
+
+}
@@ -1,5 +1,6 @@
 package io.riverrun.config;
 
+import io.riverrun.api.controller.CaseController;
 import io.riverrun.security.JwtAuthenticationFilter;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
@@ -78,7 +79,8 @@ public class SecurityConfig {
         configuration.setAllowedOrigins(Arrays.asList("http://localhost:3000", "http://localhost:5173"));
         configuration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "DELETE", "OPTIONS", "PATCH"));
         configuration.setAllowedHeaders(Arrays.asList("*"));
-        configuration.setExposedHeaders(Arrays.asList("Authorization", "X-Tenant-ID"));
+        configuration.setExposedHeaders(Arrays.asList("Authorization", "X-Tenant-ID",
+                CaseController.TRUNCATED_HEADER));
         configuration.setAllowCredentials(true);
         configuration.setMaxAge(3600L);
 
@@ -74,6 +74,10 @@ public class Case extends TenantAware {
     @Column(name = "updated_by")
     private UUID updatedBy;
 
+    @Version
+    @Column(nullable = false)
+    private Long version;
+
     @CreationTimestamp
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
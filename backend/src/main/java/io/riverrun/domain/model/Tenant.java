@@ -36,6 +36,12 @@ public class Tenant {
     @Column(columnDefinition = "TEXT")
     private String description;
 
+    @Column(name = "form_validator", length = 50)
+    private String formValidator;
+
+    @Column(name = "audit_retention_days")
+    private Integer auditRetentionDays;
+
     @CreationTimestamp
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
@@ -4,16 +4,20 @@ import io.riverrun.domain.model.AuditLog;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.UUID;
 
 @Repository
 public interface AuditLogRepository extends JpaRepository<AuditLog, UUID> {
 
-    List<AuditLog> findByEntityTypeAndEntityIdOrderByCreatedAtDesc(String entityType, UUID entityId);
+    // audit_logs is partitioned by created_at: the lower bound keeps queries off older partitions
 
-    List<AuditLog> findByUserIdOrderByCreatedAtDesc(UUID userId);
+    List<AuditLog> findByEntityTypeAndEntityIdAndCreatedAtAfterOrderByCreatedAtDesc(String entityType, UUID entityId,
+                                                                                    LocalDateTime since);
 
-    List<AuditLog> findByEntityTypeOrderByCreatedAtDesc(String entityType);
+    List<AuditLog> findByUserIdAndCreatedAtAfterOrderByCreatedAtDesc(UUID userId, LocalDateTime since);
+
+    List<AuditLog> findByEntityTypeAndCreatedAtAfterOrderByCreatedAtDesc(String entityType, LocalDateTime since);
 
 }
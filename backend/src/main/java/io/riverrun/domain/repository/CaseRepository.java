@@ -2,11 +2,16 @@ package io.riverrun.domain.repository;
 
 import io.riverrun.domain.model.Case;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
 
 @Repository
@@ -19,4 +24,38 @@ public interface CaseRepository extends JpaRepository<Case, UUID> {
     @Query("SELECT c FROM Case c WHERE c.status = :status AND c.assignedTo = :userId")
     List<Case> findByStatusAndAssignedTo(@Param("status") String status, @Param("userId") UUID userId);
 
+    /**
+     * Move a tenant's case to a new status only if it is still in {@code from} at {@code version}.
+     *
+     * @return the number of rows updated; 0 means a concurrent transition won
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Case c SET c.status = :to, c.version = c.version + 1, c.customFields = :customFields, " +
+           "c.resolvedAt = COALESCE(c.resolvedAt, :resolvedAt), c.closedAt = COALESCE(c.closedAt, :closedAt), " +
+           "c.updatedBy = :userId, c.updatedAt = :now " +
+           "WHERE c.id = :id AND c.tenantId = :tenantId AND c.status = :from AND c.version = :version")
+    int transitionStatus(@Param("id") UUID id,
+                         @Param("tenantId") UUID tenantId,
+                         @Param("from") String from,
+                         @Param("to") String to,
+                         @Param("version") Long version,
+                         @Param("customFields") Map<String, Object> customFields,
+                         @Param("resolvedAt") LocalDateTime resolvedAt,
+                         @Param("closedAt") LocalDateTime closedAt,
+                         @Param("userId") UUID userId,
+                         @Param("now") LocalDateTime now);
+
+    /**
+     * Write the custom fields changed by a transition's actions; the row is already held by
+     * {@link #transitionStatus} in the same transaction.
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Case c SET c.customFields = :customFields WHERE c.id = :id AND c.tenantId = :tenantId")
+    int updateCustomFields(@Param("id") UUID id, @Param("tenantId") UUID tenantId,
+                           @Param("customFields") Map<String, Object> customFields);
+
+    List<Case> findByIdInAndTenantId(Collection<UUID> ids, UUID tenantId);
+
+    Optional<Case> findByIdAndTenantId(UUID id, UUID tenantId);
+
 }
@@ -0,0 +1,24 @@
+package io.riverrun.domain.repository;
+
+import io.riverrun.domain.model.WorkflowDefinitionEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface WorkflowDefinitionRepository extends JpaRepository<WorkflowDefinitionEntity, UUID> {
+
+    List<WorkflowDefinitionEntity> findByActive(Boolean active);
+
+    Optional<WorkflowDefinitionEntity> findFirstByWorkflowIdAndActiveTrueOrderByCreatedAtDesc(String workflowId);
+
+    Optional<WorkflowDefinitionEntity> findFirstByTenantIdAndWorkflowIdAndActiveTrueOrderByCreatedAtDesc(
+            UUID tenantId, String workflowId);
+
+    Optional<WorkflowDefinitionEntity> findFirstByTenantIdAndWorkflowIdAndVersionOrderByCreatedAtDesc(
+            UUID tenantId, String workflowId, String version);
+
+}
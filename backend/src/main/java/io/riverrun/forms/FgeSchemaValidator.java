@@ -0,0 +1,57 @@
+package io.riverrun.forms;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.github.fge.jsonschema.core.exceptions.ProcessingException;
+import com.github.fge.jsonschema.core.report.ProcessingMessage;
+import com.github.fge.jsonschema.core.report.ProcessingReport;
+import com.github.fge.jsonschema.main.JsonSchema;
+import com.github.fge.jsonschema.main.JsonSchemaFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The original draft-04 engine (java-json-tools), kept as a fallback for forms relying on its behavior.
+ */
+@Component
+public class FgeSchemaValidator implements SchemaValidator {
+
+    public static final String NAME = "fge";
+
+    private final JsonSchemaFactory schemaFactory = JsonSchemaFactory.byDefault();
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public CompiledSchema compile(JsonNode schema) {
+        JsonSchema jsonSchema;
+        try {
+            jsonSchema = schemaFactory.getJsonSchema(schema);
+        } catch (ProcessingException e) {
+            throw new IllegalArgumentException(e.getMessage(), e);
+        }
+
+        return (data, maxErrors) -> {
+            ProcessingReport report;
+            try {
+                // With a limit there is no use descending into containers that already failed
+                report = jsonSchema.validate(data, maxErrors == 0);
+            } catch (ProcessingException e) {
+                throw new IllegalArgumentException(e.getMessage(), e);
+            }
+            if (report.isSuccess()) {
+                return List.of();
+            }
+            List<String> errors = new ArrayList<>();
+            for (ProcessingMessage message : report) {
+                errors.add(message.getMessage());
+            }
+            return errors;
+        };
+    }
+
+}
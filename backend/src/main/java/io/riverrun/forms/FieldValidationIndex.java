@@ -0,0 +1,340 @@
+package io.riverrun.forms;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-field slices of a form schema, for validating one changed field at a time.
+ * Every property path ({@code address.city}, {@code lines.0.sku}) maps to a reduced schema holding
+ * the field's own sub-schema, the path down to it, and the rules of the enclosing objects that
+ * mention it: {@code required}, {@code dependencies} (and the 2019-09 {@code dependentRequired} /
+ * {@code dependentSchemas}) and {@code if}/{@code then}/{@code else}. Slices are compiled on first use.
+ * Local {@code $ref}s are followed while walking. Fields inside or below {@code allOf}, {@code anyOf},
+ * {@code oneOf} or {@code not}, and slices that would keep a {@code $ref} outside the definitions,
+ * cannot be cut out of the schema: those fields are validated against the whole schema instead.
+ */
+final class FieldValidationIndex {
+
+    private static final String ITEM = "*";
+    private static final String WHOLE = "";
+    private static final List<String> DEPENDENCY_KEYWORDS = List.of(
+            "dependencies", "dependentRequired", "dependentSchemas");
+    private static final List<String> ROOT_KEYWORDS = List.of("$schema", "definitions", "$defs");
+    private static final List<String> COMPOSITE_KEYWORDS = List.of("allOf", "anyOf", "oneOf", "not");
+    private static final List<String> SHARED_REFS = List.of("#/definitions/", "#/$defs/");
+    private static final int MAX_REF_HOPS = 32;
+
+    private static final JsonNodeFactory NODES = JsonNodeFactory.instance;
+
+    private final SchemaValidator validator;
+    private final JsonNode schema;
+    private final Map<String, JsonNode> slices;
+    private final Map<String, SchemaValidator.CompiledSchema> compiled = new ConcurrentHashMap<>();
+
+    private FieldValidationIndex(SchemaValidator validator, JsonNode schema, Map<String, JsonNode> slices) {
+        this.validator = validator;
+        this.schema = schema;
+        this.slices = slices;
+    }
+
+    static FieldValidationIndex build(SchemaValidator validator, JsonNode schema) {
+        Map<String, JsonNode> slices = new HashMap<>();
+        JsonNode resolved = resolve(schema, schema);
+        if (resolved != null) {
+            Set<JsonNode> visiting = Collections.newSetFromMap(new IdentityHashMap<>());
+            visiting.add(resolved);
+            walk(schema, resolved, new ArrayList<>(), slices, visiting, isComposite(resolved));
+        }
+        return new FieldValidationIndex(validator, schema, slices);
+    }
+
+    /**
+     * The compiled slice of a field, or the whole schema for fields that have no slice.
+     *
+     * @return The schema, or null if the schema declares no such field
+     * @throws IllegalArgumentException if the schema does not compile
+     */
+    SchemaValidator.CompiledSchema schemaFor(String path) {
+        String key = normalize(path);
+        JsonNode slice = slices.get(key);
+        if (slice == null) {
+            return null;
+        }
+        return compiled.computeIfAbsent(slice == schema ? WHOLE : key, k -> validator.compile(slice));
+    }
+
+    /**
+     * The instance to validate against {@link #schemaFor} a field: {@code data} (the other values the
+     * dependent rules may need, possibly null) with {@code value} set at {@code path}, or removed
+     * from it if {@code value} is null. Against a slice, array items are validated on their own, as
+     * a one-element array; against the whole schema, they stay in place.
+     */
+    JsonNode instanceFor(String path, JsonNode value, JsonNode data) {
+        return instance(path, value, data, slices.get(normalize(path)) != schema);
+    }
+
+    static JsonNode instance(String path, JsonNode value, JsonNode data, boolean sliced) {
+        String[] segments = path.split("\\.");
+        JsonNode root = data != null && data.isObject() ? data.deepCopy() : NODES.objectNode();
+        JsonNode parent = root;
+        for (int i = 0; i < segments.length; i++) {
+            boolean last = i == segments.length - 1;
+            JsonNode child = last ? value : childContainer(parent, segments[i], segments[i + 1]);
+            if (parent instanceof ArrayNode array) {
+                int index = Integer.parseInt(segments[i]);
+                if (sliced) {
+                    array.removeAll();
+                    index = 0;
+                }
+                if (child == null) {
+                    if (index < array.size()) {
+                        array.remove(index);
+                    }
+                } else if (index < array.size()) {
+                    array.set(index, child);
+                } else {
+                    array.add(child);
+                }
+            } else if (child == null) {
+                ((ObjectNode) parent).remove(segments[i]);
+            } else {
+                ((ObjectNode) parent).set(segments[i], child);
+            }
+            parent = child;
+        }
+        return root;
+    }
+
+    private static JsonNode childContainer(JsonNode parent, String segment, String next) {
+        JsonNode existing = parent.isArray() ? parent.path(Integer.parseInt(segment)) : parent.get(segment);
+        boolean array = isIndex(next);
+        if (existing != null && (array ? existing.isArray() : existing.isObject())) {
+            return existing;
+        }
+        return array ? NODES.arrayNode() : NODES.objectNode();
+    }
+
+    /**
+     * Index the fields below a schema; {@code whole} once a composite keyword has been passed.
+     */
+    private static void walk(JsonNode root, JsonNode schema, List<Level> ancestors, Map<String, JsonNode> slices,
+                             Set<JsonNode> visiting, boolean whole) {
+        JsonNode properties = schema.path("properties");
+        Iterator<Map.Entry<String, JsonNode>> fields = properties.fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            descend(root, schema, field.getKey(), field.getValue(), ancestors, slices, visiting, whole);
+        }
+        JsonNode items = schema.get("items");
+        if (items != null && items.isObject()) {
+            descend(root, schema, ITEM, items, ancestors, slices, visiting, whole);
+        }
+
+        // Fields declared in branches exist, but only the whole schema knows how the branches combine
+        for (String keyword : COMPOSITE_KEYWORDS) {
+            JsonNode node = schema.get(keyword);
+            if (node == null) {
+                continue;
+            }
+            Iterable<JsonNode> branches = node.isArray() ? node : List.of(node);
+            for (JsonNode branch : branches) {
+                JsonNode resolved = resolve(root, branch);
+                if (resolved != null && visiting.add(resolved)) {
+                    walk(root, resolved, ancestors, slices, visiting, true);
+                    visiting.remove(resolved);
+                }
+            }
+        }
+    }
+
+    private static void descend(JsonNode root, JsonNode parent, String segment, JsonNode child, List<Level> ancestors,
+                                Map<String, JsonNode> slices, Set<JsonNode> visiting, boolean whole) {
+        ancestors.add(new Level(parent, segment));
+        JsonNode resolved = resolve(root, child);
+        boolean composite = whole || resolved == null || isComposite(resolved);
+        JsonNode slice = composite ? null : slice(root, resolved, ancestors);
+        slices.merge(path(ancestors), slice != null ? slice : root,
+                (existing, added) -> existing == root || added == root ? root : existing);
+        // A schema referring back to itself is walked once
+        if (resolved != null && visiting.add(resolved)) {
+            walk(root, resolved, ancestors, slices, visiting, composite);
+            visiting.remove(resolved);
+        }
+        ancestors.remove(ancestors.size() - 1);
+    }
+
+    /**
+     * Follow a schema's local {@code $ref}s to the schema they point at.
+     *
+     * @return The schema, or null if a reference is remote, dangling or circular
+     */
+    private static JsonNode resolve(JsonNode root, JsonNode schema) {
+        for (int hops = 0; hops < MAX_REF_HOPS; hops++) {
+            JsonNode ref = schema.get("$ref");
+            if (ref == null) {
+                return schema.isObject() ? schema : null;
+            }
+            if (!ref.isTextual() || !ref.asText().startsWith("#")) {
+                return null;
+            }
+            schema = root.at(ref.asText().substring(1));
+            if (schema.isMissingNode()) {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    private static boolean isComposite(JsonNode schema) {
+        for (String keyword : COMPOSITE_KEYWORDS) {
+            if (schema.has(keyword)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Wrap a field's sub-schema in the enclosing levels, innermost first.
+     *
+     * @return The slice, or null if it keeps a reference only the whole schema can resolve
+     */
+    private static JsonNode slice(JsonNode root, JsonNode field, List<Level> ancestors) {
+        JsonNode inner = field;
+        for (int i = ancestors.size() - 1; i >= 0; i--) {
+            Level level = ancestors.get(i);
+            ObjectNode wrapper = NODES.objectNode();
+            if (level.schema().has("type")) {
+                wrapper.set("type", level.schema().get("type"));
+            }
+            if (ITEM.equals(level.segment())) {
+                wrapper.set("items", inner);
+            } else {
+                wrapper.putObject("properties").set(level.segment(), inner);
+                addDependentRules(level.schema(), level.segment(), wrapper);
+            }
+            inner = wrapper;
+        }
+
+        if (hasLocalRef(inner)) {
+            return null;
+        }
+        ObjectNode slice = (ObjectNode) inner;
+        for (String keyword : ROOT_KEYWORDS) {
+            if (root.has(keyword)) {
+                slice.set(keyword, root.get(keyword));
+            }
+        }
+        return slice;
+    }
+
+    private static void addDependentRules(JsonNode schema, String property, ObjectNode into) {
+        if (contains(schema.get("required"), property)) {
+            into.putArray("required").add(property);
+        }
+
+        for (String keyword : DEPENDENCY_KEYWORDS) {
+            JsonNode dependencies = schema.get(keyword);
+            if (dependencies == null || !dependencies.isObject()) {
+                continue;
+            }
+            Iterator<Map.Entry<String, JsonNode>> entries = dependencies.fields();
+            while (entries.hasNext()) {
+                Map.Entry<String, JsonNode> entry = entries.next();
+                if (entry.getKey().equals(property) || contains(entry.getValue(), property)
+                        || mentions(entry.getValue(), property)) {
+                    ObjectNode relevant = into.has(keyword) ? (ObjectNode) into.get(keyword) : into.putObject(keyword);
+                    relevant.set(entry.getKey(), entry.getValue());
+                }
+            }
+        }
+
+        // if/then/else only make sense together
+        if (schema.has("if") && (mentions(schema.get("if"), property) || mentions(schema.get("then"), property)
+                || mentions(schema.get("else"), property))) {
+            for (String keyword : List.of("if", "then", "else")) {
+                if (schema.has(keyword)) {
+                    into.set(keyword, schema.get(keyword));
+                }
+            }
+        }
+    }
+
+    /**
+     * Whether a schema part refers into the schema elsewhere than its definitions, which a slice lacks.
+     */
+    private static boolean hasLocalRef(JsonNode node) {
+        JsonNode ref = node.get("$ref");
+        if (ref != null && (!ref.isTextual() || (ref.asText().startsWith("#")
+                && SHARED_REFS.stream().noneMatch(ref.asText()::startsWith)))) {
+            return true;
+        }
+        for (JsonNode child : node) {
+            if (child.isContainerNode() && hasLocalRef(child)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Whether a schema constrains a property through its own {@code properties} or {@code required}.
+     */
+    private static boolean mentions(JsonNode schema, String property) {
+        return schema != null && schema.isObject()
+                && (schema.path("properties").has(property) || contains(schema.get("required"), property));
+    }
+
+    private static boolean contains(JsonNode names, String property) {
+        if (names == null || !names.isArray()) {
+            return false;
+        }
+        for (JsonNode name : names) {
+            if (property.equals(name.asText())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String path(List<Level> ancestors) {
+        StringBuilder path = new StringBuilder();
+        for (Level level : ancestors) {
+            if (!path.isEmpty()) {
+                path.append('.');
+            }
+            path.append(level.segment());
+        }
+        return path.toString();
+    }
+
+    private static String normalize(String path) {
+        String[] segments = path.split("\\.");
+        for (int i = 0; i < segments.length; i++) {
+            if (isIndex(segments[i])) {
+                segments[i] = ITEM;
+            }
+        }
+        return String.join(".", segments);
+    }
+
+    private static boolean isIndex(String segment) {
+        return !segment.isEmpty() && segment.chars().allMatch(Character::isDigit);
+    }
+
+    private record Level(JsonNode schema, String segment) {
+    }
+
+}
@@ -0,0 +1,283 @@
+package io.riverrun.forms;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Specialized check for the flat form schemas most forms use: an object whose properties are
+ * scalars constrained by type, enum, pattern, length and min/max, plus required properties.
+ * The plan is only trusted to accept: it is conservative, so whatever it accepts every schema
+ * engine accepts, and anything else goes to the engine, which produces the actual messages.
+ * Patterns are matched with {@link java.util.regex}, so schemas using them only get a plan for
+ * engines with the same semantics, and only without end anchors or inline flags: engines rewrite
+ * a trailing {@code $} to mean the end of the input, where Java also allows a final line break.
+ * Accepting a valid payload allocates nothing.
+ */
+final class FlatSchemaPlan {
+
+    private static final Set<String> ROOT_KEYWORDS = Set.of(
+            "$schema", "$id", "id", "title", "description", "type", "properties", "required",
+            "additionalProperties");
+
+    private static final Set<String> FIELD_KEYWORDS = Set.of(
+            "title", "description", "default", "type", "enum", "pattern", "minLength", "maxLength",
+            "minimum", "maximum");
+
+    // End anchors and inline flags (multiline, dotall, ...) whose meaning differs between engines
+    private static final Pattern ENGINE_SPECIFIC_PATTERN = Pattern.compile("\\$|\\\\[zZ]|\\(\\?[a-zA-Z-]+[:)]");
+
+    private final FieldCheck[] checks;
+    private final boolean closed;
+
+    private FlatSchemaPlan(FieldCheck[] checks, boolean closed) {
+        this.checks = checks;
+        this.closed = closed;
+    }
+
+    /**
+     * Compile a plan for a schema.
+     *
+     * @param javaPatterns Whether the engine matches patterns with {@link java.util.regex}
+     * @return The plan, or null if the schema is outside the supported subset
+     */
+    static FlatSchemaPlan compile(JsonNode schema, boolean javaPatterns) {
+        if (!schema.isObject() || !keywordsWithin(schema, ROOT_KEYWORDS)
+                || !"object".equals(schema.path("type").asText(null))) {
+            return null;
+        }
+
+        JsonNode additional = schema.get("additionalProperties");
+        if (additional != null && !additional.isBoolean()) {
+            return null;
+        }
+        JsonNode properties = schema.path("properties");
+        if (!properties.isObject() && !properties.isMissingNode()) {
+            return null;
+        }
+
+        Set<String> required = new HashSet<>();
+        JsonNode requiredNode = schema.get("required");
+        if (requiredNode != null) {
+            if (!requiredNode.isArray()) {
+                return null;
+            }
+            for (JsonNode name : requiredNode) {
+                if (!name.isTextual()) {
+                    return null;
+                }
+                required.add(name.asText());
+            }
+        }
+
+        List<FieldCheck> checks = new ArrayList<>();
+        Iterator<Map.Entry<String, JsonNode>> fields = properties.fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            FieldCheck check = FieldCheck.compile(field.getKey(), field.getValue(), required.remove(field.getKey()),
+                    javaPatterns);
+            if (check == null) {
+                return null;
+            }
+            checks.add(check);
+        }
+        boolean closed = additional != null && !additional.asBoolean();
+        if (closed && !required.isEmpty()) {
+            return null;
+        }
+        // Required but undeclared properties only need to be present
+        for (String name : required) {
+            checks.add(new FieldCheck(name, true, null, null, null, -1, -1, null, null));
+        }
+
+        return new FlatSchemaPlan(checks.toArray(FieldCheck[]::new), closed);
+    }
+
+    /**
+     * Whether the data is certainly valid; false means the full engine has to decide.
+     */
+    boolean accepts(JsonNode data) {
+        if (!data.isObject()) {
+            return false;
+        }
+        int declared = 0;
+        for (FieldCheck check : checks) {
+            JsonNode value = data.get(check.name);
+            if (value == null) {
+                if (check.required) {
+                    return false;
+                }
+                continue;
+            }
+            declared++;
+            if (!check.accepts(value)) {
+                return false;
+            }
+        }
+        return !closed || declared == data.size();
+    }
+
+    private static boolean keywordsWithin(JsonNode node, Set<String> allowed) {
+        Iterator<String> names = node.fieldNames();
+        while (names.hasNext()) {
+            if (!allowed.contains(names.next())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private enum Type {
+        STRING, INTEGER, NUMBER, BOOLEAN
+    }
+
+    private static final class FieldCheck {
+        private final String name;
+        private final boolean required;
+        private final Type type;
+        private final Set<JsonNode> enumValues;
+        private final ThreadLocal<Matcher> matcher;
+        private final int minLength;
+        private final int maxLength;
+        private final Double minimum;
+        private final Double maximum;
+
+        private FieldCheck(String name, boolean required, Type type, Set<JsonNode> enumValues, Pattern pattern,
+                           int minLength, int maxLength, Double minimum, Double maximum) {
+            this.name = name;
+            this.required = required;
+            this.type = type;
+            this.enumValues = enumValues;
+            this.matcher = pattern != null ? ThreadLocal.withInitial(() -> pattern.matcher("")) : null;
+            this.minLength = minLength;
+            this.maxLength = maxLength;
+            this.minimum = minimum;
+            this.maximum = maximum;
+        }
+
+        static FieldCheck compile(String name, JsonNode schema, boolean required, boolean javaPatterns) {
+            if (!schema.isObject() || !keywordsWithin(schema, FIELD_KEYWORDS)) {
+                return null;
+            }
+
+            Type type = null;
+            JsonNode typeNode = schema.get("type");
+            if (typeNode != null) {
+                if (!typeNode.isTextual()) {
+                    return null;
+                }
+                switch (typeNode.asText()) {
+                    case "string" -> type = Type.STRING;
+                    case "integer" -> type = Type.INTEGER;
+                    case "number" -> type = Type.NUMBER;
+                    case "boolean" -> type = Type.BOOLEAN;
+                    default -> {
+                        return null;
+                    }
+                }
+            }
+
+            Set<JsonNode> enumValues = null;
+            JsonNode enumNode = schema.get("enum");
+            if (enumNode != null) {
+                if (!enumNode.isArray()) {
+                    return null;
+                }
+                enumValues = new HashSet<>();
+                for (JsonNode value : enumNode) {
+                    if (!value.isValueNode()) {
+                        return null;
+                    }
+                    enumValues.add(value);
+                }
+            }
+
+            Pattern pattern = null;
+            JsonNode patternNode = schema.get("pattern");
+            if (patternNode != null) {
+                if (!patternNode.isTextual() || !javaPatterns
+                        || ENGINE_SPECIFIC_PATTERN.matcher(patternNode.asText()).find()) {
+                    return null;
+                }
+                try {
+                    pattern = Pattern.compile(patternNode.asText());
+                } catch (PatternSyntaxException e) {
+                    return null;
+                }
+            }
+
+            JsonNode minLength = schema.get("minLength");
+            JsonNode maxLength = schema.get("maxLength");
+            JsonNode minimum = schema.get("minimum");
+            JsonNode maximum = schema.get("maximum");
+            if ((minLength != null && !minLength.canConvertToInt())
+                    || (maxLength != null && !maxLength.canConvertToInt())
+                    || (minimum != null && !isExactDouble(minimum))
+                    || (maximum != null && !isExactDouble(maximum))) {
+                return null;
+            }
+
+            return new FieldCheck(name, required, type, enumValues, pattern,
+                    minLength != null ? minLength.intValue() : -1,
+                    maxLength != null ? maxLength.intValue() : -1,
+                    minimum != null ? minimum.doubleValue() : null,
+                    maximum != null ? maximum.doubleValue() : null);
+        }
+
+        boolean accepts(JsonNode value) {
+            if (type != null && !hasType(value)) {
+                return false;
+            }
+            // Exact node equality only: 1 and 1.0 are equal to the engines but not here
+            if (enumValues != null && !enumValues.contains(value)) {
+                return false;
+            }
+            if (value.isTextual()) {
+                String text = value.textValue();
+                if (minLength >= 0 || maxLength >= 0) {
+                    int length = text.codePointCount(0, text.length());
+                    if ((minLength >= 0 && length < minLength) || (maxLength >= 0 && length > maxLength)) {
+                        return false;
+                    }
+                }
+                if (matcher != null && !matcher.get().reset(text).find()) {
+                    return false;
+                }
+            } else if (value.isNumber() && (minimum != null || maximum != null)) {
+                // Doubles lose precision beyond 2^53; leave such values to the engine
+                if (value.isBigInteger() || value.isBigDecimal()
+                        || (value.canConvertToLong() && Math.abs(value.longValue()) > (1L << 53))) {
+                    return false;
+                }
+                double number = value.doubleValue();
+                if ((minimum != null && number < minimum) || (maximum != null && number > maximum)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static boolean isExactDouble(JsonNode bound) {
+            return bound.isInt() || bound.isDouble()
+                    || (bound.isLong() && Math.abs(bound.longValue()) <= (1L << 53));
+        }
+
+        private boolean hasType(JsonNode value) {
+            return switch (type) {
+                case STRING -> value.isTextual();
+                case INTEGER -> value.isInt() || value.isLong();
+                case NUMBER -> value.isInt() || value.isLong() || value.isDouble() || value.isFloat();
+                case BOOLEAN -> value.isBoolean();
+            };
+        }
+    }
+
+}
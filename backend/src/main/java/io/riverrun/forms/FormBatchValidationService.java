@@ -0,0 +1,199 @@
+package io.riverrun.forms;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.riverrun.domain.model.FormSchema;
+import jakarta.annotation.PreDestroy;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/**
+ * Validates many submissions of one form in a single pass over the request body.
+ * The schema is compiled once; records are validated on a pool sized to the cores, at most
+ * {@code window} at a time, and handed back in input order as soon as the oldest ones are done,
+ * so memory stays bounded however long the input is.
+ */
+@Service
+@Slf4j
+public class FormBatchValidationService {
+
+    private final FormValidationService formValidationService;
+    private final ObjectMapper objectMapper;
+    private final ExecutorService executor;
+    private final int window;
+
+    public FormBatchValidationService(FormValidationService formValidationService,
+                                      ObjectMapper objectMapper,
+                                      @Value("${riverrun.forms.batch.parallelism:0}") int parallelism,
+                                      @Value("${riverrun.forms.batch.window:256}") int window) {
+        this.formValidationService = formValidationService;
+        this.objectMapper = objectMapper;
+        this.executor = Executors.newFixedThreadPool(
+                parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+        this.window = Math.max(1, window);
+    }
+
+    /**
+     * Validate every record of {@code input} against a stored form schema.
+     *
+     * @param formSchema The stored form schema
+     * @param input Newline-delimited JSON records, or one JSON array of records
+     * @param ndjson Whether the input is newline-delimited
+     * @param sink Receives per-record results in input order, a run at a time
+     */
+    public void validate(FormSchema formSchema, InputStream input, boolean ndjson,
+                         Consumer<List<ItemResult>> sink) throws IOException {
+        SchemaValidator.CompiledSchema compiled;
+        String schemaError = null;
+        try {
+            compiled = formValidationService.compiledSchema(formSchema);
+        } catch (IllegalArgumentException e) {
+            log.error("Error compiling form schema {}", formSchema.getId(), e);
+            compiled = null;
+            schemaError = "Schema validation error: " + e.getMessage();
+        }
+
+        Deque<Future<ItemResult>> pending = new ArrayDeque<>();
+        try {
+            if (ndjson) {
+                readLines(input, compiled, schemaError, pending, sink);
+            } else {
+                readArray(input, compiled, schemaError, pending, sink);
+            }
+            drain(pending, 0, sink);
+        } finally {
+            pending.forEach(future -> future.cancel(true));
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private void readLines(InputStream input, SchemaValidator.CompiledSchema compiled, String schemaError,
+                           Deque<Future<ItemResult>> pending, Consumer<List<ItemResult>> sink) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        int index = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isBlank()) {
+                continue;
+            }
+            // Lines are parsed on the workers too; a malformed one only fails its own record
+            int recordIndex = index++;
+            String record = line;
+            submit(() -> {
+                JsonNode data;
+                try {
+                    data = objectMapper.readTree(record);
+                } catch (JsonProcessingException e) {
+                    return malformed(recordIndex, e);
+                }
+                return validate(recordIndex, compiled, schemaError, data);
+            }, pending, sink);
+        }
+    }
+
+    private void readArray(InputStream input, SchemaValidator.CompiledSchema compiled, String schemaError,
+                           Deque<Future<ItemResult>> pending, Consumer<List<ItemResult>> sink) throws IOException {
+        int index = 0;
+        try (JsonParser parser = objectMapper.getFactory().createParser(input)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                sink.accept(List.of(new ItemResult(0, false, List.of("Expected a JSON array of records"))));
+                return;
+            }
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                JsonNode data = parser.readValueAsTree();
+                int recordIndex = index++;
+                submit(() -> validate(recordIndex, compiled, schemaError, data), pending, sink);
+            }
+        } catch (JsonProcessingException e) {
+            // The rest of the array cannot be read; report where it broke and stop
+            drain(pending, 0, sink);
+            sink.accept(List.of(malformed(index, e)));
+        }
+    }
+
+    private void submit(Callable<ItemResult> task, Deque<Future<ItemResult>> pending,
+                        Consumer<List<ItemResult>> sink) {
+        pending.add(executor.submit(task));
+        if (pending.size() >= window) {
+            drain(pending, window / 2, sink);
+        }
+    }
+
+    /**
+     * Hand over completed results in order, waiting for the oldest until at most {@code keep} are pending.
+     */
+    private void drain(Deque<Future<ItemResult>> pending, int keep, Consumer<List<ItemResult>> sink) {
+        List<ItemResult> results = new ArrayList<>();
+        while (!pending.isEmpty() && (pending.size() > keep || pending.peekFirst().isDone())) {
+            results.add(await(pending.pollFirst()));
+        }
+        if (!results.isEmpty()) {
+            sink.accept(results);
+        }
+    }
+
+    private ItemResult validate(int index, SchemaValidator.CompiledSchema compiled, String schemaError, JsonNode data) {
+        if (compiled == null) {
+            return new ItemResult(index, false, List.of(schemaError));
+        }
+        try {
+            FormValidationService.ValidationResult result = formValidationService.validate(compiled, data);
+            return new ItemResult(index, result.isValid(), result.getErrors());
+        } catch (IllegalArgumentException e) {
+            return new ItemResult(index, false, List.of("Schema validation error: " + e.getMessage()));
+        }
+    }
+
+    private static ItemResult malformed(int index, JsonProcessingException e) {
+        return new ItemResult(index, false, List.of("Malformed JSON: " + e.getOriginalMessage()));
+    }
+
+    private static ItemResult await(Future<ItemResult> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while validating records", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Record validation failed", e.getCause());
+        }
+    }
+
+    /**
+     * Per-record result of a batch validation; {@code index} is the record's position in the input.
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class ItemResult {
+        private final int index;
+        private final boolean valid;
+        private final List<String> errors;
+    }
+
+}
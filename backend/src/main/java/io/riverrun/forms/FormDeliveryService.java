@@ -0,0 +1,123 @@
+package io.riverrun.forms;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.riverrun.domain.model.FormSchema;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Rendered form schemas for delivery to clients.
+ * Each stored form version is serialized once into its JSON bytes, a gzip copy and a strong ETag
+ * (the SHA-256 of the JSON), so page loads skip the database and Jackson, and revalidations end
+ * in a 304. Entries are dropped on {@link #invalidate} and expire after {@code ttl-seconds} so
+ * changes made through other instances show up.
+ */
+@Service
+@Slf4j
+public class FormDeliveryService {
+
+    private final ObjectMapper objectMapper;
+    private final Cache<Lookup, Content> contents;
+
+    public FormDeliveryService(ObjectMapper objectMapper,
+                               @Value("${riverrun.forms.delivery.max-size:1000}") long maxSize,
+                               @Value("${riverrun.forms.delivery.ttl-seconds:300}") long ttlSeconds) {
+        this.objectMapper = objectMapper;
+        this.contents = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .build();
+    }
+
+    /**
+     * The rendered content of a form, loading and rendering it on a miss.
+     *
+     * @param tenantId Tenant the lookup runs for
+     * @param lookup What identifies the form within the tenant, e.g. its id or code
+     * @param loader Loads the form; empty if there is none
+     * @param view Maps the form to the body sent to clients
+     */
+    public Optional<Content> get(UUID tenantId, String lookup, Supplier<Optional<FormSchema>> loader,
+                                 Function<FormSchema, ?> view) {
+        Lookup key = new Lookup(tenantId, lookup);
+        Content content = contents.getIfPresent(key);
+        if (content != null) {
+            return Optional.of(content);
+        }
+
+        return loader.get().map(schema -> {
+            Content rendered = render(schema.getId(), view.apply(schema));
+            contents.put(key, rendered);
+            log.debug("Rendered form schema {} v{} ({} bytes, {} gzipped)", schema.getId(), schema.getVersion(),
+                    rendered.getJson().length, rendered.getGzip().length);
+            return rendered;
+        });
+    }
+
+    /**
+     * Drop the rendered content of a form under every lookup.
+     */
+    public void invalidate(UUID formSchemaId) {
+        contents.asMap().values().removeIf(content -> content.getFormSchemaId().equals(formSchemaId));
+    }
+
+    private Content render(UUID formSchemaId, Object body) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(body);
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(json);
+            String hex = HexFormat.of().formatHex(hash);
+            // The gzip representation has other bytes, so it gets its own strong ETag
+            return new Content(formSchemaId, "\"" + hex + "\"", "\"" + hex + "-gzip\"", json, gzip(json));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize form schema " + formSchemaId, e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static byte[] gzip(byte[] json) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(json.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(json);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * A rendered form: its JSON body and a gzip copy of it, each with its strong ETag.
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class Content {
+        private final UUID formSchemaId;
+        private final String etag;
+        private final String gzipEtag;
+        private final byte[] json;
+        private final byte[] gzip;
+    }
+
+    private record Lookup(UUID tenantId, String lookup) {
+    }
+
+}
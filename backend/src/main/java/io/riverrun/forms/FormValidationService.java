@@ -2,32 +2,140 @@ package io.riverrun.forms;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.github.fge.jsonschema.core.exceptions.ProcessingException;
-import com.github.fge.jsonschema.core.report.ProcessingReport;
-import com.github.fge.jsonschema.main.JsonSchema;
-import com.github.fge.jsonschema.main.JsonSchemaFactory;
-import lombok.RequiredArgsConstructor;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.riverrun.domain.model.FormSchema;
+import io.riverrun.domain.model.Tenant;
+import io.riverrun.domain.repository.TenantRepository;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * Service for validating form data against JSON schemas.
+ * Each tenant validates with its chosen {@link SchemaValidator} engine, or the configured default.
+ * Compiled schemas of stored forms are cached by (tenant, form, version, last update, engine) with
+ * LRU-style eviction, so an edited schema is recompiled on every instance even without an
+ * {@link #invalidate}, which only frees the stale entries early.
+ * Validation stops reporting after {@code max-errors} messages; 0 reports everything.
+ * Flat schemas additionally get a {@link FlatSchemaPlan} that accepts valid data without the engine.
  */
 @Service
-@RequiredArgsConstructor
 @Slf4j
 public class FormValidationService {
 
     private final ObjectMapper objectMapper;
-    private final JsonSchemaFactory schemaFactory = JsonSchemaFactory.byDefault();
+    private final Map<String, SchemaValidator> validators;
+    private final SchemaValidator defaultValidator;
+    private final TenantRepository tenantRepository;
+    private final Cache<Key, SchemaValidator.CompiledSchema> schemas;
+    private final Cache<Key, FieldValidationIndex> fieldIndexes;
+    private final Cache<UUID, SchemaValidator> tenantValidators;
+    private final int maxErrors;
+    private final boolean flatPlans;
+
+    public FormValidationService(ObjectMapper objectMapper,
+                                 List<SchemaValidator> validators,
+                                 TenantRepository tenantRepository,
+                                 @Value("${riverrun.forms.validator:networknt}") String defaultValidator,
+                                 @Value("${riverrun.forms.schema-cache.max-size:1000}") long maxSize,
+                                 @Value("${riverrun.forms.validation.max-errors:50}") int maxErrors,
+                                 @Value("${riverrun.forms.validation.flat-plans:true}") boolean flatPlans) {
+        this.objectMapper = objectMapper;
+        this.validators = validators.stream()
+                .collect(Collectors.toMap(SchemaValidator::getName, Function.identity()));
+        this.defaultValidator = this.validators.get(defaultValidator);
+        if (this.defaultValidator == null) {
+            throw new IllegalStateException("Unknown schema validator: " + defaultValidator
+                    + " (available: " + this.validators.keySet() + ")");
+        }
+        this.tenantRepository = tenantRepository;
+        this.schemas = Caffeine.newBuilder().maximumSize(maxSize).build();
+        this.fieldIndexes = Caffeine.newBuilder().maximumSize(maxSize).build();
+        this.tenantValidators = Caffeine.newBuilder().expireAfterWrite(Duration.ofMinutes(1)).build();
+        this.maxErrors = Math.max(0, maxErrors);
+        this.flatPlans = flatPlans;
+    }
 
     /**
-     * Validate form data against a JSON schema.
+     * Validate form data against a stored form schema, reusing its compiled schema.
+     *
+     * @param formSchema The stored form schema
+     * @param data The form data to validate
+     * @return ValidationResult with success status and any error messages
+     */
+    public ValidationResult validate(FormSchema formSchema, Map<String, Object> data) {
+        JsonNode dataNode = objectMapper.valueToTree(data);
+        return validate(formSchema, dataNode);
+    }
+
+    /**
+     * Validate an already parsed form payload against a stored form schema.
+     * Callers holding the raw request body should parse it straight into a tree and use this,
+     * so the payload is materialized only once.
+     *
+     * @param formSchema The stored form schema
+     * @param data The form data to validate
+     * @return ValidationResult with success status and any error messages
+     */
+    public ValidationResult validate(FormSchema formSchema, JsonNode data) {
+        try {
+            return validate(compiledSchema(formSchema), data);
+        } catch (IllegalArgumentException e) {
+            log.error("Error validating form data", e);
+            return ValidationResult.failure(List.of("Schema validation error: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * Validate one changed field of a stored form: only the field's sub-schema and the rules of
+     * its enclosing objects that mention it are checked, or the whole form where the schema
+     * combines subschemas around the field.
+     *
+     * @param formSchema The stored form schema
+     * @param path Dotted path of the field, with indexes for array items ({@code lines.0.sku})
+     * @param value The field's new value; null (not JSON null) if the field was removed
+     * @param data Other values the dependent rules need; may be null
+     * @return ValidationResult with success status and any error messages
+     * @throws IllegalArgumentException if the schema declares no such field
+     */
+    public ValidationResult validateField(FormSchema formSchema, String path, JsonNode value, JsonNode data) {
+        SchemaValidator validator = validatorFor(formSchema.getTenantId());
+        FieldValidationIndex index = fieldIndexes.get(key(formSchema, validator),
+                k -> FieldValidationIndex.build(validator, objectMapper.valueToTree(formSchema.getSchema())));
+
+        SchemaValidator.CompiledSchema compiled;
+        try {
+            compiled = index.schemaFor(path);
+        } catch (IllegalArgumentException e) {
+            log.error("Error compiling field {} of form schema {}", path, formSchema.getId(), e);
+            return ValidationResult.failure(List.of("Schema validation error: " + e.getMessage()));
+        }
+        if (compiled == null) {
+            throw new IllegalArgumentException("Unknown field: " + path);
+        }
+        return validate(compiled, index.instanceFor(path, value, data));
+    }
+
+    /**
+     * Drop the compiled versions of a form schema.
+     */
+    public void invalidate(UUID formSchemaId) {
+        schemas.asMap().keySet().removeIf(key -> key.formSchemaId().equals(formSchemaId));
+        fieldIndexes.asMap().keySet().removeIf(key -> key.formSchemaId().equals(formSchemaId));
+    }
+
+    /**
+     * Validate form data against a JSON schema with the default engine.
      *
      * @param schema The JSON schema as a map
      * @param data The form data to validate
@@ -38,28 +146,67 @@ public class FormValidationService {
             JsonNode schemaNode = objectMapper.valueToTree(schema);
             JsonNode dataNode = objectMapper.valueToTree(data);
 
-            JsonSchema jsonSchema = schemaFactory.getJsonSchema(schemaNode);
-            ProcessingReport report = jsonSchema.validate(dataNode);
+            return validate(defaultValidator.compile(schemaNode), dataNode);
+
+        } catch (IllegalArgumentException e) {
+            log.error("Error validating form data", e);
+            return ValidationResult.failure(List.of("Schema validation error: " + e.getMessage()));
+        }
+    }
 
-            if (report.isSuccess()) {
-                return ValidationResult.success();
+    /**
+     * The compiled schema of a stored form, compiling and caching it on first use.
+     *
+     * @throws IllegalArgumentException if the schema does not compile
+     */
+    SchemaValidator.CompiledSchema compiledSchema(FormSchema formSchema) {
+        SchemaValidator validator = validatorFor(formSchema.getTenantId());
+        return schemas.get(key(formSchema, validator), k -> {
+            JsonNode schemaNode = objectMapper.valueToTree(formSchema.getSchema());
+            SchemaValidator.CompiledSchema compiled = validator.compile(schemaNode);
+            FlatSchemaPlan plan = flatPlans ? FlatSchemaPlan.compile(schemaNode, validator.hasJavaPatterns()) : null;
+            log.debug("Compiled form schema {} v{} with {}{}", formSchema.getId(), formSchema.getVersion(),
+                    validator.getName(), plan != null ? " and a flat plan" : "");
+            if (plan == null) {
+                return compiled;
             }
+            return (data, limit) -> plan.accepts(data) ? List.of() : compiled.validate(data, limit);
+        });
+    }
 
-            List<String> errors = new ArrayList<>();
-            report.forEach(message -> errors.add(message.getMessage()));
+    ValidationResult validate(SchemaValidator.CompiledSchema compiled, JsonNode dataNode) {
+        List<String> errors = compiled.validate(dataNode, maxErrors);
 
-            return ValidationResult.failure(errors);
+        if (errors.isEmpty()) {
+            return ValidationResult.success();
+        }
+        if (maxErrors > 0 && errors.size() > maxErrors) {
+            errors = new ArrayList<>(errors.subList(0, maxErrors));
+            errors.add("Validation stopped after " + maxErrors + " errors");
+        }
 
-        } catch (ProcessingException e) {
-            log.error("Error validating form data", e);
-            return ValidationResult.failure(List.of("Schema validation error: " + e.getMessage()));
+        return ValidationResult.failure(errors);
+    }
+
+    /**
+     * The engine a tenant chose; unknown or unset choices use the default.
+     */
+    private SchemaValidator validatorFor(UUID tenantId) {
+        if (tenantId == null) {
+            return defaultValidator;
         }
+        return tenantValidators.get(tenantId, id -> tenantRepository.findById(id)
+                .map(Tenant::getFormValidator)
+                .map(validators::get)
+                .orElse(defaultValidator));
     }
 
     /**
      * Result of form validation.
      */
     public static class ValidationResult {
+        private static final ValidationResult SUCCESS = new ValidationResult(true, null);
+
         private final boolean valid;
         private final List<String> errors;
 
@@ -69,7 +216,7 @@ public class FormValidationService {
         }
 
         public static ValidationResult success() {
-            return new ValidationResult(true, null);
+            return SUCCESS;
         }
 
         public static ValidationResult failure(List<String> errors) {
@@ -85,4 +232,12 @@ public class FormValidationService {
         }
     }
 
+    private static Key key(FormSchema formSchema, SchemaValidator validator) {
+        return new Key(formSchema.getTenantId(), formSchema.getId(), formSchema.getVersion(),
+                formSchema.getUpdatedAt(), validator.getName());
+    }
+
+    private record Key(UUID tenantId, UUID formSchemaId, String version, LocalDateTime updatedAt, String validator) {
+    }
+
 }
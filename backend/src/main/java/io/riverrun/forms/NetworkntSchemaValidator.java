@@ -0,0 +1,118 @@
+package io.riverrun.forms;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.networknt.schema.JsonSchema;
+import com.networknt.schema.JsonSchemaException;
+import com.networknt.schema.JsonSchemaFactory;
+import com.networknt.schema.SchemaValidatorsConfig;
+import com.networknt.schema.SpecVersion;
+import com.networknt.schema.SpecVersionDetector;
+import com.networknt.schema.ValidationMessage;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * networknt engine: drafts 4, 6, 7, 2019-09 and 2020-12, picked from the schema's {@code $schema}.
+ * Schemas without one are read as draft-04, the dialect stored forms were written against.
+ * The engine either collects every error or stops at the first one: a limit of 1 validates with a
+ * fail-fast copy of the schema, compiled on first use; any other limit collects all errors and
+ * leaves the truncation to the caller.
+ */
+@Component
+public class NetworkntSchemaValidator implements SchemaValidator {
+
+    public static final String NAME = "networknt";
+
+    private final Map<SpecVersion.VersionFlag, JsonSchemaFactory> factories = new ConcurrentHashMap<>();
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    /**
+     * Patterns go through {@link java.util.regex} unless the ECMA 262 option is set, which it is not.
+     */
+    @Override
+    public boolean hasJavaPatterns() {
+        return true;
+    }
+
+    @Override
+    public CompiledSchema compile(JsonNode schema) {
+        SpecVersion.VersionFlag version;
+        JsonSchema jsonSchema;
+        try {
+            version = schema.has("$schema") ? SpecVersionDetector.detect(schema) : SpecVersion.VersionFlag.V4;
+            jsonSchema = load(version, schema, new SchemaValidatorsConfig());
+        } catch (JsonSchemaException e) {
+            throw new IllegalArgumentException(e.getMessage(), e);
+        }
+        return new Compiled(this, version, schema, jsonSchema);
+    }
+
+    private JsonSchema load(SpecVersion.VersionFlag version, JsonNode schema, SchemaValidatorsConfig config) {
+        JsonSchema jsonSchema = factories.computeIfAbsent(version, JsonSchemaFactory::getInstance)
+                .getSchema(schema, config);
+        jsonSchema.initializeValidators();
+        return jsonSchema;
+    }
+
+    private static final class Compiled implements CompiledSchema {
+
+        private final NetworkntSchemaValidator engine;
+        private final SpecVersion.VersionFlag version;
+        private final JsonNode schema;
+        private final JsonSchema jsonSchema;
+        private volatile JsonSchema failFast;
+
+        Compiled(NetworkntSchemaValidator engine, SpecVersion.VersionFlag version, JsonNode schema,
+                 JsonSchema jsonSchema) {
+            this.engine = engine;
+            this.version = version;
+            this.schema = schema;
+            this.jsonSchema = jsonSchema;
+        }
+
+        @Override
+        public List<String> validate(JsonNode data, int maxErrors) {
+            if (maxErrors == 1) {
+                try {
+                    failFast().validate(data);
+                    return List.of();
+                } catch (JsonSchemaException e) {
+                    Set<ValidationMessage> messages = e.getValidationMessages();
+                    return List.of(messages.isEmpty() ? e.getMessage() : messages.iterator().next().getMessage());
+                }
+            }
+
+            Set<ValidationMessage> messages = jsonSchema.validate(data);
+            if (messages.isEmpty()) {
+                return List.of();
+            }
+            List<String> errors = new ArrayList<>(messages.size());
+            for (ValidationMessage message : messages) {
+                errors.add(message.getMessage());
+            }
+            return errors;
+        }
+
+        private JsonSchema failFast() {
+            JsonSchema schema = failFast;
+            if (schema == null) {
+                SchemaValidatorsConfig config = new SchemaValidatorsConfig();
+                config.setFailFast(true);
+                // Racing threads may both compile it; either copy is equivalent
+                schema = engine.load(version, this.schema, config);
+                failFast = schema;
+            }
+            return schema;
+        }
+    }
+
+}
@@ -0,0 +1,49 @@
+package io.riverrun.forms;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.List;
+
+/**
+ * A JSON schema engine. Implementations are Spring beans picked by {@link #getName()}, either as
+ * the configured default or per tenant.
+ */
+public interface SchemaValidator {
+
+    /**
+     * Name tenants and configuration refer to this engine by.
+     */
+    String getName();
+
+    /**
+     * Compile a schema for repeated use.
+     *
+     * @throws IllegalArgumentException if the schema is invalid
+     */
+    CompiledSchema compile(JsonNode schema);
+
+    /**
+     * Whether {@code pattern} keywords are matched with {@link java.util.regex} semantics, the way
+     * {@link FlatSchemaPlan} matches them. Engines following ECMA 262 differ on classes such as
+     * {@code \p{L}}, so plans for them leave patterns to the engine.
+     */
+    default boolean hasJavaPatterns() {
+        return false;
+    }
+
+    /**
+     * A compiled schema; must be safe to use from several threads at once.
+     */
+    interface CompiledSchema {
+
+        /**
+         * Validate an instance.
+         *
+         * @param data The instance to validate
+         * @param maxErrors Number of errors after which the engine may stop looking; 0 for all
+         * @return The error messages, empty if the instance is valid
+         */
+        List<String> validate(JsonNode data, int maxErrors);
+    }
+
+}
@@ -0,0 +1,144 @@
+package io.riverrun.workflow;
+
+import io.riverrun.domain.model.Case;
+import io.riverrun.domain.model.User;
+import io.riverrun.domain.repository.CaseRepository;
+import io.riverrun.domain.repository.UserRepository;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Works out which transitions a user can take on a page of cases.
+ * The cases and the user are loaded with one query each, workflows are resolved once per case
+ * type, and the guards of every case are evaluated concurrently on virtual threads.
+ */
+@Service
+@Slf4j
+public class AvailableTransitionService {
+
+    private final CaseRepository caseRepository;
+    private final UserRepository userRepository;
+    private final WorkflowDefinitionCache workflowDefinitionCache;
+    private final WorkflowEngine workflowEngine;
+    private final int maxCases;
+
+    public AvailableTransitionService(CaseRepository caseRepository,
+                                      UserRepository userRepository,
+                                      WorkflowDefinitionCache workflowDefinitionCache,
+                                      WorkflowEngine workflowEngine,
+                                      @Value("${riverrun.workflow.available.max-cases:500}") int maxCases) {
+        this.caseRepository = caseRepository;
+        this.userRepository = userRepository;
+        this.workflowDefinitionCache = workflowDefinitionCache;
+        this.workflowEngine = workflowEngine;
+        this.maxCases = maxCases;
+    }
+
+    public int getMaxCases() {
+        return maxCases;
+    }
+
+    /**
+     * Evaluate the available transitions of the given cases. Cases that do not exist are left
+     * out; cases whose type has no active workflow are returned with {@code governed = false}
+     * and no transitions, since any state change is accepted for them.
+     *
+     * @param tenantId Tenant owning the cases
+     * @param caseIds Cases to evaluate, in response order
+     * @param username The user the guards are evaluated for
+     * @return Per-case transitions in the order of {@code caseIds}
+     */
+    @Transactional(readOnly = true)
+    public List<CaseTransitions> evaluate(UUID tenantId, List<UUID> caseIds, String username) {
+        User user = username != null ? userRepository.findByUsername(username).orElse(null) : null;
+
+        Map<UUID, Case> cases = new HashMap<>();
+        for (Case caseEntity : caseRepository.findByIdInAndTenantId(caseIds, tenantId)) {
+            cases.put(caseEntity.getId(), caseEntity);
+        }
+
+        Map<String, Optional<CompiledWorkflow>> workflows = new HashMap<>();
+        for (Case caseEntity : cases.values()) {
+            workflows.computeIfAbsent(caseEntity.getCaseType(),
+                    caseType -> workflowDefinitionCache.getActive(tenantId, caseType));
+        }
+        log.debug("Evaluating available transitions of {} cases for user {}", cases.size(), username);
+
+        List<Future<CaseTransitions>> futures = new ArrayList<>(cases.size());
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (UUID caseId : caseIds) {
+                Case caseEntity = cases.get(caseId);
+                if (caseEntity != null) {
+                    Optional<CompiledWorkflow> workflow = workflows.get(caseEntity.getCaseType());
+                    futures.add(executor.submit(() -> evaluateCase(caseEntity, workflow, user, tenantId)));
+                }
+            }
+        }
+
+        List<CaseTransitions> results = new ArrayList<>(futures.size());
+        for (Future<CaseTransitions> future : futures) {
+            try {
+                results.add(future.get());
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Error evaluating available transitions", e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Available transition evaluation interrupted", e);
+            }
+        }
+        return results;
+    }
+
+    private CaseTransitions evaluateCase(Case caseEntity, Optional<CompiledWorkflow> workflow, User user,
+                                         UUID tenantId) {
+        if (workflow.isEmpty()) {
+            return new CaseTransitions(caseEntity.getId(), caseEntity.getStatus(), false, List.of());
+        }
+
+        CompiledWorkflow compiled = workflow.get();
+        WorkflowContext context = CaseWorkflowContext.create(caseEntity, null, null, user, tenantId).getContext();
+        List<Option> options = workflowEngine.getAvailableTransitions(compiled, context).stream()
+                .map(transition -> new Option(compiled.stateName(transition.getToOrdinal()),
+                        transition.getDefinition().getEvent()))
+                .toList();
+        return new CaseTransitions(caseEntity.getId(), caseEntity.getStatus(), true, options);
+    }
+
+    /**
+     * Transitions available on one case.
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class CaseTransitions {
+        private final UUID caseId;
+        private final String currentState;
+        private final boolean governed;
+        private final List<Option> transitions;
+    }
+
+    /**
+     * One transition the user can take.
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class Option {
+        private final String targetState;
+        private final String event;
+    }
+
+}
@@ -0,0 +1,405 @@
+package io.riverrun.workflow;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.riverrun.audit.AuditService;
+import io.riverrun.domain.model.Case;
+import io.riverrun.domain.model.User;
+import io.riverrun.domain.repository.CaseRepository;
+import io.riverrun.domain.repository.UserRepository;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/**
+ * Applies one workflow event (or target state) to many cases.
+ * Cases are processed in chunks: each chunk is loaded with one query, its guards are
+ * evaluated concurrently on virtual threads, and the resulting status changes and audit rows
+ * are written with JDBC batches in a single transaction per chunk. Synchronous actions run
+ * after the status batch, only for the cases whose conditional update applied; a case whose
+ * action fails is restored to its previous row values within the same transaction.
+ */
+@Service
+@Slf4j
+public class BulkTransitionService {
+
+    private static final String UPDATE_STATUS_SQL =
+            "UPDATE cases SET status = ?, version = version + 1, custom_fields = ?::jsonb, " +
+            "resolved_at = COALESCE(resolved_at, ?), closed_at = COALESCE(closed_at, ?), " +
+            "updated_by = ?, updated_at = ? " +
+            "WHERE id = ? AND tenant_id = ? AND status = ? AND version = ?";
+
+    private static final String UPDATE_FIELDS_SQL =
+            "UPDATE cases SET custom_fields = ?::jsonb WHERE id = ? AND tenant_id = ?";
+
+    /** Undo a status update whose actions failed; the version stays bumped. */
+    private static final String RESTORE_SQL =
+            "UPDATE cases SET status = ?, custom_fields = ?::jsonb, resolved_at = ?, closed_at = ?, " +
+            "updated_by = ?, updated_at = ? WHERE id = ? AND tenant_id = ?";
+
+    private final CaseRepository caseRepository;
+    private final UserRepository userRepository;
+    private final WorkflowDefinitionCache workflowDefinitionCache;
+    private final WorkflowEngine workflowEngine;
+    private final AuditService auditService;
+    private final WorkflowActionOutbox actionOutbox;
+    private final WorkflowTimerService timerService;
+    private final WorkflowEventStore eventStore;
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+    private final int maxCases;
+
+    public BulkTransitionService(CaseRepository caseRepository,
+                                 UserRepository userRepository,
+                                 WorkflowDefinitionCache workflowDefinitionCache,
+                                 WorkflowEngine workflowEngine,
+                                 AuditService auditService,
+                                 WorkflowActionOutbox actionOutbox,
+                                 WorkflowTimerService timerService,
+                                 WorkflowEventStore eventStore,
+                                 JdbcTemplate jdbcTemplate,
+                                 ObjectMapper objectMapper,
+                                 PlatformTransactionManager transactionManager,
+                                 @Value("${riverrun.workflow.bulk.chunk-size:500}") int chunkSize,
+                                 @Value("${riverrun.workflow.bulk.max-cases:10000}") int maxCases) {
+        this.caseRepository = caseRepository;
+        this.userRepository = userRepository;
+        this.workflowDefinitionCache = workflowDefinitionCache;
+        this.workflowEngine = workflowEngine;
+        this.auditService = auditService;
+        this.actionOutbox = actionOutbox;
+        this.timerService = timerService;
+        this.eventStore = eventStore;
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = Math.max(1, chunkSize);
+        this.maxCases = maxCases;
+    }
+
+    /**
+     * Resolve the oldest cases matching a filter, capped at the configured maximum.
+     */
+    public CaseSelection findCaseIds(UUID tenantId, String status, String caseType, UUID assignedTo,
+                                     LocalDateTime createdBefore) {
+        // Only the filters given become predicates: "? IS NULL OR ..." leaves untyped nulls the
+        // driver cannot bind and keeps the planner from using the indexes
+        StringBuilder sql = new StringBuilder("SELECT id FROM cases WHERE tenant_id = ?");
+        List<Object> args = new ArrayList<>();
+        args.add(tenantId);
+        if (status != null) {
+            sql.append(" AND status = ?");
+            args.add(status);
+        }
+        if (caseType != null) {
+            sql.append(" AND case_type = ?");
+            args.add(caseType);
+        }
+        if (assignedTo != null) {
+            sql.append(" AND assigned_to = ?");
+            args.add(assignedTo);
+        }
+        if (createdBefore != null) {
+            sql.append(" AND created_at < ?");
+            args.add(Timestamp.valueOf(createdBefore));
+        }
+        // One more than the cap tells whether cases were left out
+        sql.append(" ORDER BY created_at LIMIT ?");
+        args.add(maxCases + 1);
+        List<UUID> caseIds = jdbcTemplate.queryForList(sql.toString(), UUID.class, args.toArray());
+        return caseIds.size() > maxCases
+                ? new CaseSelection(caseIds.subList(0, maxCases), true)
+                : new CaseSelection(caseIds, false);
+    }
+
+    public int getMaxCases() {
+        return maxCases;
+    }
+
+    /**
+     * Transition the given cases. Results are handed to {@code sink} one chunk at a time,
+     * in the order of {@code caseIds}, as soon as the chunk is committed.
+     *
+     * @param tenantId Tenant owning the cases
+     * @param username The user requesting the transitions
+     * @param caseIds Cases to transition
+     * @param event Event to fire; may be null when targetState is set
+     * @param targetState Target state; may be null when event is set
+     * @param sink Receives per-case results
+     */
+    public void execute(UUID tenantId, String username, List<UUID> caseIds, String event, String targetState,
+                        Consumer<List<ItemResult>> sink) {
+        User user = username != null ? userRepository.findByUsername(username).orElse(null) : null;
+
+        for (int start = 0; start < caseIds.size(); start += chunkSize) {
+            List<UUID> chunk = caseIds.subList(start, Math.min(start + chunkSize, caseIds.size()));
+            List<ItemResult> results = transactionTemplate.execute(status ->
+                    processChunk(tenantId, user, username, chunk, event, targetState));
+            sink.accept(results);
+        }
+    }
+
+    private List<ItemResult> processChunk(UUID tenantId, User user, String username, List<UUID> chunk,
+                                          String event, String targetState) {
+        Map<UUID, Case> cases = new HashMap<>();
+        for (Case caseEntity : caseRepository.findByIdInAndTenantId(chunk, tenantId)) {
+            cases.put(caseEntity.getId(), caseEntity);
+        }
+
+        // Resolve workflows on this thread; the cache may hit the database
+        Map<String, Optional<CompiledWorkflow>> workflows = new HashMap<>();
+        for (Case caseEntity : cases.values()) {
+            workflows.computeIfAbsent(caseEntity.getCaseType(),
+                    caseType -> workflowDefinitionCache.getActive(tenantId, caseType));
+        }
+
+        List<Evaluation> evaluations = evaluate(chunk, cases, workflows, user, tenantId, event, targetState);
+
+        List<Evaluation> accepted = evaluations.stream().filter(e -> e.result == null).toList();
+        LocalDateTime now = LocalDateTime.now();
+        UUID userId = user != null ? user.getId() : null;
+        int[][] counts = accepted.isEmpty() ? new int[0][] : jdbcTemplate.batchUpdate(UPDATE_STATUS_SQL, accepted,
+                accepted.size(), (ps, evaluation) -> {
+                    Case caseEntity = evaluation.caseEntity;
+                    String to = evaluation.targetState;
+                    ps.setString(1, to);
+                    ps.setString(2, toJson(evaluation.customFields));
+                    ps.setTimestamp(3, "RESOLVED".equals(to) ? Timestamp.valueOf(now) : null);
+                    ps.setTimestamp(4, "CLOSED".equals(to) ? Timestamp.valueOf(now) : null);
+                    ps.setObject(5, userId);
+                    ps.setTimestamp(6, Timestamp.valueOf(now));
+                    ps.setObject(7, caseEntity.getId());
+                    ps.setObject(8, tenantId);
+                    ps.setString(9, caseEntity.getStatus());
+                    ps.setLong(10, caseEntity.getVersion());
+                });
+
+        List<AuditService.StateChange> stateChanges = new ArrayList<>(accepted.size());
+        List<WorkflowEventStore.NewEvent> events = new ArrayList<>(accepted.size());
+        List<WorkflowActionOutbox.PendingAction> pendingActions = new ArrayList<>();
+        Map<String, List<WorkflowTimerService.StateEntry>> enteredStates = new HashMap<>();
+        List<Evaluation> changedFields = new ArrayList<>();
+        List<Evaluation> restored = new ArrayList<>();
+        for (int i = 0; i < accepted.size(); i++) {
+            Evaluation evaluation = accepted.get(i);
+            Case caseEntity = evaluation.caseEntity;
+            if (counts[0][i] != 1) {
+                evaluation.result = new ItemResult(caseEntity.getId(), CaseTransitionService.Outcome.CONFLICT,
+                        caseEntity.getStatus(), evaluation.targetState, "Case was modified concurrently");
+                continue;
+            }
+
+            // The row is held by this transaction now: run the actions exactly once
+            if (evaluation.prepared != null) {
+                WorkflowEngine.TransitionResult result =
+                        workflowEngine.runActions(evaluation.prepared, evaluation.context);
+                if (!result.isSuccess()) {
+                    evaluation.result = new ItemResult(caseEntity.getId(), CaseTransitionService.Outcome.REJECTED,
+                            caseEntity.getStatus(), null, result.getErrorMessage());
+                    restored.add(evaluation);
+                    continue;
+                }
+                evaluation.deferredActions = result.getDeferredActions();
+                Map<String, Object> customFields = evaluation.caseContext.customFields();
+                if (!customFields.equals(evaluation.customFields)) {
+                    evaluation.customFields = customFields;
+                    changedFields.add(evaluation);
+                }
+            }
+
+            evaluation.result = new ItemResult(caseEntity.getId(), CaseTransitionService.Outcome.SUCCESS,
+                    caseEntity.getStatus(), evaluation.targetState, null);
+            stateChanges.add(new AuditService.StateChange(caseEntity.getId(), caseEntity.getStatus(),
+                    evaluation.targetState));
+            events.add(new WorkflowEventStore.NewEvent(caseEntity.getId(), WorkflowEventStore.STATE_CHANGED,
+                    caseEntity.getStatus(), evaluation.targetState, evaluation.context.getEvent(),
+                    caseEntity.getCustomFields(), evaluation.customFields, userId));
+            for (CompiledWorkflow.BoundAction action : evaluation.deferredActions) {
+                pendingActions.add(new WorkflowActionOutbox.PendingAction(evaluation.context, action));
+            }
+            enteredStates.computeIfAbsent(caseEntity.getCaseType(), caseType -> new ArrayList<>())
+                    .add(new WorkflowTimerService.StateEntry(caseEntity.getId(), evaluation.targetState,
+                            caseEntity.getDueDate()));
+        }
+
+        if (!changedFields.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPDATE_FIELDS_SQL, changedFields, changedFields.size(), (ps, evaluation) -> {
+                ps.setString(1, toJson(evaluation.customFields));
+                ps.setObject(2, evaluation.caseEntity.getId());
+                ps.setObject(3, tenantId);
+            });
+        }
+        if (!restored.isEmpty()) {
+            jdbcTemplate.batchUpdate(RESTORE_SQL, restored, restored.size(), (ps, evaluation) -> {
+                Case caseEntity = evaluation.caseEntity;
+                ps.setString(1, caseEntity.getStatus());
+                ps.setString(2, caseEntity.getCustomFields() != null ? toJson(caseEntity.getCustomFields()) : null);
+                ps.setTimestamp(3, timestamp(caseEntity.getResolvedAt()));
+                ps.setTimestamp(4, timestamp(caseEntity.getClosedAt()));
+                ps.setObject(5, caseEntity.getUpdatedBy());
+                ps.setTimestamp(6, timestamp(caseEntity.getUpdatedAt()));
+                ps.setObject(7, caseEntity.getId());
+                ps.setObject(8, tenantId);
+            });
+        }
+
+        auditService.logStateChanges(CaseTransitionService.ENTITY_TYPE, stateChanges, tenantId, userId, username);
+        eventStore.append(tenantId, CaseTransitionService.ENTITY_TYPE, events);
+        actionOutbox.enqueueAll(tenantId, pendingActions);
+        rescheduleTimers(tenantId, workflows, enteredStates);
+        log.debug("Bulk transition chunk: {} cases, {} applied", chunk.size(), stateChanges.size());
+
+        return evaluations.stream().map(e -> e.result).toList();
+    }
+
+    private void rescheduleTimers(UUID tenantId, Map<String, Optional<CompiledWorkflow>> workflows,
+                                  Map<String, List<WorkflowTimerService.StateEntry>> enteredStates) {
+        enteredStates.forEach((caseType, entries) -> {
+            timerService.cancel(entries.stream().map(WorkflowTimerService.StateEntry::entityId).toList());
+            workflows.get(caseType).ifPresent(workflow ->
+                    timerService.schedule(tenantId, workflow, CaseTransitionService.ENTITY_TYPE, entries));
+        });
+    }
+
+    private List<Evaluation> evaluate(List<UUID> chunk, Map<UUID, Case> cases,
+                                      Map<String, Optional<CompiledWorkflow>> workflows,
+                                      User user, UUID tenantId, String event, String targetState) {
+        List<Future<Evaluation>> futures = new ArrayList<>(chunk.size());
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (UUID caseId : chunk) {
+                Case caseEntity = cases.get(caseId);
+                futures.add(executor.submit(() -> evaluateCase(caseId, caseEntity,
+                        caseEntity != null ? workflows.get(caseEntity.getCaseType()) : Optional.empty(),
+                        user, tenantId, event, targetState)));
+            }
+        }
+
+        List<Evaluation> evaluations = new ArrayList<>(futures.size());
+        for (int i = 0; i < futures.size(); i++) {
+            try {
+                evaluations.add(futures.get(i).get());
+            } catch (ExecutionException e) {
+                log.error("Error evaluating bulk transition for case " + chunk.get(i), e.getCause());
+                evaluations.add(Evaluation.rejected(chunk.get(i), null,
+                        "Evaluation failed: " + e.getCause().getMessage()));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Bulk transition interrupted", e);
+            }
+        }
+        return evaluations;
+    }
+
+    private Evaluation evaluateCase(UUID caseId, Case caseEntity, Optional<CompiledWorkflow> workflow,
+                                    User user, UUID tenantId, String event, String targetState) {
+        if (caseEntity == null) {
+            Evaluation evaluation = new Evaluation(null, null, null);
+            evaluation.result = new ItemResult(caseId, CaseTransitionService.Outcome.NOT_FOUND, null, targetState,
+                    "Case not found");
+            return evaluation;
+        }
+
+        CaseWorkflowContext caseContext = CaseWorkflowContext.create(caseEntity, targetState, event, user, tenantId);
+        WorkflowContext context = caseContext.getContext();
+
+        // Guards only; actions wait until the status batch has claimed the case
+        WorkflowEngine.TransitionResult prepared = null;
+        if (workflow.isPresent()) {
+            prepared = workflowEngine.prepareTransition(workflow.get(), context);
+            if (!prepared.isSuccess()) {
+                return Evaluation.rejected(caseId, caseEntity, prepared.getErrorMessage());
+            }
+        }
+        if (context.getTargetState() == null) {
+            return Evaluation.rejected(caseId, caseEntity, "No target state for event " + event);
+        }
+
+        Evaluation evaluation = new Evaluation(caseEntity, context.getTargetState(), caseContext.customFields());
+        evaluation.caseContext = caseContext;
+        evaluation.context = context;
+        evaluation.prepared = prepared;
+        return evaluation;
+    }
+
+    private static Timestamp timestamp(LocalDateTime value) {
+        return value != null ? Timestamp.valueOf(value) : null;
+    }
+
+    private String toJson(Map<String, Object> values) {
+        try {
+            return objectMapper.writeValueAsString(values);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Cannot serialize custom fields", e);
+        }
+    }
+
+    /**
+     * Outcome of evaluating one case; {@code result} stays null until the case is written or rejected.
+     */
+    private static final class Evaluation {
+        private final Case caseEntity;
+        private final String targetState;
+        private Map<String, Object> customFields;
+        private CaseWorkflowContext caseContext;
+        private WorkflowContext context;
+        private WorkflowEngine.TransitionResult prepared;
+        private List<CompiledWorkflow.BoundAction> deferredActions = List.of();
+        private ItemResult result;
+
+        private Evaluation(Case caseEntity, String targetState, Map<String, Object> customFields) {
+            this.caseEntity = caseEntity;
+            this.targetState = targetState;
+            this.customFields = customFields;
+        }
+
+        static Evaluation rejected(UUID caseId, Case caseEntity, String errorMessage) {
+            Evaluation evaluation = new Evaluation(caseEntity, null, null);
+            evaluation.result = new ItemResult(caseId, CaseTransitionService.Outcome.REJECTED,
+                    caseEntity != null ? caseEntity.getStatus() : null, null, errorMessage);
+            return evaluation;
+        }
+    }
+
+    /**
+     * Cases matching a bulk transition filter.
+     *
+     * @param truncated Whether more cases matched than {@code max-cases}; the oldest ones were kept
+     */
+    public record CaseSelection(List<UUID> caseIds, boolean truncated) {
+    }
+
+    /**
+     * Per-case result of a bulk transition.
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class ItemResult {
+        private final UUID caseId;
+        private final CaseTransitionService.Outcome outcome;
+        private final String fromState;
+        private final String toState;
+        private final String errorMessage;
+    }
+
+}
@@ -0,0 +1,343 @@
+package io.riverrun.workflow;
+
+import io.riverrun.audit.AuditService;
+import io.riverrun.domain.model.Case;
+import io.riverrun.domain.model.User;
+import io.riverrun.domain.repository.CaseRepository;
+import io.riverrun.domain.repository.UserRepository;
+import io.riverrun.multitenancy.TenantContext;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Runs case state transitions through the workflow engine.
+ * The status write is a conditional update on (status, version); when a concurrent
+ * transition wins, the case is re-read and the transition re-evaluated a bounded
+ * number of times instead of taking a pessimistic row lock. Guards are evaluated before
+ * the update and synchronous actions only after it succeeded, in the same transaction,
+ * so a lost race never runs an action.
+ */
+@Service
+@Slf4j
+public class CaseTransitionService {
+
+    public static final String ENTITY_TYPE = "Case";
+
+    private final CaseRepository caseRepository;
+    private final UserRepository userRepository;
+    private final WorkflowDefinitionCache workflowDefinitionCache;
+    private final WorkflowEngine workflowEngine;
+    private final AuditService auditService;
+    private final WorkflowActionOutbox actionOutbox;
+    private final WorkflowTimerService timerService;
+    private final WorkflowEventStore eventStore;
+    private final TenantContext tenantContext;
+    private final TransactionTemplate transactionTemplate;
+    private final int maxAttempts;
+
+    public CaseTransitionService(CaseRepository caseRepository,
+                                 UserRepository userRepository,
+                                 WorkflowDefinitionCache workflowDefinitionCache,
+                                 WorkflowEngine workflowEngine,
+                                 AuditService auditService,
+                                 WorkflowActionOutbox actionOutbox,
+                                 WorkflowTimerService timerService,
+                                 WorkflowEventStore eventStore,
+                                 TenantContext tenantContext,
+                                 PlatformTransactionManager transactionManager,
+                                 @Value("${riverrun.workflow.transition.max-attempts:3}") int maxAttempts) {
+        this.caseRepository = caseRepository;
+        this.userRepository = userRepository;
+        this.workflowDefinitionCache = workflowDefinitionCache;
+        this.workflowEngine = workflowEngine;
+        this.auditService = auditService;
+        this.actionOutbox = actionOutbox;
+        this.timerService = timerService;
+        this.eventStore = eventStore;
+        this.tenantContext = tenantContext;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.maxAttempts = Math.max(1, maxAttempts);
+    }
+
+    /**
+     * Transition a case to a target state.
+     *
+     * @param caseId The case to transition
+     * @param targetState The requested target state
+     * @param event Optional event name; when set, only a transition declaring it matches
+     * @param username The user requesting the transition
+     * @return Outcome of the transition
+     */
+    public CaseTransitionResult transition(UUID caseId, String targetState, String event, String username) {
+        return transition(tenantContext.getCurrentTenant(), caseId, targetState, event, username);
+    }
+
+    /**
+     * Transition a case of an explicit tenant; used where no request tenant is bound, e.g. by timers.
+     * A null {@code username} records the transition as a system change.
+     */
+    public CaseTransitionResult transition(UUID tenantId, UUID caseId, String targetState, String event,
+                                           String username) {
+        User user = username != null ? userRepository.findByUsername(username).orElse(null) : null;
+        return run(tenantId, caseId, targetState, event, user, null, null);
+    }
+
+    /**
+     * Fire a leased timer as a system change. The timer row is deleted in the transaction that
+     * applies its transition, so if that fails the timer stays leased and is delivered again once
+     * the lease expires. The case must still be in the timer's source state, and the transition the
+     * timer was scheduled for is taken rather than the first one between the two states.
+     *
+     * @param leaseOwner Owner the timer was leased to
+     */
+    public CaseTransitionResult fireTimer(WorkflowTimerService.LeasedTimer timer, String leaseOwner) {
+        return run(timer.tenantId(), timer.entityId(), timer.targetState(), timer.event(), null, timer, leaseOwner);
+    }
+
+    private CaseTransitionResult run(UUID tenantId, UUID caseId, String targetState, String event, User user,
+                                     WorkflowTimerService.LeasedTimer timer, String leaseOwner) {
+        for (int attempt = 1; attempt <= maxAttempts; attempt++) {
+            CaseTransitionResult result = transactionTemplate.execute(status ->
+                    attemptTransition(caseId, targetState, event, user, tenantId, timer, leaseOwner, status));
+
+            if (result.getOutcome() != Outcome.CONFLICT) {
+                return result;
+            }
+
+            log.debug("Concurrent transition on case {} (attempt {}/{})", caseId, attempt, maxAttempts);
+            backoff(attempt);
+        }
+
+        return CaseTransitionResult.conflict("Case " + caseId + " was modified concurrently; gave up after "
+                + maxAttempts + " attempts");
+    }
+
+    private CaseTransitionResult attemptTransition(UUID caseId, String targetState, String event,
+                                                   User user, UUID tenantId,
+                                                   WorkflowTimerService.LeasedTimer timer, String leaseOwner,
+                                                   TransactionStatus status) {
+        if (timer != null && !timerService.claim(timer.id(), leaseOwner)) {
+            return CaseTransitionResult.rejected("Timer " + timer.id() + " was cancelled or leased elsewhere");
+        }
+
+        // findById and the bulk updates below bypass the Hibernate tenant filter; match the tenant explicitly
+        Optional<Case> found = caseRepository.findByIdAndTenantId(caseId, tenantId);
+        if (found.isEmpty()) {
+            return CaseTransitionResult.notFound();
+        }
+
+        Case caseEntity = found.get();
+        String fromState = caseEntity.getStatus();
+        if (timer != null && !timer.fromState().equals(fromState)) {
+            return CaseTransitionResult.rejected("Case " + caseId + " left state " + timer.fromState());
+        }
+
+        CaseWorkflowContext caseContext = CaseWorkflowContext.create(caseEntity, targetState, event, user, tenantId);
+        WorkflowContext context = caseContext.getContext();
+
+        // Guards only: actions run once the conditional update below has claimed the case
+        WorkflowEngine.TransitionResult prepared = null;
+        Optional<CompiledWorkflow> workflow = workflowDefinitionCache.getActive(tenantId, caseEntity.getCaseType());
+        if (workflow.isPresent()) {
+            prepared = timer != null
+                    ? prepareTimer(workflow.get(), context, timer)
+                    : workflowEngine.prepareTransition(workflow.get(), context);
+            if (!prepared.isSuccess()) {
+                return CaseTransitionResult.rejected(prepared.getErrorMessage());
+            }
+        } else {
+            log.debug("No active workflow for case type {}, applying transition unchecked", caseEntity.getCaseType());
+        }
+
+        String resolvedTarget = context.getTargetState();
+        if (resolvedTarget == null) {
+            return CaseTransitionResult.rejected("No target state for event " + event);
+        }
+
+        Map<String, Object> customFields = caseContext.customFields();
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime resolvedAt = "RESOLVED".equals(resolvedTarget) ? now : null;
+        LocalDateTime closedAt = "CLOSED".equals(resolvedTarget) ? now : null;
+        UUID userId = user != null ? user.getId() : null;
+
+        int updated = caseRepository.transitionStatus(caseId, tenantId, fromState, resolvedTarget,
+                caseEntity.getVersion(), customFields, resolvedAt, closedAt, userId, now);
+        if (updated == 0) {
+            // Nothing was written; rolling back keeps a claimed timer for the next attempt
+            status.setRollbackOnly();
+            return CaseTransitionResult.conflict("Case " + caseId + " was modified concurrently");
+        }
+
+        // The case is now held by this transaction, so the actions run exactly once per applied
+        // transition; a failing action rolls the status change back with it
+        List<CompiledWorkflow.BoundAction> deferredActions = List.of();
+        if (prepared != null) {
+            WorkflowEngine.TransitionResult result = workflowEngine.runActions(prepared, context);
+            if (!result.isSuccess()) {
+                status.setRollbackOnly();
+                return CaseTransitionResult.rejected(result.getErrorMessage());
+            }
+            deferredActions = result.getDeferredActions();
+
+            Map<String, Object> changedFields = caseContext.customFields();
+            if (!changedFields.equals(customFields)) {
+                caseRepository.updateCustomFields(caseId, tenantId, changedFields);
+                customFields = changedFields;
+            }
+        }
+
+        auditService.logStateChange(ENTITY_TYPE, caseId, fromState, resolvedTarget);
+        eventStore.append(tenantId, ENTITY_TYPE, List.of(new WorkflowEventStore.NewEvent(caseId,
+                WorkflowEventStore.STATE_CHANGED, fromState, resolvedTarget, context.getEvent(),
+                caseEntity.getCustomFields(), customFields, userId)));
+        actionOutbox.enqueue(tenantId, context, deferredActions);
+        timerService.cancel(List.of(caseId));
+        workflow.ifPresent(compiled -> timerService.schedule(tenantId, compiled, ENTITY_TYPE,
+                List.of(new WorkflowTimerService.StateEntry(caseId, resolvedTarget, caseEntity.getDueDate()))));
+
+        // The persistence context was cleared by the update; reflect the write on the detached instance
+        caseEntity.setStatus(resolvedTarget);
+        caseEntity.setVersion(caseEntity.getVersion() + 1);
+        caseEntity.setCustomFields(customFields);
+        if (caseEntity.getResolvedAt() == null) caseEntity.setResolvedAt(resolvedAt);
+        if (caseEntity.getClosedAt() == null) caseEntity.setClosedAt(closedAt);
+        caseEntity.setUpdatedBy(userId);
+        caseEntity.setUpdatedAt(now);
+
+        return CaseTransitionResult.success(caseEntity);
+    }
+
+    /**
+     * Prepare the transition a timer was scheduled for. Timers scheduled before transitions were
+     * recorded by index fall back to the lookup by target state and event.
+     */
+    private WorkflowEngine.TransitionResult prepareTimer(CompiledWorkflow workflow, WorkflowContext context,
+                                                         WorkflowTimerService.LeasedTimer timer) {
+        if (timer.transitionIndex() < 0) {
+            return workflowEngine.prepareTransition(workflow, context);
+        }
+        int from = workflow.stateOrdinal(timer.fromState());
+        CompiledWorkflow.CompiledTransition transition =
+                from >= 0 ? workflow.transition(from, timer.transitionIndex()) : null;
+        if (transition == null || !transition.isTimed()
+                || !workflow.stateName(transition.getToOrdinal()).equals(timer.targetState())) {
+            // The workflow changed since the timer was scheduled
+            return WorkflowEngine.TransitionResult.failure("Timer transition no longer exists in the active workflow");
+        }
+        return workflowEngine.prepareTransition(workflow, context, transition);
+    }
+
+    /**
+     * Save direct edits of a case, which may not change its status. When the due date changed,
+     * the {@code onDue} timers of its current state are recreated in the same transaction.
+     */
+    public Case saveEdits(Case caseEntity, boolean dueDateChanged) {
+        return transactionTemplate.execute(status -> {
+            Case saved = caseRepository.save(caseEntity);
+            if (dueDateChanged) {
+                workflowDefinitionCache.getActive(saved.getTenantId(), saved.getCaseType())
+                        .ifPresent(workflow -> timerService.rescheduleDue(saved.getTenantId(), workflow, ENTITY_TYPE,
+                                new WorkflowTimerService.StateEntry(saved.getId(), saved.getStatus(),
+                                        saved.getDueDate())));
+            }
+            return saved;
+        });
+    }
+
+    /**
+     * Save a new case created by {@code username}, start its event history and create the timers
+     * of its initial state, all in one transaction.
+     */
+    public Case create(Case caseEntity, String username) {
+        UUID userId = username != null
+                ? userRepository.findByUsername(username).map(User::getId).orElse(null)
+                : null;
+        return transactionTemplate.execute(status -> {
+            caseEntity.setCreatedBy(userId);
+            Case saved = caseRepository.save(caseEntity);
+            recordCreation(saved, userId);
+            return saved;
+        });
+    }
+
+    private void recordCreation(Case caseEntity, UUID userId) {
+        eventStore.append(caseEntity.getTenantId(), ENTITY_TYPE, List.of(new WorkflowEventStore.NewEvent(
+                caseEntity.getId(), WorkflowEventStore.CREATED, null, caseEntity.getStatus(), null,
+                null, caseEntity.getCustomFields(), userId)));
+        workflowDefinitionCache.getActive(caseEntity.getTenantId(), caseEntity.getCaseType())
+                .ifPresent(workflow -> timerService.schedule(caseEntity.getTenantId(), workflow, ENTITY_TYPE,
+                        List.of(new WorkflowTimerService.StateEntry(caseEntity.getId(), caseEntity.getStatus(),
+                                caseEntity.getDueDate()))));
+    }
+
+    private static void backoff(int attempt) {
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(1, 5L * attempt + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public enum Outcome {
+        SUCCESS, NOT_FOUND, REJECTED, CONFLICT
+    }
+
+    /**
+     * Result of a case transition attempt.
+     */
+    public static class CaseTransitionResult {
+        private final Outcome outcome;
+        private final Case caseEntity;
+        private final String errorMessage;
+
+        private CaseTransitionResult(Outcome outcome, Case caseEntity, String errorMessage) {
+            this.outcome = outcome;
+            this.caseEntity = caseEntity;
+            this.errorMessage = errorMessage;
+        }
+
+        public static CaseTransitionResult success(Case caseEntity) {
+            return new CaseTransitionResult(Outcome.SUCCESS, caseEntity, null);
+        }
+
+        public static CaseTransitionResult notFound() {
+            return new CaseTransitionResult(Outcome.NOT_FOUND, null, "Case not found");
+        }
+
+        public static CaseTransitionResult rejected(String errorMessage) {
+            return new CaseTransitionResult(Outcome.REJECTED, null, errorMessage);
+        }
+
+        public static CaseTransitionResult conflict(String errorMessage) {
+            return new CaseTransitionResult(Outcome.CONFLICT, null, errorMessage);
+        }
+
+        public Outcome getOutcome() {
+            return outcome;
+        }
+
+        public boolean isSuccess() {
+            return outcome == Outcome.SUCCESS;
+        }
+
+        public Case getCaseEntity() {
+            return caseEntity;
+        }
+
+        public String getErrorMessage() {
+            return errorMessage;
+        }
+    }
+
+}
@@ -0,0 +1,73 @@
+package io.riverrun.workflow;
+
+import io.riverrun.domain.model.Case;
+import io.riverrun.domain.model.Role;
+import io.riverrun.domain.model.User;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Builds the {@link WorkflowContext} for a case transition.
+ * Custom fields form the context data; case attributes and the user's roles are exposed
+ * to guards as well, without shadowing custom fields of the same name, and are stripped
+ * again by {@link #customFields()} before the data is written back.
+ */
+final class CaseWorkflowContext {
+
+    private final WorkflowContext context;
+    private final Map<String, Object> injected = new HashMap<>();
+
+    private CaseWorkflowContext(Case caseEntity, String targetState, String event, User user, UUID tenantId) {
+        Map<String, Object> data = caseEntity.getCustomFields() != null
+                ? new HashMap<>(caseEntity.getCustomFields())
+                : new HashMap<>();
+
+        this.context = WorkflowContext.builder()
+                .entityId(caseEntity.getId())
+                .entityType(CaseTransitionService.ENTITY_TYPE)
+                .currentState(caseEntity.getStatus())
+                .targetState(targetState)
+                .event(event)
+                .data(data)
+                .userId(user != null ? user.getId() : null)
+                .tenantId(tenantId)
+                .build();
+
+        inject("assignedTo", caseEntity.getAssignedTo());
+        inject("priority", caseEntity.getPriority());
+        inject("caseType", caseEntity.getCaseType());
+        inject("dueDate", caseEntity.getDueDate());
+        if (user != null) {
+            List<String> roles = user.getRoles().stream().map(Role::getName).toList();
+            inject("userRoles", roles);
+        }
+    }
+
+    static CaseWorkflowContext create(Case caseEntity, String targetState, String event, User user, UUID tenantId) {
+        return new CaseWorkflowContext(caseEntity, targetState, event, user, tenantId);
+    }
+
+    WorkflowContext getContext() {
+        return context;
+    }
+
+    /**
+     * The context data with injected case attributes removed, i.e. the (possibly updated) custom fields.
+     */
+    Map<String, Object> customFields() {
+        Map<String, Object> fields = new HashMap<>(context.getData());
+        injected.forEach(fields::remove);
+        return fields;
+    }
+
+    private void inject(String key, Object value) {
+        if (value != null && !context.getData().containsKey(key)) {
+            context.setData(key, value);
+            injected.put(key, value);
+        }
+    }
+
+}
@@ -0,0 +1,390 @@
+package io.riverrun.workflow;
+
+import lombok.Getter;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Pre-compiled, immutable form of a {@link WorkflowDefinition}.
+ * States and events are assigned ordinals and each state's transitions are stored in arrays
+ * indexed by state ordinal and searched by target or event ordinal, so memory grows with the
+ * number of transitions rather than states squared. Guards and actions are resolved from their registries
+ * once, at compile time, and bound to their parameters.
+ */
+public final class CompiledWorkflow {
+
+    private static final CompiledTransition[] NO_TRANSITIONS = new CompiledTransition[0];
+
+    @Getter
+    private final WorkflowDefinition definition;
+
+    private final String[] stateNames;
+    private final Map<String, Integer> stateOrdinals;
+    private final Map<String, Integer> eventOrdinals;
+
+    /**
+     * Outgoing transitions per state sorted by target, ties in declaration order, with the sorted
+     * targets alongside for binary search; sized by transitions rather than states squared.
+     */
+    private final CompiledTransition[][] byTarget;
+    private final int[][] targets;
+
+    /** Outgoing transitions declaring an event per state, sorted the same way by event. */
+    private final CompiledTransition[][] byEvent;
+    private final int[][] events;
+
+    /** All outgoing transitions per state, in declaration order. */
+    private final CompiledTransition[][] outgoing;
+
+    /** Outgoing transitions per state that declare an {@code after} or {@code onDue} trigger. */
+    private final CompiledTransition[][] timers;
+
+    @Getter
+    private final WorkflowAnalysis analysis;
+
+    private CompiledWorkflow(WorkflowDefinition definition,
+                             WorkflowGuardRegistry guardRegistry,
+                             WorkflowActionRegistry actionRegistry) {
+        this.definition = definition;
+
+        Map<String, WorkflowDefinition.StateDefinition> states =
+            definition.getStates() != null ? definition.getStates() : Map.of();
+
+        int stateCount = states.size();
+        this.stateNames = new String[stateCount];
+        this.stateOrdinals = new HashMap<>(stateCount * 2);
+        int ordinal = 0;
+        for (String name : states.keySet()) {
+            stateNames[ordinal] = name;
+            stateOrdinals.put(name, ordinal++);
+        }
+
+        this.eventOrdinals = new HashMap<>();
+        for (WorkflowDefinition.StateDefinition state : states.values()) {
+            if (state.getTransitions() == null) {
+                continue;
+            }
+            for (WorkflowDefinition.TransitionDefinition transition : state.getTransitions()) {
+                if (transition.getEvent() != null) {
+                    eventOrdinals.putIfAbsent(transition.getEvent(), eventOrdinals.size());
+                }
+            }
+        }
+
+        this.byTarget = new CompiledTransition[stateCount][];
+        this.targets = new int[stateCount][];
+        this.byEvent = new CompiledTransition[stateCount][];
+        this.events = new int[stateCount][];
+        this.outgoing = new CompiledTransition[stateCount][];
+        this.timers = new CompiledTransition[stateCount][];
+
+        for (int from = 0; from < stateCount; from++) {
+            WorkflowDefinition.StateDefinition state = states.get(stateNames[from]);
+            List<CompiledTransition> compiled = new ArrayList<>();
+            List<CompiledTransition> timed = new ArrayList<>();
+            if (state.getTransitions() != null) {
+                for (WorkflowDefinition.TransitionDefinition transition : state.getTransitions()) {
+                    Integer to = stateOrdinals.get(transition.getTo());
+                    if (to == null) {
+                        // Unknown target; rejected by WorkflowEngine.validate
+                        continue;
+                    }
+                    int event = transition.getEvent() != null ? eventOrdinals.get(transition.getEvent()) : -1;
+                    CompiledTransition ct = new CompiledTransition(transition, from, to, event, compiled.size(),
+                        bindGuards(transition, guardRegistry), bindActions(transition, actionRegistry));
+                    compiled.add(ct);
+                    if (ct.isTimed()) {
+                        timed.add(ct);
+                    }
+                }
+            }
+            outgoing[from] = compiled.toArray(NO_TRANSITIONS);
+            timers[from] = timed.toArray(NO_TRANSITIONS);
+
+            // List.sort is stable, so equal keys keep their declaration order
+            List<CompiledTransition> sorted = new ArrayList<>(compiled);
+            sorted.sort(Comparator.comparingInt(CompiledTransition::getToOrdinal));
+            byTarget[from] = sorted.toArray(NO_TRANSITIONS);
+            targets[from] = sorted.stream().mapToInt(CompiledTransition::getToOrdinal).toArray();
+
+            sorted = new ArrayList<>(compiled);
+            sorted.removeIf(ct -> ct.getEventOrdinal() < 0);
+            sorted.sort(Comparator.comparingInt(CompiledTransition::getEventOrdinal));
+            byEvent[from] = sorted.toArray(NO_TRANSITIONS);
+            events[from] = sorted.stream().mapToInt(CompiledTransition::getEventOrdinal).toArray();
+        }
+
+        this.analysis = new WorkflowAnalysis(this, definition.getInitialState());
+    }
+
+    /**
+     * Compile a workflow definition against the given registries.
+     */
+    public static CompiledWorkflow compile(WorkflowDefinition definition,
+                                           WorkflowGuardRegistry guardRegistry,
+                                           WorkflowActionRegistry actionRegistry) {
+        return new CompiledWorkflow(definition, guardRegistry, actionRegistry);
+    }
+
+    /**
+     * Ordinal of a state, or -1 if the state is not part of this workflow.
+     */
+    public int stateOrdinal(String state) {
+        if (state == null) {
+            return -1;
+        }
+        Integer ordinal = stateOrdinals.get(state);
+        return ordinal != null ? ordinal : -1;
+    }
+
+    /**
+     * Ordinal of an event, or -1 if no transition declares it.
+     */
+    public int eventOrdinal(String event) {
+        if (event == null) {
+            return -1;
+        }
+        Integer ordinal = eventOrdinals.get(event);
+        return ordinal != null ? ordinal : -1;
+    }
+
+    public String stateName(int ordinal) {
+        return stateNames[ordinal];
+    }
+
+    public int stateCount() {
+        return stateNames.length;
+    }
+
+    /**
+     * Find the first transition from {@code from} to {@code to}. When {@code event} is
+     * non-negative, only a transition declaring that event matches.
+     */
+    public CompiledTransition findTransition(int from, int to, int event) {
+        int[] keys = targets[from];
+        CompiledTransition[] candidates = byTarget[from];
+        int first = firstIndex(keys, to);
+        for (int i = first; first >= 0 && i < keys.length && keys[i] == to; i++) {
+            if (event < 0 || candidates[i].eventOrdinal == event) {
+                return candidates[i];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Find the first transition from {@code from} triggered by {@code event}.
+     */
+    public CompiledTransition findTransitionByEvent(int from, int event) {
+        if (event < 0) {
+            return null;
+        }
+        int i = firstIndex(events[from], event);
+        return i >= 0 ? byEvent[from][i] : null;
+    }
+
+    /**
+     * All outgoing transitions of a state in declaration order.
+     */
+    public CompiledTransition[] outgoing(int from) {
+        return outgoing[from];
+    }
+
+    /**
+     * The outgoing transition of a state at {@link CompiledTransition#getIndex()}, or null if there is none.
+     */
+    public CompiledTransition transition(int from, int index) {
+        CompiledTransition[] candidates = outgoing[from];
+        return index >= 0 && index < candidates.length ? candidates[index] : null;
+    }
+
+    /**
+     * Outgoing transitions of a state that fire on a timer, in declaration order.
+     */
+    public CompiledTransition[] timers(int from) {
+        return timers[from];
+    }
+
+    private static BoundGuard[] bindGuards(WorkflowDefinition.TransitionDefinition transition,
+                                           WorkflowGuardRegistry registry) {
+        if (transition.getGuards() == null || transition.getGuards().isEmpty()) {
+            return new BoundGuard[0];
+        }
+        BoundGuard[] bound = new BoundGuard[transition.getGuards().size()];
+        for (int i = 0; i < bound.length; i++) {
+            WorkflowDefinition.GuardDefinition guardDef = transition.getGuards().get(i);
+            WorkflowGuard guard = WorkflowGuardRegistry.EXPRESSION_RULE.equals(guardDef.getRule())
+                ? registry.getExpressionGuard(guardDef.getExpression())
+                : registry.getGuard(guardDef.getRule());
+            bound[i] = new BoundGuard(guardDef.getRule(), guard, guardDef.getParameters(), i);
+        }
+        return bound;
+    }
+
+    private static BoundAction[] bindActions(WorkflowDefinition.TransitionDefinition transition,
+                                             WorkflowActionRegistry registry) {
+        if (transition.getActions() == null || transition.getActions().isEmpty()) {
+            return new BoundAction[0];
+        }
+        BoundAction[] bound = new BoundAction[transition.getActions().size()];
+        for (int i = 0; i < bound.length; i++) {
+            WorkflowDefinition.ActionDefinition actionDef = transition.getActions().get(i);
+            WorkflowAction action = registry.getAction(actionDef.getType());
+            boolean async = actionDef.getAsync() != null ? actionDef.getAsync() : action.isAsync();
+            bound[i] = new BoundAction(actionDef.getType(), action, actionDef.getParameters(), async);
+        }
+        return bound;
+    }
+
+    /**
+     * Position of the first occurrence of a key in a sorted array, or -1 if it is absent.
+     */
+    private static int firstIndex(int[] keys, int key) {
+        int low = 0;
+        int high = keys.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (keys[mid] < key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low < keys.length && keys[low] == key ? low : -1;
+    }
+
+    /**
+     * A transition with resolved ordinals, guards and actions.
+     */
+    @Getter
+    public static final class CompiledTransition {
+        private final WorkflowDefinition.TransitionDefinition definition;
+        private final int fromOrdinal;
+        private final int toOrdinal;
+        private final int eventOrdinal;
+        /** Position among the outgoing transitions of the source state; identifies the transition there. */
+        private final int index;
+        private final BoundGuard[] guards;
+        private final BoundAction[] actions;
+        private final Duration after;
+        private final boolean onDue;
+        private final GuardPlan guardPlan;
+
+        CompiledTransition(WorkflowDefinition.TransitionDefinition definition, int fromOrdinal, int toOrdinal,
+                           int eventOrdinal, int index, BoundGuard[] guards, BoundAction[] actions) {
+            this.definition = definition;
+            this.fromOrdinal = fromOrdinal;
+            this.toOrdinal = toOrdinal;
+            this.eventOrdinal = eventOrdinal;
+            this.index = index;
+            this.guards = guards;
+            this.actions = actions;
+            this.after = definition.getAfter() != null ? Duration.parse(definition.getAfter()) : null;
+            this.onDue = Boolean.TRUE.equals(definition.getOnDue());
+            this.guardPlan = new GuardPlan(guards);
+        }
+
+        public boolean isTimed() {
+            return after != null || onDue;
+        }
+    }
+
+    /**
+     * A guard instance bound to its configured parameters, with its observed timings.
+     */
+    @Getter
+    public static final class BoundGuard {
+        private final String rule;
+        private final WorkflowGuard guard;
+        private final Map<String, Object> parameters;
+        private final int declaredOrder;
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+
+        BoundGuard(String rule, WorkflowGuard guard, Map<String, Object> parameters, int declaredOrder) {
+            this.rule = rule;
+            this.guard = guard;
+            this.parameters = parameters;
+            this.declaredOrder = declaredOrder;
+        }
+
+        public boolean evaluate(WorkflowContext context) {
+            return guard.evaluate(context, parameters);
+        }
+
+        /**
+         * Evaluate and record the duration and outcome.
+         */
+        public boolean evaluateTimed(WorkflowContext context) {
+            long start = System.nanoTime();
+            boolean passed = false;
+            try {
+                passed = guard.evaluate(context, parameters);
+                return passed;
+            } finally {
+                calls.increment();
+                totalNanos.add(System.nanoTime() - start);
+                if (!passed) {
+                    failures.increment();
+                }
+            }
+        }
+
+        public boolean isPure() {
+            return guard.isPure();
+        }
+
+        public boolean isParallelSafe() {
+            return guard.isParallelSafe();
+        }
+
+        public boolean isExpensive() {
+            return guard.getCost() >= WorkflowGuard.COST_EXPENSIVE;
+        }
+
+        /**
+         * Mean evaluation time, or an estimate from the declared cost (1 µs per unit) before any sample exists.
+         */
+        public long getAverageNanos() {
+            long count = calls.sum();
+            return count == 0 ? guard.getCost() * 1_000L : totalNanos.sum() / count;
+        }
+
+        /**
+         * Smoothed share of evaluations that failed.
+         */
+        public double getFailureRate() {
+            return (failures.sum() + 1.0) / (calls.sum() + 2.0);
+        }
+    }
+
+    /**
+     * An action instance bound to its configured parameters.
+     */
+    @Getter
+    public static final class BoundAction {
+        private final String type;
+        private final WorkflowAction action;
+        private final Map<String, Object> parameters;
+        private final boolean async;
+
+        BoundAction(String type, WorkflowAction action, Map<String, Object> parameters, boolean async) {
+            this.type = type;
+            this.action = action;
+            this.parameters = parameters;
+            this.async = async;
+        }
+
+        public void execute(WorkflowContext context) {
+            action.execute(context, parameters);
+        }
+    }
+
+}
@@ -0,0 +1,131 @@
+package io.riverrun.workflow;
+
+import io.riverrun.multitenancy.TenantContext;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Evaluates a transition's guards according to its {@link GuardPlan}.
+ * Expensive pure guards declared parallel-safe run concurrently on virtual threads; as soon as one fails the
+ * others are cancelled, so a transition pays for the slowest guard rather than the sum.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class GuardEvaluator {
+
+    private final TenantContext tenantContext;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    /**
+     * Evaluate the guards of a transition.
+     *
+     * @return The first guard found to fail, or null if all pass
+     */
+    public CompiledWorkflow.BoundGuard evaluate(CompiledWorkflow.CompiledTransition transition,
+                                                WorkflowContext context) {
+        return evaluate(transition, context, true);
+    }
+
+    /**
+     * Evaluate the guards of a transition, optionally skipping impure guards, e.g. when only
+     * checking which transitions are available.
+     *
+     * @return The first guard found to fail, or null if all evaluated guards pass
+     */
+    public CompiledWorkflow.BoundGuard evaluate(CompiledWorkflow.CompiledTransition transition,
+                                                WorkflowContext context, boolean includeImpure) {
+        if (transition.getGuards().length == 0) {
+            return null;
+        }
+        GuardPlan plan = transition.getGuardPlan();
+
+        for (CompiledWorkflow.BoundGuard guard : plan.sequential()) {
+            if (!guard.evaluateTimed(context)) {
+                return guard;
+            }
+        }
+
+        CompiledWorkflow.BoundGuard[] concurrent = plan.concurrent();
+        if (concurrent.length == 1) {
+            if (!concurrent[0].evaluateTimed(context)) {
+                return concurrent[0];
+            }
+        } else if (concurrent.length > 1) {
+            CompiledWorkflow.BoundGuard failed = evaluateConcurrently(concurrent, context);
+            if (failed != null) {
+                return failed;
+            }
+        }
+
+        if (!includeImpure) {
+            return null;
+        }
+        for (CompiledWorkflow.BoundGuard guard : plan.impure()) {
+            if (!guard.evaluateTimed(context)) {
+                return guard;
+            }
+        }
+        return null;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private CompiledWorkflow.BoundGuard evaluateConcurrently(CompiledWorkflow.BoundGuard[] guards,
+                                                             WorkflowContext context) {
+        CompletionService<CompiledWorkflow.BoundGuard> completion = new ExecutorCompletionService<>(executor);
+        List<Future<CompiledWorkflow.BoundGuard>> futures = new ArrayList<>(guards.length);
+        for (CompiledWorkflow.BoundGuard guard : guards) {
+            futures.add(completion.submit(() -> {
+                // Only the tenant id carries over: this thread has no transaction and no Hibernate
+                // session, hence no tenant filter, which is why only parallel-safe guards run here
+                if (context.getTenantId() != null) {
+                    tenantContext.setCurrentTenant(context.getTenantId());
+                }
+                try {
+                    return guard.evaluateTimed(context) ? null : guard;
+                } finally {
+                    tenantContext.clear();
+                }
+            }));
+        }
+
+        try {
+            for (int i = 0; i < guards.length; i++) {
+                CompiledWorkflow.BoundGuard failed = completion.take().get();
+                if (failed != null) {
+                    log.debug("Guard {} failed, cancelling {} pending guards", failed.getRule(), guards.length - i - 1);
+                    return failed;
+                }
+            }
+            return null;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException("Guard evaluation failed", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Guard evaluation interrupted", e);
+        } finally {
+            for (Future<CompiledWorkflow.BoundGuard> future : futures) {
+                future.cancel(true);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,516 @@
+package io.riverrun.workflow;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Compiler for guard expressions such as {@code data.amount > 10000 && 'MANAGER' in userRoles}.
+ * The expression is parsed and type-checked once and turned into a tree of lambdas, so
+ * evaluation neither re-parses the text nor looks at guard parameters.
+ *
+ * <p>Supported: {@code || && !}, {@code == != < <= > >=}, {@code in}, {@code + - * / %},
+ * parentheses, list literals {@code [a, b]}, string ({@code 'x'} or {@code "x"}), number,
+ * {@code true}, {@code false} and {@code null} literals. Identifiers resolve to
+ * {@code currentState}, {@code targetState}, {@code event}, {@code entityType}, {@code userId},
+ * {@code tenantId}, {@code data} or, failing those, a context data key; {@code a.b} reads
+ * nested maps.
+ *
+ * <p>Missing values, including reads through a missing or non-map parent, are {@code null}.
+ * A guard passes only if it evaluates to {@code true}, so a bare {@code data.flag} fails when the
+ * flag is missing, but {@code null} is an ordinary value everywhere else: {@code !data.flag},
+ * {@code data.x != 5} and {@code data.x == null} are true when {@code x} is missing. Ordering
+ * comparisons ({@code < <= > >=}) with a null operand are false, arithmetic with one yields null,
+ * {@code in} a null container is false, and {@code +} with a string renders null as {@code "null"}.
+ */
+final class GuardExpression {
+
+    private GuardExpression() {
+    }
+
+    /**
+     * Compile an expression into a guard.
+     *
+     * @throws IllegalArgumentException if the expression does not parse or type-check
+     */
+    static WorkflowGuard compile(String expression) {
+        if (expression == null || expression.isBlank()) {
+            throw new IllegalArgumentException("Guard expression is empty");
+        }
+        Node root = new Parser(expression).parse();
+        if (!root.type.accepts(Type.BOOLEAN)) {
+            throw new IllegalArgumentException("Guard expression must be boolean, got " + root.type.label
+                    + ": " + expression);
+        }
+        Evaluator evaluator = root.evaluator;
+        return (context, parameters) -> Boolean.TRUE.equals(evaluator.eval(context));
+    }
+
+    @FunctionalInterface
+    private interface Evaluator {
+        Object eval(WorkflowContext context);
+    }
+
+    private enum Type {
+        BOOLEAN("boolean"), NUMBER("number"), STRING("string"), LIST("list"), NULL("null"), ANY("any");
+
+        private final String label;
+
+        Type(String label) {
+            this.label = label;
+        }
+
+        /** Whether a value of this static type may be used where {@code required} is expected. */
+        boolean accepts(Type required) {
+            return this == required || this == ANY || this == NULL;
+        }
+    }
+
+    private record Node(Type type, Evaluator evaluator) {
+    }
+
+    private static final class Parser {
+        private final String text;
+        private final List<Token> tokens;
+        private int index;
+
+        Parser(String text) {
+            this.text = text;
+            this.tokens = tokenize(text);
+        }
+
+        Node parse() {
+            Node node = or();
+            if (peek().kind != Kind.END) {
+                throw error("Unexpected '" + peek().text + "'", peek());
+            }
+            return node;
+        }
+
+        private Node or() {
+            Node left = and();
+            while (match("||")) {
+                Token op = previous();
+                Node right = and();
+                requireType(left, Type.BOOLEAN, op);
+                requireType(right, Type.BOOLEAN, op);
+                Evaluator l = left.evaluator, r = right.evaluator;
+                left = new Node(Type.BOOLEAN, ctx -> truthy(l.eval(ctx)) || truthy(r.eval(ctx)));
+            }
+            return left;
+        }
+
+        private Node and() {
+            Node left = not();
+            while (match("&&")) {
+                Token op = previous();
+                Node right = not();
+                requireType(left, Type.BOOLEAN, op);
+                requireType(right, Type.BOOLEAN, op);
+                Evaluator l = left.evaluator, r = right.evaluator;
+                left = new Node(Type.BOOLEAN, ctx -> truthy(l.eval(ctx)) && truthy(r.eval(ctx)));
+            }
+            return left;
+        }
+
+        private Node not() {
+            if (match("!")) {
+                Token op = previous();
+                Node operand = not();
+                requireType(operand, Type.BOOLEAN, op);
+                Evaluator e = operand.evaluator;
+                return new Node(Type.BOOLEAN, ctx -> !truthy(e.eval(ctx)));
+            }
+            return comparison();
+        }
+
+        private Node comparison() {
+            Node left = additive();
+            if (match("==", "!=", "<", "<=", ">", ">=", "in")) {
+                Token op = previous();
+                Node right = additive();
+                Evaluator l = left.evaluator, r = right.evaluator;
+                switch (op.text) {
+                    case "==":
+                        return new Node(Type.BOOLEAN, ctx -> valueEquals(l.eval(ctx), r.eval(ctx)));
+                    case "!=":
+                        return new Node(Type.BOOLEAN, ctx -> !valueEquals(l.eval(ctx), r.eval(ctx)));
+                    case "in":
+                        if (right.type != Type.LIST && right.type != Type.STRING && right.type != Type.ANY) {
+                            throw error("'in' requires a list or string, got " + right.type.label, op);
+                        }
+                        return new Node(Type.BOOLEAN, ctx -> contains(r.eval(ctx), l.eval(ctx)));
+                    default:
+                        requireOrdered(left, right, op);
+                        String symbol = op.text;
+                        return new Node(Type.BOOLEAN, ctx -> {
+                            Integer cmp = compare(l.eval(ctx), r.eval(ctx));
+                            if (cmp == null) {
+                                return false;
+                            }
+                            return switch (symbol) {
+                                case "<" -> cmp < 0;
+                                case "<=" -> cmp <= 0;
+                                case ">" -> cmp > 0;
+                                default -> cmp >= 0;
+                            };
+                        });
+                }
+            }
+            return left;
+        }
+
+        private Node additive() {
+            Node left = multiplicative();
+            while (match("+", "-")) {
+                Token op = previous();
+                Node right = multiplicative();
+                Evaluator l = left.evaluator, r = right.evaluator;
+                if (op.text.equals("+") && (left.type == Type.STRING || right.type == Type.STRING)) {
+                    left = new Node(Type.STRING, ctx -> String.valueOf(l.eval(ctx)) + r.eval(ctx));
+                    continue;
+                }
+                requireType(left, Type.NUMBER, op);
+                requireType(right, Type.NUMBER, op);
+                char symbol = op.text.charAt(0);
+                left = new Node(Type.NUMBER, ctx -> arithmetic(symbol, l.eval(ctx), r.eval(ctx)));
+            }
+            return left;
+        }
+
+        private Node multiplicative() {
+            Node left = unary();
+            while (match("*", "/", "%")) {
+                Token op = previous();
+                Node right = unary();
+                requireType(left, Type.NUMBER, op);
+                requireType(right, Type.NUMBER, op);
+                Evaluator l = left.evaluator, r = right.evaluator;
+                char symbol = op.text.charAt(0);
+                left = new Node(Type.NUMBER, ctx -> arithmetic(symbol, l.eval(ctx), r.eval(ctx)));
+            }
+            return left;
+        }
+
+        private Node unary() {
+            if (match("-")) {
+                Token op = previous();
+                Node operand = unary();
+                requireType(operand, Type.NUMBER, op);
+                Evaluator e = operand.evaluator;
+                return new Node(Type.NUMBER, ctx -> arithmetic('-', 0L, e.eval(ctx)));
+            }
+            return primary();
+        }
+
+        private Node primary() {
+            Token token = advance();
+            switch (token.kind) {
+                case NUMBER: {
+                    Object value = token.text.contains(".")
+                            ? (Object) Double.parseDouble(token.text)
+                            : (Object) Long.parseLong(token.text);
+                    return new Node(Type.NUMBER, ctx -> value);
+                }
+                case STRING: {
+                    String value = token.value;
+                    return new Node(Type.STRING, ctx -> value);
+                }
+                case IDENTIFIER:
+                    return identifier(token);
+                case SYMBOL:
+                    if (token.text.equals("(")) {
+                        Node inner = or();
+                        expect(")");
+                        return inner;
+                    }
+                    if (token.text.equals("[")) {
+                        return list();
+                    }
+                    break;
+                default:
+                    break;
+            }
+            throw error(token.kind == Kind.END ? "Unexpected end of expression" : "Unexpected '" + token.text + "'",
+                    token);
+        }
+
+        private Node list() {
+            List<Evaluator> elements = new ArrayList<>();
+            if (!match("]")) {
+                do {
+                    elements.add(or().evaluator);
+                } while (match(","));
+                expect("]");
+            }
+            return new Node(Type.LIST, ctx -> {
+                List<Object> values = new ArrayList<>(elements.size());
+                for (Evaluator element : elements) {
+                    values.add(element.eval(ctx));
+                }
+                return values;
+            });
+        }
+
+        private Node identifier(Token token) {
+            switch (token.text) {
+                case "true":
+                    return new Node(Type.BOOLEAN, ctx -> Boolean.TRUE);
+                case "false":
+                    return new Node(Type.BOOLEAN, ctx -> Boolean.FALSE);
+                case "null":
+                    return new Node(Type.NULL, ctx -> null);
+                default:
+                    break;
+            }
+
+            List<String> path = new ArrayList<>();
+            path.add(token.text);
+            while (match(".")) {
+                Token segment = advance();
+                if (segment.kind != Kind.IDENTIFIER) {
+                    throw error("Expected field name after '.'", segment);
+                }
+                path.add(segment.text);
+            }
+
+            Evaluator root;
+            int next = 1;
+            switch (path.get(0)) {
+                case "currentState" -> root = WorkflowContext::getCurrentState;
+                case "targetState" -> root = WorkflowContext::getTargetState;
+                case "event" -> root = WorkflowContext::getEvent;
+                case "entityType" -> root = WorkflowContext::getEntityType;
+                case "userId" -> root = WorkflowContext::getUserId;
+                case "tenantId" -> root = WorkflowContext::getTenantId;
+                case "data" -> {
+                    if (path.size() == 1) {
+                        root = WorkflowContext::getData;
+                    } else {
+                        String key = path.get(1);
+                        root = ctx -> ctx.getData(key);
+                        next = 2;
+                    }
+                }
+                default -> {
+                    String key = path.get(0);
+                    root = ctx -> ctx.getData(key);
+                }
+            }
+
+            Evaluator evaluator = root;
+            for (int i = next; i < path.size(); i++) {
+                Evaluator parent = evaluator;
+                String key = path.get(i);
+                evaluator = ctx -> parent.eval(ctx) instanceof Map<?, ?> map ? map.get(key) : null;
+            }
+            return new Node(Type.ANY, evaluator);
+        }
+
+        private void requireType(Node node, Type type, Token op) {
+            if (!node.type.accepts(type)) {
+                throw error("'" + op.text + "' requires " + type.label + ", got " + node.type.label, op);
+            }
+        }
+
+        private void requireOrdered(Node left, Node right, Token op) {
+            for (Node node : List.of(left, right)) {
+                if (node.type == Type.BOOLEAN || node.type == Type.LIST) {
+                    throw error("'" + op.text + "' cannot compare " + node.type.label, op);
+                }
+            }
+            if (left.type != Type.ANY && right.type != Type.ANY && left.type != Type.NULL
+                    && right.type != Type.NULL && left.type != right.type) {
+                throw error("'" + op.text + "' cannot compare " + left.type.label + " with " + right.type.label, op);
+            }
+        }
+
+        private boolean match(String... symbols) {
+            Token token = peek();
+            if (token.kind == Kind.STRING || token.kind == Kind.END) {
+                return false;
+            }
+            for (String symbol : symbols) {
+                if (token.text.equals(symbol)) {
+                    index++;
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private void expect(String symbol) {
+            if (!match(symbol)) {
+                throw error("Expected '" + symbol + "'", peek());
+            }
+        }
+
+        private Token peek() {
+            return tokens.get(index);
+        }
+
+        private Token previous() {
+            return tokens.get(index - 1);
+        }
+
+        private Token advance() {
+            Token token = tokens.get(index);
+            if (token.kind != Kind.END) {
+                index++;
+            }
+            return token;
+        }
+
+        private IllegalArgumentException error(String message, Token token) {
+            return new IllegalArgumentException(message + " at position " + (token.position + 1) + ": " + text);
+        }
+    }
+
+    private enum Kind {
+        IDENTIFIER, NUMBER, STRING, SYMBOL, END
+    }
+
+    private record Token(Kind kind, String text, String value, int position) {
+    }
+
+    private static List<Token> tokenize(String text) {
+        List<Token> tokens = new ArrayList<>();
+        int i = 0;
+        while (i < text.length()) {
+            char c = text.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (Character.isJavaIdentifierStart(c)) {
+                int start = i;
+                while (i < text.length() && Character.isJavaIdentifierPart(text.charAt(i))) {
+                    i++;
+                }
+                tokens.add(new Token(Kind.IDENTIFIER, text.substring(start, i), null, start));
+            } else if (Character.isDigit(c)) {
+                int start = i;
+                while (i < text.length() && (Character.isDigit(text.charAt(i)) || text.charAt(i) == '.')) {
+                    i++;
+                }
+                String number = text.substring(start, i);
+                if (number.indexOf('.') != number.lastIndexOf('.') || number.endsWith(".")) {
+                    throw new IllegalArgumentException("Invalid number '" + number + "' at position "
+                            + (start + 1) + ": " + text);
+                }
+                tokens.add(new Token(Kind.NUMBER, number, null, start));
+            } else if (c == '\'' || c == '"') {
+                int start = i++;
+                StringBuilder value = new StringBuilder();
+                while (i < text.length() && text.charAt(i) != c) {
+                    if (text.charAt(i) == '\\' && i + 1 < text.length()) {
+                        i++;
+                    }
+                    value.append(text.charAt(i++));
+                }
+                if (i >= text.length()) {
+                    throw new IllegalArgumentException("Unterminated string at position " + (start + 1) + ": " + text);
+                }
+                i++;
+                tokens.add(new Token(Kind.STRING, text.substring(start, i), value.toString(), start));
+            } else {
+                String two = i + 1 < text.length() ? text.substring(i, i + 2) : "";
+                if (two.equals("&&") || two.equals("||") || two.equals("==") || two.equals("!=")
+                        || two.equals("<=") || two.equals(">=")) {
+                    tokens.add(new Token(Kind.SYMBOL, two, null, i));
+                    i += 2;
+                } else if ("()[],.!<>+-*/%".indexOf(c) >= 0) {
+                    tokens.add(new Token(Kind.SYMBOL, String.valueOf(c), null, i));
+                    i++;
+                } else {
+                    throw new IllegalArgumentException("Unexpected character '" + c + "' at position " + (i + 1)
+                            + ": " + text);
+                }
+            }
+        }
+        tokens.add(new Token(Kind.END, "", null, text.length()));
+        return tokens;
+    }
+
+    private static boolean truthy(Object value) {
+        return Boolean.TRUE.equals(value);
+    }
+
+    private static boolean valueEquals(Object left, Object right) {
+        if (left instanceof Number l && right instanceof Number r) {
+            return compareNumbers(l, r) == 0;
+        }
+        if (left != null && right != null && left.getClass() != right.getClass()
+                && (left instanceof String || right instanceof String)) {
+            // e.g. a UUID or enum compared against its string form
+            return left.toString().equals(right.toString());
+        }
+        return Objects.equals(left, right);
+    }
+
+    private static boolean contains(Object container, Object value) {
+        if (container instanceof Collection<?> collection) {
+            for (Object element : collection) {
+                if (valueEquals(element, value)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        if (container instanceof String string && value != null) {
+            return string.contains(value.toString());
+        }
+        return false;
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private static Integer compare(Object left, Object right) {
+        if (left instanceof Number l && right instanceof Number r) {
+            return compareNumbers(l, r);
+        }
+        if (left instanceof Comparable l && right != null && left.getClass() == right.getClass()) {
+            return l.compareTo(right);
+        }
+        if (left instanceof String || right instanceof String) {
+            return left != null && right != null ? left.toString().compareTo(right.toString()) : null;
+        }
+        return null;
+    }
+
+    private static int compareNumbers(Number left, Number right) {
+        if (isIntegral(left) && isIntegral(right)) {
+            return Long.compare(left.longValue(), right.longValue());
+        }
+        return Double.compare(left.doubleValue(), right.doubleValue());
+    }
+
+    private static Object arithmetic(char op, Object left, Object right) {
+        if (!(left instanceof Number l) || !(right instanceof Number r)) {
+            return null;
+        }
+        if (isIntegral(l) && isIntegral(r)) {
+            long a = l.longValue(), b = r.longValue();
+            return switch (op) {
+                case '+' -> a + b;
+                case '-' -> a - b;
+                case '*' -> a * b;
+                case '/' -> b != 0 ? a / b : null;
+                default -> b != 0 ? a % b : null;
+            };
+        }
+        double a = l.doubleValue(), b = r.doubleValue();
+        return switch (op) {
+            case '+' -> a + b;
+            case '-' -> a - b;
+            case '*' -> a * b;
+            case '/' -> a / b;
+            default -> a % b;
+        };
+    }
+
+    private static boolean isIntegral(Number number) {
+        return number instanceof Long || number instanceof Integer || number instanceof Short
+                || number instanceof Byte;
+    }
+
+}
@@ -0,0 +1,86 @@
+package io.riverrun.workflow;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Evaluation order of a transition's guards.
+ * Pure guards run first, one after another, ordered so that guards that are fast and
+ * likely to fail come first; the order is recomputed from observed timings on one in
+ * {@value #REORDER_INTERVAL} evaluations, picked at random per thread so that evaluations
+ * share no counter. Expensive pure guards that are parallel-safe run concurrently afterwards,
+ * and impure guards run last, in declaration order.
+ */
+final class GuardPlan {
+
+    private static final int REORDER_INTERVAL = 256;
+
+    private static final CompiledWorkflow.BoundGuard[] NONE = new CompiledWorkflow.BoundGuard[0];
+
+    private volatile CompiledWorkflow.BoundGuard[] sequential;
+    private final CompiledWorkflow.BoundGuard[] concurrent;
+    private final CompiledWorkflow.BoundGuard[] impure;
+
+    GuardPlan(CompiledWorkflow.BoundGuard[] guards) {
+        List<CompiledWorkflow.BoundGuard> ordered = new ArrayList<>();
+        List<CompiledWorkflow.BoundGuard> expensive = new ArrayList<>();
+        List<CompiledWorkflow.BoundGuard> sideEffecting = new ArrayList<>();
+        for (CompiledWorkflow.BoundGuard guard : guards) {
+            if (!guard.isPure()) {
+                sideEffecting.add(guard);
+            } else if (guard.isExpensive() && guard.isParallelSafe()) {
+                expensive.add(guard);
+            } else {
+                ordered.add(guard);
+            }
+        }
+        this.sequential = byRank(ordered.toArray(NONE));
+        this.concurrent = expensive.toArray(NONE);
+        this.impure = sideEffecting.toArray(NONE);
+    }
+
+    /**
+     * Pure guards not run concurrently, in their current order; periodically re-sorted by observed cost.
+     */
+    CompiledWorkflow.BoundGuard[] sequential() {
+        CompiledWorkflow.BoundGuard[] current = sequential;
+        if (current.length > 1 && ThreadLocalRandom.current().nextInt(REORDER_INTERVAL) == 0) {
+            sequential = byRank(current);
+        }
+        return current;
+    }
+
+    /**
+     * Sort by expected time spent per failure found, lowest first. Ranks are snapshotted
+     * because the timings keep changing while other threads evaluate.
+     */
+    private static CompiledWorkflow.BoundGuard[] byRank(CompiledWorkflow.BoundGuard[] guards) {
+        Ranked[] ranked = new Ranked[guards.length];
+        for (int i = 0; i < guards.length; i++) {
+            CompiledWorkflow.BoundGuard guard = guards[i];
+            ranked[i] = new Ranked(guard, guard.getAverageNanos() / guard.getFailureRate());
+        }
+        Arrays.sort(ranked, Comparator.comparingDouble(Ranked::rank)
+            .thenComparingInt(r -> r.guard().getDeclaredOrder()));
+        CompiledWorkflow.BoundGuard[] sorted = new CompiledWorkflow.BoundGuard[guards.length];
+        for (int i = 0; i < ranked.length; i++) {
+            sorted[i] = ranked[i].guard();
+        }
+        return sorted;
+    }
+
+    private record Ranked(CompiledWorkflow.BoundGuard guard, double rank) {
+    }
+
+    CompiledWorkflow.BoundGuard[] concurrent() {
+        return concurrent;
+    }
+
+    CompiledWorkflow.BoundGuard[] impure() {
+        return impure;
+    }
+
+}
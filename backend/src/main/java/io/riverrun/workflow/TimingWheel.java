@@ -0,0 +1,122 @@
+package io.riverrun.workflow;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical hashed timing wheel.
+ * Level 0 has {@code wheelSize} slots of {@code tickMillis} each; every higher level has the same
+ * number of slots, each spanning a full revolution of the level below. Timers are placed on the
+ * lowest level whose span covers them and cascade down as the wheel turns, so scheduling and
+ * expiry are O(1) per timer regardless of how many are pending. Timers beyond the top level's
+ * span wait in an overflow list that is re-sorted once per top-level revolution.
+ * A timer fires on the first {@link #advance} after its tick has fully elapsed.
+ */
+final class TimingWheel<T> {
+
+    private final long tickMillis;
+    private final int wheelSize;
+    private final int levels;
+    private final long[] unitTicks;
+    private final ArrayDeque<Timer<T>>[][] slots;
+    private final List<Timer<T>> overflow = new ArrayList<>();
+    private long currentTick;
+    private int size;
+
+    @SuppressWarnings("unchecked")
+    TimingWheel(long tickMillis, int wheelSize, int levels, long startMillis) {
+        this.tickMillis = tickMillis;
+        this.wheelSize = wheelSize;
+        this.levels = levels;
+        this.unitTicks = new long[levels + 1];
+        unitTicks[0] = 1;
+        for (int level = 1; level <= levels; level++) {
+            unitTicks[level] = unitTicks[level - 1] * wheelSize;
+        }
+        this.slots = new ArrayDeque[levels][wheelSize];
+        for (int level = 0; level < levels; level++) {
+            for (int slot = 0; slot < wheelSize; slot++) {
+                slots[level][slot] = new ArrayDeque<>();
+            }
+        }
+        this.currentTick = startMillis / tickMillis - 1;
+    }
+
+    /**
+     * Schedule an item. Items already due fire on the next advance.
+     */
+    synchronized void schedule(T item, long expirationMillis) {
+        insert(new Timer<>(item, expirationMillis), currentTick + 1);
+        size++;
+    }
+
+    /**
+     * Advance the wheel to {@code nowMillis}, handing every expired item to {@code expired}.
+     */
+    synchronized void advance(long nowMillis, Consumer<T> expired) {
+        long lastCompleteTick = nowMillis / tickMillis - 1;
+        while (currentTick < lastCompleteTick) {
+            currentTick++;
+            cascade(currentTick);
+            ArrayDeque<Timer<T>> slot = slots[0][(int) (currentTick % wheelSize)];
+            Timer<T> timer;
+            while ((timer = slot.poll()) != null) {
+                size--;
+                expired.accept(timer.item);
+            }
+        }
+    }
+
+    synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Place a timer relative to {@code baseTick}, the earliest tick that has not fired yet.
+     */
+    private void insert(Timer<T> timer, long baseTick) {
+        long tick = Math.max(timer.expirationMillis / tickMillis, baseTick);
+        long delta = tick - baseTick;
+        for (int level = 0; level < levels; level++) {
+            if (delta < unitTicks[level + 1]) {
+                slots[level][(int) ((tick / unitTicks[level]) % wheelSize)].add(timer);
+                return;
+            }
+        }
+        overflow.add(timer);
+    }
+
+    /**
+     * Move timers down from every level whose slot boundary is crossed at {@code tick}, highest first.
+     */
+    private void cascade(long tick) {
+        if (tick % unitTicks[levels] == 0 && !overflow.isEmpty()) {
+            List<Timer<T>> pending = new ArrayList<>(overflow);
+            overflow.clear();
+            pending.forEach(timer -> insert(timer, tick));
+        }
+        for (int level = levels - 1; level >= 1; level--) {
+            if (tick % unitTicks[level] != 0) {
+                continue;
+            }
+            ArrayDeque<Timer<T>> slot = slots[level][(int) ((tick / unitTicks[level]) % wheelSize)];
+            Timer<T> timer;
+            while ((timer = slot.poll()) != null) {
+                insert(timer, tick);
+            }
+        }
+    }
+
+    private static final class Timer<T> {
+        private final T item;
+        private final long expirationMillis;
+
+        private Timer(T item, long expirationMillis) {
+            this.item = item;
+            this.expirationMillis = expirationMillis;
+        }
+    }
+
+}
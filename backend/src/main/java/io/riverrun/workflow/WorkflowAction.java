@@ -16,4 +16,29 @@ public interface WorkflowAction {
      */
     void execute(WorkflowContext context, Map<String, Object> parameters);
 
+    /**
+     * Whether the action runs after the transition commits, from the outbox, instead of inline.
+     * Async actions must not rely on changes to the context being written back.
+     */
+    default boolean isAsync() {
+        return false;
+    }
+
+    /**
+     * Mark an action as asynchronous.
+     */
+    static WorkflowAction async(WorkflowAction action) {
+        return new WorkflowAction() {
+            @Override
+            public void execute(WorkflowContext context, Map<String, Object> parameters) {
+                action.execute(context, parameters);
+            }
+
+            @Override
+            public boolean isAsync() {
+                return true;
+            }
+        };
+    }
+
 }
@@ -0,0 +1,86 @@
+package io.riverrun.workflow;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Transactional outbox for asynchronous workflow actions.
+ * Callers enqueue inside the transaction that writes the state change, so an action is
+ * recorded if and only if the transition commits; {@link WorkflowOutboxDispatcher} drains it.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class WorkflowActionOutbox {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO workflow_action_outbox (id, tenant_id, entity_type, entity_id, action_type, " +
+            "parameters, context, status, attempts, next_attempt_at, created_at, updated_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?::jsonb, ?::jsonb, 'PENDING', 0, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Record the deferred actions of one transition.
+     */
+    public void enqueue(UUID tenantId, WorkflowContext context, List<CompiledWorkflow.BoundAction> actions) {
+        if (actions.isEmpty()) {
+            return;
+        }
+        enqueueAll(tenantId, actions.stream().map(action -> new PendingAction(context, action)).toList());
+    }
+
+    /**
+     * Record deferred actions of many transitions with a single JDBC batch.
+     */
+    public void enqueueAll(UUID tenantId, List<PendingAction> pending) {
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(INSERT_SQL, pending, pending.size(), (ps, item) -> {
+            WorkflowContext context = item.context();
+            ps.setObject(1, UUID.randomUUID());
+            ps.setObject(2, tenantId);
+            ps.setString(3, context.getEntityType());
+            ps.setObject(4, context.getEntityId());
+            ps.setString(5, item.action().getType());
+            ps.setString(6, toJson(item.action().getParameters()));
+            ps.setString(7, toJson(context));
+            ps.setTimestamp(8, now);
+            ps.setTimestamp(9, now);
+            ps.setTimestamp(10, now);
+        });
+        log.debug("Enqueued {} async workflow actions", pending.size());
+    }
+
+    private String toJson(Object value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Cannot serialize workflow action payload", e);
+        }
+    }
+
+    /**
+     * An async action together with the context of the transition that produced it.
+     */
+    public record PendingAction(WorkflowContext context, CompiledWorkflow.BoundAction action) {
+    }
+
+}
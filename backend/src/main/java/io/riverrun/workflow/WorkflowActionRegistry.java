@@ -1,30 +1,63 @@
 package io.riverrun.workflow;
 
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.context.ApplicationContext;
 import org.springframework.stereotype.Component;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
 
 /**
  * Registry for workflow actions. Actions are registered by type and can be looked up.
+ * Lookups read an immutable snapshot that registration replaces (copy-on-write), so readers
+ * never lock; {@link WorkflowAction} beans are registered under their bean name at startup.
  */
 @Component
 @Slf4j
-public class WorkflowActionRegistry {
+public class WorkflowActionRegistry implements SmartInitializingSingleton {
 
-    private final Map<String, WorkflowAction> actions = new HashMap<>();
+    private final ApplicationContext applicationContext;
+    private volatile Map<String, WorkflowAction> actions = Map.of();
+    private final Map<String, WorkflowAction> fallbacks = new ConcurrentHashMap<>();
+    private volatile boolean started;
 
-    public WorkflowActionRegistry() {
+    public WorkflowActionRegistry(ApplicationContext applicationContext) {
+        this.applicationContext = applicationContext;
         registerDefaultActions();
     }
 
     /**
-     * Register an action with a type name.
+     * Register action beans from the application context; a bean overrides a default of the same type.
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        Map<String, WorkflowAction> beans = applicationContext.getBeansOfType(WorkflowAction.class);
+        if (!beans.isEmpty()) {
+            log.info("Registering action beans: {}", beans.keySet());
+            update(snapshot -> snapshot.putAll(beans));
+        }
+        started = true;
+    }
+
+    /**
+     * Register an action with a type name. Safe to call at runtime: readers keep using the
+     * previous snapshot until the new one is published, and compiled workflows are invalidated
+     * so they pick the action up.
      */
     public void register(String type, WorkflowAction action) {
         log.debug("Registering action: {}", type);
-        actions.put(type, action);
+        update(snapshot -> snapshot.put(type, action));
+    }
+
+    /**
+     * Remove an action; transitions using it run a no-op from then on.
+     */
+    public void unregister(String type) {
+        log.debug("Unregistering action: {}", type);
+        update(snapshot -> snapshot.remove(type));
     }
 
     /**
@@ -33,12 +66,28 @@ public class WorkflowActionRegistry {
     public WorkflowAction getAction(String type) {
         WorkflowAction action = actions.get(type);
         if (action == null) {
-            log.warn("Action not found: {}", type);
-            return (context, params) -> log.warn("No-op action executed for: {}", type);
+            return fallbacks.computeIfAbsent(type, missing -> {
+                log.warn("Action not found: {}", missing);
+                return (context, params) -> log.warn("No-op action executed for: {}", missing);
+            });
         }
         return action;
     }
 
+    public boolean contains(String type) {
+        return actions.containsKey(type);
+    }
+
+    private synchronized void update(Consumer<Map<String, WorkflowAction>> change) {
+        Map<String, WorkflowAction> snapshot = new HashMap<>(actions);
+        change.accept(snapshot);
+        actions = Map.copyOf(snapshot);
+        fallbacks.clear();
+        if (started) {
+            applicationContext.publishEvent(new WorkflowRegistryChangedEvent("action"));
+        }
+    }
+
     /**
      * Register default actions.
      */
@@ -60,19 +109,19 @@ public class WorkflowActionRegistry {
         });
 
         // Send notification (placeholder)
-        register("sendNotification", (context, params) -> {
+        register("sendNotification", WorkflowAction.async((context, params) -> {
             String recipient = params != null ? (String) params.get("recipient") : null;
             String template = params != null ? (String) params.get("template") : null;
             log.info("Sending notification to {} using template {}", recipient, template);
             // TODO: Integrate with notification service
-        });
+        }));
 
         // Create task (placeholder)
-        register("createTask", (context, params) -> {
+        register("createTask", WorkflowAction.async((context, params) -> {
             String taskType = params != null ? (String) params.get("taskType") : "default";
             log.info("Creating task of type: {}", taskType);
             // TODO: Integrate with task service
-        });
+        }));
     }
 
 }
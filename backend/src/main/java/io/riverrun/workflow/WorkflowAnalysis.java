@@ -0,0 +1,284 @@
+package io.riverrun.workflow;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Static analysis of a compiled workflow graph, computed once at compile time.
+ * Finds states unreachable from the initial state, states that can never reach a final state
+ * (one without outgoing transitions), ambiguous transitions sharing a (from, event) pair and
+ * cycles that need no guard to go round. Reachability between any two states is kept as a
+ * bitset per strongly connected component, so {@link #canReach} is O(1).
+ */
+public final class WorkflowAnalysis {
+
+    private final boolean[] terminal;
+    private final int[] component;
+    private final BitSet[] reachByComponent;
+    private final List<String> unreachableStates = new ArrayList<>();
+    private final List<String> stuckStates = new ArrayList<>();
+    private final List<String> ambiguousTransitions = new ArrayList<>();
+    private final List<List<String>> unguardedCycles = new ArrayList<>();
+    private final List<List<String>> automaticCycles = new ArrayList<>();
+
+    WorkflowAnalysis(CompiledWorkflow workflow, String initialState) {
+        int n = workflow.stateCount();
+
+        this.terminal = new boolean[n];
+        for (int state = 0; state < n; state++) {
+            terminal[state] = workflow.outgoing(state).length == 0;
+        }
+
+        int[][] edges = edges(workflow, transition -> true);
+        Components components = components(edges);
+        this.component = components.of;
+        this.reachByComponent = closure(edges, components);
+
+        // Unreachable from the initial state
+        int initial = workflow.stateOrdinal(initialState);
+        for (int state = 0; state < n; state++) {
+            if (initial >= 0 && state != initial && !canReach(initial, state)) {
+                unreachableStates.add(workflow.stateName(state));
+            }
+        }
+
+        // Cannot reach any final state
+        BitSet finals = new BitSet(n);
+        for (int state = 0; state < n; state++) {
+            if (terminal[state]) {
+                finals.set(state);
+            }
+        }
+        for (int state = 0; state < n; state++) {
+            if (!terminal[state] && !reachByComponent[component[state]].intersects(finals)) {
+                stuckStates.add(workflow.stateName(state));
+            }
+        }
+
+        // Several transitions on one event out of the same state; only the first is ever taken
+        for (int state = 0; state < n; state++) {
+            Map<String, Integer> events = new HashMap<>();
+            for (CompiledWorkflow.CompiledTransition transition : workflow.outgoing(state)) {
+                String event = transition.getDefinition().getEvent();
+                if (event != null && events.merge(event, 1, Integer::sum) == 2) {
+                    ambiguousTransitions.add(workflow.stateName(state) + " on " + event);
+                }
+            }
+        }
+
+        cycles(workflow, edges(workflow, transition -> transition.getGuards().length == 0), unguardedCycles);
+        cycles(workflow, edges(workflow, transition -> transition.getGuards().length == 0 && transition.isTimed()),
+            automaticCycles);
+    }
+
+    /**
+     * Whether {@code to} can be reached from {@code from} by one or more transitions, ignoring guards.
+     */
+    public boolean canReach(int from, int to) {
+        return reachByComponent[component[from]].get(to);
+    }
+
+    /**
+     * Whether a state has no outgoing transitions.
+     */
+    public boolean isTerminal(int state) {
+        return terminal[state];
+    }
+
+    /** States that cannot be reached from the initial state. */
+    public List<String> getUnreachableStates() {
+        return unreachableStates;
+    }
+
+    /** Non-final states from which no final state can be reached; cases entering them never finish. */
+    public List<String> getStuckStates() {
+        return stuckStates;
+    }
+
+    /** "state on event" pairs declared by more than one transition. */
+    public List<String> getAmbiguousTransitions() {
+        return ambiguousTransitions;
+    }
+
+    /** Cycles made only of unguarded transitions. */
+    public List<List<String>> getUnguardedCycles() {
+        return unguardedCycles;
+    }
+
+    /** Cycles made only of unguarded timer transitions; cases in them loop forever on their own. */
+    public List<List<String>> getAutomaticCycles() {
+        return automaticCycles;
+    }
+
+    /**
+     * Findings that make a definition unfit to deploy.
+     */
+    public List<String> getErrors() {
+        List<String> errors = new ArrayList<>();
+        if (!unreachableStates.isEmpty()) {
+            errors.add("Unreachable states: " + unreachableStates);
+        }
+        if (!ambiguousTransitions.isEmpty()) {
+            errors.add("Ambiguous transitions: " + ambiguousTransitions);
+        }
+        for (List<String> cycle : automaticCycles) {
+            errors.add("Timer transitions loop without guards: " + cycle);
+        }
+        return errors;
+    }
+
+    /**
+     * Findings worth reviewing that may be intentional.
+     */
+    public List<String> getWarnings() {
+        List<String> warnings = new ArrayList<>();
+        if (!stuckStates.isEmpty()) {
+            warnings.add("States that cannot reach a final state: " + stuckStates);
+        }
+        for (List<String> cycle : unguardedCycles) {
+            warnings.add("Cycle without guards: " + cycle);
+        }
+        return warnings;
+    }
+
+    private static int[][] edges(CompiledWorkflow workflow, Predicate<CompiledWorkflow.CompiledTransition> include) {
+        int[][] edges = new int[workflow.stateCount()][];
+        for (int state = 0; state < edges.length; state++) {
+            edges[state] = Arrays.stream(workflow.outgoing(state))
+                .filter(include)
+                .mapToInt(CompiledWorkflow.CompiledTransition::getToOrdinal)
+                .distinct()
+                .toArray();
+        }
+        return edges;
+    }
+
+    private static void cycles(CompiledWorkflow workflow, int[][] edges, List<List<String>> into) {
+        Components components = components(edges);
+        List<List<String>> members = new ArrayList<>();
+        for (int c = 0; c < components.count; c++) {
+            members.add(new ArrayList<>());
+        }
+        for (int state = 0; state < edges.length; state++) {
+            members.get(components.of[state]).add(workflow.stateName(state));
+        }
+        for (int c = 0; c < components.count; c++) {
+            if (components.cyclic[c]) {
+                into.add(members.get(c));
+            }
+        }
+    }
+
+    /**
+     * Transitive closure per component. Components come out of Tarjan's algorithm in reverse
+     * topological order, so every successor component is complete before it is needed.
+     */
+    private static BitSet[] closure(int[][] edges, Components components) {
+        BitSet[] reach = new BitSet[components.count];
+        List<List<Integer>> members = new ArrayList<>();
+        for (int c = 0; c < components.count; c++) {
+            reach[c] = new BitSet(edges.length);
+            members.add(new ArrayList<>());
+        }
+        for (int state = 0; state < edges.length; state++) {
+            members.get(components.of[state]).add(state);
+        }
+        for (int c = 0; c < components.count; c++) {
+            for (int state : members.get(c)) {
+                if (components.cyclic[c]) {
+                    reach[c].set(state);
+                }
+                for (int to : edges[state]) {
+                    reach[c].set(to);
+                    if (components.of[to] != c) {
+                        reach[c].or(reach[components.of[to]]);
+                    }
+                }
+            }
+        }
+        return reach;
+    }
+
+    /**
+     * Strongly connected components (iterative Tarjan, so large workflows cannot overflow the stack).
+     */
+    private static Components components(int[][] edges) {
+        int n = edges.length;
+        int[] index = new int[n];
+        int[] low = new int[n];
+        int[] edgePosition = new int[n];
+        boolean[] onStack = new boolean[n];
+        int[] stack = new int[n];
+        int[] callStack = new int[n];
+        int[] of = new int[n];
+        boolean[] cyclic = new boolean[n];
+        Arrays.fill(index, -1);
+        int stackSize = 0;
+        int counter = 0;
+        int count = 0;
+
+        for (int root = 0; root < n; root++) {
+            if (index[root] >= 0) {
+                continue;
+            }
+            int depth = 0;
+            callStack[depth++] = root;
+            index[root] = low[root] = counter++;
+            stack[stackSize++] = root;
+            onStack[root] = true;
+
+            while (depth > 0) {
+                int v = callStack[depth - 1];
+                if (edgePosition[v] < edges[v].length) {
+                    int w = edges[v][edgePosition[v]++];
+                    if (index[w] < 0) {
+                        index[w] = low[w] = counter++;
+                        stack[stackSize++] = w;
+                        onStack[w] = true;
+                        callStack[depth++] = w;
+                    } else if (onStack[w]) {
+                        low[v] = Math.min(low[v], index[w]);
+                    }
+                    continue;
+                }
+
+                depth--;
+                if (depth > 0) {
+                    int parent = callStack[depth - 1];
+                    low[parent] = Math.min(low[parent], low[v]);
+                }
+                if (low[v] == index[v]) {
+                    int size = 0;
+                    int w;
+                    do {
+                        w = stack[--stackSize];
+                        onStack[w] = false;
+                        of[w] = count;
+                        size++;
+                    } while (w != v);
+                    cyclic[count] = size > 1 || contains(edges[v], v);
+                    count++;
+                }
+            }
+        }
+        return new Components(of, Arrays.copyOf(cyclic, count), count);
+    }
+
+    private static boolean contains(int[] values, int value) {
+        for (int candidate : values) {
+            if (candidate == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private record Components(int[] of, boolean[] cyclic, int count) {
+    }
+
+}
@@ -20,6 +20,7 @@ public class WorkflowDefinition {
     private String id;
     private String name;
     private String description;
+    private String version;
     private String initialState;
     private Map<String, StateDefinition> states;
 
@@ -42,6 +43,10 @@ public class WorkflowDefinition {
         private String from;
         private String to;
         private String event;
+        /** ISO-8601 duration after entering {@code from} at which the transition fires on its own, e.g. PT48H. */
+        private String after;
+        /** Fire the transition when the entity's due date passes. */
+        private Boolean onDue;
         private List<GuardDefinition> guards;
         private List<ActionDefinition> actions;
     }
@@ -52,6 +57,8 @@ public class WorkflowDefinition {
     @AllArgsConstructor
     public static class GuardDefinition {
         private String rule;
+        /** Expression evaluated by the {@code expr} rule, e.g. {@code data.amount > 10000}. */
+        private String expression;
         private Map<String, Object> parameters;
     }
 
@@ -62,6 +69,7 @@ public class WorkflowDefinition {
     public static class ActionDefinition {
         private String type;
         private Map<String, Object> parameters;
+        private Boolean async;
     }
 
 }
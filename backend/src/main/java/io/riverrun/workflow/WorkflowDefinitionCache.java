@@ -0,0 +1,158 @@
+package io.riverrun.workflow;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.riverrun.domain.model.WorkflowDefinitionEntity;
+import io.riverrun.domain.repository.WorkflowDefinitionRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Tenant-scoped cache of parsed, validated and compiled workflow definitions.
+ * Entries are keyed by (tenantId, workflowId, version) and evicted by size.
+ * A second, small cache maps (tenantId, workflowId) to the currently active version.
+ * {@link #invalidate} only reaches this instance, so both caches also expire after
+ * {@code ttl-seconds} to pick up edits and activations made through other instances.
+ */
+@Component
+@Slf4j
+public class WorkflowDefinitionCache {
+
+    private final WorkflowDefinitionRepository repository;
+    private final WorkflowEngine workflowEngine;
+    private final ObjectMapper objectMapper;
+
+    private final Cache<Key, CompiledWorkflow> definitions;
+    private final Cache<ActiveKey, String> activeVersions;
+
+    public WorkflowDefinitionCache(WorkflowDefinitionRepository repository,
+                                   WorkflowEngine workflowEngine,
+                                   ObjectMapper objectMapper,
+                                   @Value("${riverrun.workflow.cache.max-size:1000}") long maxSize,
+                                   @Value("${riverrun.workflow.cache.ttl-seconds:60}") long ttlSeconds) {
+        this.repository = repository;
+        this.workflowEngine = workflowEngine;
+        this.objectMapper = objectMapper;
+        this.definitions = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        this.activeVersions = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .build();
+    }
+
+    /**
+     * Get the active version of a workflow for a tenant.
+     */
+    public Optional<CompiledWorkflow> getActive(UUID tenantId, String workflowId) {
+        ActiveKey activeKey = new ActiveKey(tenantId, workflowId);
+        String version = activeVersions.getIfPresent(activeKey);
+        if (version != null) {
+            return get(tenantId, workflowId, version);
+        }
+
+        return repository.findFirstByTenantIdAndWorkflowIdAndActiveTrueOrderByCreatedAtDesc(tenantId, workflowId)
+                .map(entity -> {
+                    activeVersions.put(activeKey, entity.getVersion());
+                    return definitions.get(new Key(tenantId, workflowId, entity.getVersion()),
+                            key -> compile(entity));
+                });
+    }
+
+    /**
+     * Get a specific version of a workflow for a tenant.
+     */
+    public Optional<CompiledWorkflow> get(UUID tenantId, String workflowId, String version) {
+        return Optional.ofNullable(definitions.get(new Key(tenantId, workflowId, version), key ->
+                repository.findFirstByTenantIdAndWorkflowIdAndVersionOrderByCreatedAtDesc(tenantId, workflowId, version)
+                        .map(this::compile)
+                        .orElse(null)));
+    }
+
+    /**
+     * Drop every cached version of a workflow. Called whenever a definition is edited or deactivated.
+     */
+    public void invalidate(UUID tenantId, String workflowId) {
+        log.debug("Invalidating cached workflow {} for tenant {}", workflowId, tenantId);
+        activeVersions.invalidate(new ActiveKey(tenantId, workflowId));
+        definitions.asMap().keySet()
+                .removeIf(key -> key.tenantId().equals(tenantId) && key.workflowId().equals(workflowId));
+    }
+
+    public void invalidateAll() {
+        activeVersions.invalidateAll();
+        definitions.invalidateAll();
+    }
+
+    /**
+     * Compiled workflows hold the guards and actions they were bound to; drop them when the registries change.
+     */
+    @EventListener
+    public void onRegistryChanged(WorkflowRegistryChangedEvent event) {
+        log.info("Workflow {} registry changed, invalidating compiled workflows", event.registry());
+        invalidateAll();
+    }
+
+    /**
+     * Hit/miss statistics of the definition cache.
+     */
+    public Map<String, Object> getStats() {
+        CacheStats stats = definitions.stats();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("size", definitions.estimatedSize());
+        result.put("hitCount", stats.hitCount());
+        result.put("missCount", stats.missCount());
+        result.put("hitRate", stats.hitRate());
+        result.put("evictionCount", stats.evictionCount());
+        return result;
+    }
+
+    private CompiledWorkflow compile(WorkflowDefinitionEntity entity) {
+        WorkflowDefinition definition = objectMapper.convertValue(entity.getDefinition(), WorkflowDefinition.class);
+        if (definition.getId() == null) {
+            definition.setId(entity.getWorkflowId());
+        }
+        if (definition.getName() == null) {
+            definition.setName(entity.getName());
+        }
+        definition.setVersion(entity.getVersion());
+
+        // Stored definitions may predate the graph analysis; report its findings instead of refusing them
+        WorkflowEngine.ValidationResult validation = workflowEngine.validateStructure(definition);
+        if (!validation.isValid()) {
+            throw new IllegalStateException("Invalid workflow definition " + entity.getWorkflowId() +
+                    " v" + entity.getVersion() + ": " + validation.getErrorMessage());
+        }
+
+        CompiledWorkflow workflow = workflowEngine.compile(definition);
+        WorkflowAnalysis analysis = workflow.getAnalysis();
+        if (!analysis.getErrors().isEmpty() || !analysis.getWarnings().isEmpty()) {
+            log.warn("Workflow {} v{} for tenant {}: errors {}, warnings {}", entity.getWorkflowId(),
+                    entity.getVersion(), entity.getTenantId(), analysis.getErrors(), analysis.getWarnings());
+        }
+
+        log.debug("Compiled workflow {} v{} for tenant {}",
+                entity.getWorkflowId(), entity.getVersion(), entity.getTenantId());
+        return workflow;
+    }
+
+    private record Key(UUID tenantId, String workflowId, String version) {
+    }
+
+    private record ActiveKey(UUID tenantId, String workflowId) {
+    }
+
+}
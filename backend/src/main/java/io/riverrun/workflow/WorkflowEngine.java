@@ -4,6 +4,9 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -16,6 +19,18 @@ public class WorkflowEngine {
 
     private final WorkflowGuardRegistry guardRegistry;
     private final WorkflowActionRegistry actionRegistry;
+    private final GuardEvaluator guardEvaluator;
+
+    /**
+     * Compile a workflow definition into its indexed form. The result is immutable and
+     * should be reused for every transition against the same definition version.
+     *
+     * @param definition The workflow definition
+     * @return The compiled workflow
+     */
+    public CompiledWorkflow compile(WorkflowDefinition definition) {
+        return CompiledWorkflow.compile(definition, guardRegistry, actionRegistry);
+    }
 
     /**
      * Execute a workflow transition.
@@ -25,50 +40,139 @@ public class WorkflowEngine {
      * @return Result of the transition
      */
     public TransitionResult executeTransition(WorkflowDefinition definition, WorkflowContext context) {
-        log.debug("Executing transition from {} to {} for entity {}",
+        return executeTransition(compile(definition), context);
+    }
+
+    /**
+     * Execute a workflow transition against a compiled workflow: evaluate its guards, then run its
+     * synchronous actions. Callers persisting the state change should use {@link #prepareTransition}
+     * and {@link #runActions} instead, so that no action runs for a write that does not happen.
+     *
+     * @param workflow The compiled workflow
+     * @param context The execution context
+     * @return Result of the transition
+     */
+    public TransitionResult executeTransition(CompiledWorkflow workflow, WorkflowContext context) {
+        TransitionResult prepared = prepareTransition(workflow, context);
+        return prepared.isSuccess() ? runActions(prepared, context) : prepared;
+    }
+
+    /**
+     * Resolve the transition and evaluate its guards without running any action.
+     *
+     * @param workflow The compiled workflow
+     * @param context The execution context; an event-only request gets its target state set
+     * @return The passing transition, or the reason there is none
+     */
+    public TransitionResult prepareTransition(CompiledWorkflow workflow, WorkflowContext context) {
+        log.debug("Preparing transition from {} to {} for entity {}",
             context.getCurrentState(), context.getTargetState(), context.getEntityId());
 
         // Validate current state exists
-        WorkflowDefinition.StateDefinition currentState = definition.getStates().get(context.getCurrentState());
-        if (currentState == null) {
+        int from = workflow.stateOrdinal(context.getCurrentState());
+        if (from < 0) {
             return TransitionResult.failure("Current state not found: " + context.getCurrentState());
         }
 
+        if (workflow.getAnalysis().isTerminal(from)) {
+            return TransitionResult.failure("No transitions out of final state " + context.getCurrentState());
+        }
+
         // Find applicable transition
-        WorkflowDefinition.TransitionDefinition transition = findTransition(currentState, context);
+        CompiledWorkflow.CompiledTransition transition = findTransition(workflow, from, context);
         if (transition == null) {
-            return TransitionResult.failure("No valid transition found from " +
-                context.getCurrentState() + " to " + context.getTargetState());
+            return TransitionResult.failure("No valid transition found from " + context.getCurrentState() +
+                (context.getTargetState() != null ? " to " + context.getTargetState() : " on event " + context.getEvent()));
         }
 
-        // Evaluate guards
-        if (transition.getGuards() != null) {
-            for (WorkflowDefinition.GuardDefinition guardDef : transition.getGuards()) {
-                WorkflowGuard guard = guardRegistry.getGuard(guardDef.getRule());
-                if (!guard.evaluate(context, guardDef.getParameters())) {
-                    log.debug("Guard {} failed for transition", guardDef.getRule());
-                    return TransitionResult.failure("Guard condition not met: " + guardDef.getRule());
-                }
-            }
+        return evaluateGuards(transition, context);
+    }
+
+    /**
+     * Prepare a given transition instead of looking one up, e.g. the one a timer was scheduled for.
+     * The context's target state and event are set from the transition.
+     *
+     * @param workflow The compiled workflow
+     * @param context The execution context
+     * @param transition A transition of {@code workflow}
+     * @return The transition if it leaves the current state and its guards pass, or the reason it does not
+     */
+    public TransitionResult prepareTransition(CompiledWorkflow workflow, WorkflowContext context,
+                                              CompiledWorkflow.CompiledTransition transition) {
+        if (workflow.stateOrdinal(context.getCurrentState()) != transition.getFromOrdinal()) {
+            return TransitionResult.failure("Transition does not leave current state " + context.getCurrentState());
         }
+        context.setTargetState(workflow.stateName(transition.getToOrdinal()));
+        context.setEvent(transition.getDefinition().getEvent());
+        return evaluateGuards(transition, context);
+    }
 
-        // Execute actions
-        if (transition.getActions() != null) {
-            for (WorkflowDefinition.ActionDefinition actionDef : transition.getActions()) {
-                try {
-                    WorkflowAction action = actionRegistry.getAction(actionDef.getType());
-                    action.execute(context, actionDef.getParameters());
-                } catch (Exception e) {
-                    log.error("Error executing action: " + actionDef.getType(), e);
-                    return TransitionResult.failure("Action execution failed: " + e.getMessage());
+    /**
+     * Run the synchronous actions of a prepared transition; asynchronous ones are handed back for
+     * the outbox. Call this once the state change is certain to be written, in the same transaction.
+     *
+     * @param prepared A successful result of {@link #prepareTransition}
+     * @param context The execution context the transition was prepared with
+     * @return Result of the transition
+     */
+    public TransitionResult runActions(TransitionResult prepared, WorkflowContext context) {
+        CompiledWorkflow.CompiledTransition transition = prepared.getTransition();
+        List<CompiledWorkflow.BoundAction> deferred = null;
+        for (CompiledWorkflow.BoundAction action : transition.getActions()) {
+            if (action.isAsync()) {
+                if (deferred == null) {
+                    deferred = new ArrayList<>(transition.getActions().length);
                 }
+                deferred.add(action);
+                continue;
+            }
+            try {
+                action.execute(context);
+            } catch (Exception e) {
+                log.error("Error executing action: " + action.getType(), e);
+                return TransitionResult.failure("Action execution failed: " + e.getMessage());
             }
         }
 
         log.info("Transition successful: {} -> {} for entity {}",
             context.getCurrentState(), context.getTargetState(), context.getEntityId());
 
-        return TransitionResult.success(context.getTargetState());
+        return new TransitionResult(true, prepared.getNewState(), null, transition,
+            deferred != null ? deferred : List.of());
+    }
+
+    /**
+     * Get the transitions out of the context's current state whose guards pass. Impure guards
+     * are not run, so a transition they would reject is still listed. The context's target
+     * state and event are restored afterwards.
+     *
+     * @param workflow The compiled workflow
+     * @param context The execution context; its current state is the state to check
+     * @return Passing transitions in declaration order
+     */
+    public List<CompiledWorkflow.CompiledTransition> getAvailableTransitions(CompiledWorkflow workflow,
+                                                                          WorkflowContext context) {
+        int from = workflow.stateOrdinal(context.getCurrentState());
+        if (from < 0) {
+            return List.of();
+        }
+
+        String targetState = context.getTargetState();
+        String event = context.getEvent();
+        List<CompiledWorkflow.CompiledTransition> available = new ArrayList<>();
+        try {
+            for (CompiledWorkflow.CompiledTransition transition : workflow.outgoing(from)) {
+                context.setTargetState(workflow.stateName(transition.getToOrdinal()));
+                context.setEvent(transition.getDefinition().getEvent());
+                if (guardEvaluator.evaluate(transition, context, false) == null) {
+                    available.add(transition);
+                }
+            }
+        } finally {
+            context.setTargetState(targetState);
+            context.setEvent(event);
+        }
+        return available;
     }
 
     /**
@@ -91,12 +195,29 @@ public class WorkflowEngine {
     }
 
     /**
-     * Validate a workflow definition.
+     * Validate a workflow definition, including the graph analysis: unreachable states,
+     * ambiguous transitions and unguarded timer loops are rejected.
      *
      * @param definition The workflow definition to validate
      * @return Validation result
      */
     public ValidationResult validate(WorkflowDefinition definition) {
+        ValidationResult structure = validateStructure(definition);
+        if (!structure.isValid()) {
+            return structure;
+        }
+
+        List<String> errors = compile(definition).getAnalysis().getErrors();
+        return errors.isEmpty() ? ValidationResult.valid() : ValidationResult.invalid(String.join("; ", errors));
+    }
+
+    /**
+     * Validate that a workflow definition can be compiled and executed, without the graph analysis.
+     *
+     * @param definition The workflow definition to validate
+     * @return Validation result
+     */
+    public ValidationResult validateStructure(WorkflowDefinition definition) {
         if (definition.getInitialState() == null || definition.getInitialState().isEmpty()) {
             return ValidationResult.invalid("Initial state is required");
         }
@@ -117,6 +238,25 @@ public class WorkflowEngine {
                     if (!definition.getStates().containsKey(transition.getTo())) {
                         return ValidationResult.invalid("Transition target state not found: " + transition.getTo());
                     }
+                    if (transition.getAfter() != null) {
+                        try {
+                            Duration.parse(transition.getAfter());
+                        } catch (DateTimeParseException e) {
+                            return ValidationResult.invalid("Invalid timer duration: " + transition.getAfter());
+                        }
+                    }
+                    if (transition.getGuards() != null) {
+                        for (WorkflowDefinition.GuardDefinition guard : transition.getGuards()) {
+                            if (!WorkflowGuardRegistry.EXPRESSION_RULE.equals(guard.getRule())) {
+                                continue;
+                            }
+                            try {
+                                guardRegistry.getExpressionGuard(guard.getExpression());
+                            } catch (IllegalArgumentException e) {
+                                return ValidationResult.invalid("Invalid guard expression: " + e.getMessage());
+                            }
+                        }
+                    }
                 }
             }
         }
@@ -124,19 +264,39 @@ public class WorkflowEngine {
         return ValidationResult.valid();
     }
 
-    private WorkflowDefinition.TransitionDefinition findTransition(
-            WorkflowDefinition.StateDefinition currentState,
-            WorkflowContext context) {
+    private TransitionResult evaluateGuards(CompiledWorkflow.CompiledTransition transition, WorkflowContext context) {
+        // Cheap guards first, expensive ones concurrently
+        CompiledWorkflow.BoundGuard failedGuard = guardEvaluator.evaluate(transition, context);
+        if (failedGuard != null) {
+            log.debug("Guard {} failed for transition", failedGuard.getRule());
+            return TransitionResult.failure("Guard condition not met: " + failedGuard.getRule());
+        }
+        return TransitionResult.prepared(context.getTargetState(), transition);
+    }
 
-        if (currentState.getTransitions() == null) {
+    private CompiledWorkflow.CompiledTransition findTransition(CompiledWorkflow workflow, int from,
+                                                                WorkflowContext context) {
+        // Event-only request: the event decides the target state
+        if (context.getTargetState() == null && context.getEvent() != null) {
+            CompiledWorkflow.CompiledTransition transition =
+                workflow.findTransitionByEvent(from, workflow.eventOrdinal(context.getEvent()));
+            if (transition != null) {
+                context.setTargetState(workflow.stateName(transition.getToOrdinal()));
+            }
+            return transition;
+        }
+
+        int to = workflow.stateOrdinal(context.getTargetState());
+        if (to < 0) {
             return null;
         }
 
-        return currentState.getTransitions().stream()
-            .filter(t -> t.getTo().equals(context.getTargetState()))
-            .filter(t -> context.getEvent() == null || context.getEvent().equals(t.getEvent()))
-            .findFirst()
-            .orElse(null);
+        if (context.getEvent() == null) {
+            return workflow.findTransition(from, to, -1);
+        }
+
+        int event = workflow.eventOrdinal(context.getEvent());
+        return event >= 0 ? workflow.findTransition(from, to, event) : null;
     }
 
     /**
@@ -146,19 +306,33 @@ public class WorkflowEngine {
         private final boolean success;
         private final String newState;
         private final String errorMessage;
+        private final CompiledWorkflow.CompiledTransition transition;
+        private final List<CompiledWorkflow.BoundAction> deferredActions;
 
-        private TransitionResult(boolean success, String newState, String errorMessage) {
+        private TransitionResult(boolean success, String newState, String errorMessage,
+                                 CompiledWorkflow.CompiledTransition transition,
+                                 List<CompiledWorkflow.BoundAction> deferredActions) {
             this.success = success;
             this.newState = newState;
             this.errorMessage = errorMessage;
+            this.transition = transition;
+            this.deferredActions = deferredActions;
         }
 
         public static TransitionResult success(String newState) {
-            return new TransitionResult(true, newState, null);
+            return success(newState, List.of());
+        }
+
+        public static TransitionResult success(String newState, List<CompiledWorkflow.BoundAction> deferredActions) {
+            return new TransitionResult(true, newState, null, null, deferredActions);
+        }
+
+        static TransitionResult prepared(String newState, CompiledWorkflow.CompiledTransition transition) {
+            return new TransitionResult(true, newState, null, transition, List.of());
         }
 
         public static TransitionResult failure(String errorMessage) {
-            return new TransitionResult(false, null, errorMessage);
+            return new TransitionResult(false, null, errorMessage, null, List.of());
         }
 
         public boolean isSuccess() {
@@ -172,6 +346,20 @@ public class WorkflowEngine {
         public String getErrorMessage() {
             return errorMessage;
         }
+
+        /**
+         * The transition taken; null on failure.
+         */
+        public CompiledWorkflow.CompiledTransition getTransition() {
+            return transition;
+        }
+
+        /**
+         * Asynchronous actions to be recorded in the outbox together with the state change.
+         */
+        public List<CompiledWorkflow.BoundAction> getDeferredActions() {
+            return deferredActions;
+        }
     }
 
     /**
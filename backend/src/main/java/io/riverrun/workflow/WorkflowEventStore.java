@@ -0,0 +1,321 @@
+package io.riverrun.workflow;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Append-only log of workflow events per entity.
+ * Every event carries a per-entity sequence number and only the fields it changed; every
+ * {@code snapshot-interval} events the full state is written to {@code workflow_snapshots},
+ * so folding an entity to a point in time reads one snapshot and the events after it.
+ * Sequence numbers are taken from the entity's row in {@code workflow_event_heads}, which an
+ * append locks until its transaction ends, so concurrent appends to one entity are numbered one
+ * after the other; the head also tracks the current state and since when the entity is in it.
+ */
+@Component
+@Slf4j
+public class WorkflowEventStore {
+
+    public static final String CREATED = "CREATED";
+    public static final String STATE_CHANGED = "STATE_CHANGED";
+
+    private static final String INSERT_EVENT_SQL =
+            "INSERT INTO workflow_events (tenant_id, entity_type, entity_id, sequence, event_type, from_state, " +
+            "to_state, event, changes, user_id, occurred_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?::jsonb, ?, ?)";
+
+    private static final String INSERT_SNAPSHOT_SQL =
+            "INSERT INTO workflow_snapshots (tenant_id, entity_type, entity_id, sequence, state, fields, " +
+            "state_entered_at, occurred_at) VALUES (?, ?, ?, ?, ?, ?::jsonb, ?, ?)";
+
+    private static final String INSERT_HEAD_SQL =
+            "INSERT INTO workflow_event_heads (tenant_id, entity_id, entity_type, sequence) VALUES (?, ?, ?, 0) " +
+            "ON CONFLICT (tenant_id, entity_id) DO NOTHING";
+
+    private static final String UPDATE_HEAD_SQL =
+            "UPDATE workflow_event_heads SET sequence = ?, state = ?, state_entered_at = ? " +
+            "WHERE tenant_id = ? AND entity_id = ?";
+
+    private static final String SELECT_EVENTS_SQL =
+            "SELECT sequence, event_type, from_state, to_state, event, changes, user_id, occurred_at " +
+            "FROM workflow_events WHERE tenant_id = ? AND entity_id = ? AND sequence > ? AND occurred_at <= ? " +
+            "ORDER BY sequence";
+
+    private static final String SELECT_SNAPSHOT_SQL =
+            "SELECT sequence, state, fields, state_entered_at, occurred_at FROM workflow_snapshots " +
+            "WHERE tenant_id = ? AND entity_id = ? AND occurred_at <= ? ORDER BY sequence DESC LIMIT 1";
+
+    private static final TypeReference<Map<String, Object>> FIELDS = new TypeReference<>() { };
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final int snapshotInterval;
+
+    public WorkflowEventStore(JdbcTemplate jdbcTemplate,
+                              ObjectMapper objectMapper,
+                              @Value("${riverrun.workflow.events.snapshot-interval:50}") int snapshotInterval) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.snapshotInterval = Math.max(1, snapshotInterval);
+    }
+
+    /**
+     * Append one event per entry, with one batch for the events and one for any snapshots due.
+     * Call within a transaction: the entities' heads stay locked until it ends.
+     */
+    public void append(UUID tenantId, String entityType, List<NewEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+
+        Map<UUID, Head> heads = lockHeads(tenantId, entityType, events);
+        LocalDateTime now = LocalDateTime.now();
+        Timestamp occurredAt = Timestamp.valueOf(now);
+        List<Object[]> eventRows = new ArrayList<>(events.size());
+        List<Object[]> snapshotRows = new ArrayList<>();
+
+        for (NewEvent event : events) {
+            Head head = heads.get(event.entityId());
+            head.sequence++;
+            if (head.stateEnteredAt == null || !Objects.equals(head.state, event.toState())) {
+                head.stateEnteredAt = now;
+            }
+            head.state = event.toState();
+
+            eventRows.add(new Object[] {
+                    tenantId, entityType, event.entityId(), head.sequence, event.eventType(), event.fromState(),
+                    event.toState(), event.event(), toJson(changes(event.fieldsBefore(), event.fieldsAfter())),
+                    event.userId(), occurredAt
+            });
+            if (head.sequence % snapshotInterval == 0) {
+                snapshotRows.add(new Object[] {
+                        tenantId, entityType, event.entityId(), head.sequence, event.toState(),
+                        toJson(event.fieldsAfter()), Timestamp.valueOf(head.stateEnteredAt), occurredAt
+                });
+            }
+        }
+
+        jdbcTemplate.batchUpdate(INSERT_EVENT_SQL, eventRows);
+        if (!snapshotRows.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_SNAPSHOT_SQL, snapshotRows);
+        }
+        jdbcTemplate.batchUpdate(UPDATE_HEAD_SQL, heads.entrySet().stream().map(entry -> new Object[] {
+                entry.getValue().sequence, entry.getValue().state, Timestamp.valueOf(entry.getValue().stateEnteredAt),
+                tenantId, entry.getKey()
+        }).toList());
+        log.debug("Appended {} workflow events ({} snapshots)", eventRows.size(), snapshotRows.size());
+    }
+
+    /**
+     * All events of an entity in sequence order.
+     */
+    public List<Event> getEvents(UUID tenantId, UUID entityId) {
+        return events(tenantId, entityId, 0, LocalDateTime.now());
+    }
+
+    /**
+     * Fold an entity's events up to and including {@code at}, starting from the latest snapshot
+     * taken no later than that.
+     *
+     * @return The state at {@code at}, or null if the entity had no events by then
+     */
+    public EntityState fold(UUID tenantId, UUID entityId, LocalDateTime at) {
+        List<EntityState> snapshots = jdbcTemplate.query(SELECT_SNAPSHOT_SQL, (rs, rowNum) -> new EntityState(
+                rs.getLong("sequence"),
+                rs.getString("state"),
+                fromJson(rs.getString("fields")),
+                rs.getTimestamp("state_entered_at").toLocalDateTime(),
+                rs.getTimestamp("occurred_at").toLocalDateTime()),
+                tenantId, entityId, Timestamp.valueOf(at));
+
+        EntityState state = snapshots.isEmpty() ? null : snapshots.get(0);
+        for (Event event : events(tenantId, entityId, state != null ? state.getSequence() : 0, at)) {
+            state = apply(state, event);
+        }
+        return state;
+    }
+
+    /**
+     * Total time an entity spent in each state, counting the current state up to now.
+     */
+    public Map<String, Duration> getTimeInState(UUID tenantId, UUID entityId) {
+        Map<String, Duration> durations = new LinkedHashMap<>();
+        String state = null;
+        LocalDateTime enteredAt = null;
+        for (Event event : getEvents(tenantId, entityId)) {
+            if (state != null && !Objects.equals(state, event.getToState())) {
+                durations.merge(state, Duration.between(enteredAt, event.getOccurredAt()), Duration::plus);
+                enteredAt = event.getOccurredAt();
+            } else if (state == null) {
+                enteredAt = event.getOccurredAt();
+            }
+            state = event.getToState();
+        }
+        if (state != null) {
+            durations.merge(state, Duration.between(enteredAt, LocalDateTime.now()), Duration::plus);
+        }
+        return durations;
+    }
+
+    private List<Event> events(UUID tenantId, UUID entityId, long afterSequence, LocalDateTime until) {
+        return jdbcTemplate.query(SELECT_EVENTS_SQL, (rs, rowNum) -> new Event(
+                rs.getLong("sequence"),
+                rs.getString("event_type"),
+                rs.getString("from_state"),
+                rs.getString("to_state"),
+                rs.getString("event"),
+                fromJson(rs.getString("changes")),
+                rs.getObject("user_id", UUID.class),
+                rs.getTimestamp("occurred_at").toLocalDateTime()),
+                tenantId, entityId, afterSequence, Timestamp.valueOf(until));
+    }
+
+    private static EntityState apply(EntityState state, Event event) {
+        Map<String, Object> fields = state != null ? new HashMap<>(state.getFields()) : new HashMap<>();
+        event.getChanges().forEach((field, value) -> {
+            if (value == null) {
+                fields.remove(field);
+            } else {
+                fields.put(field, value);
+            }
+        });
+        boolean entered = state == null || !Objects.equals(state.getState(), event.getToState());
+        return new EntityState(event.getSequence(), event.getToState(), fields,
+                entered ? event.getOccurredAt() : state.getStateEnteredAt(), event.getOccurredAt());
+    }
+
+    /**
+     * Fields that differ between two versions; removed fields map to null.
+     */
+    private static Map<String, Object> changes(Map<String, Object> before, Map<String, Object> after) {
+        Map<String, Object> safeBefore = before != null ? before : Map.of();
+        Map<String, Object> safeAfter = after != null ? after : Map.of();
+        Map<String, Object> changes = new LinkedHashMap<>();
+        safeAfter.forEach((field, value) -> {
+            if (!Objects.equals(safeBefore.get(field), value)) {
+                changes.put(field, value);
+            }
+        });
+        for (String field : safeBefore.keySet()) {
+            if (!safeAfter.containsKey(field)) {
+                changes.put(field, null);
+            }
+        }
+        return changes;
+    }
+
+    /**
+     * Create missing heads and lock all of them, in entity id order so that overlapping appends
+     * cannot deadlock.
+     */
+    private Map<UUID, Head> lockHeads(UUID tenantId, String entityType, List<NewEvent> events) {
+        List<UUID> entityIds = events.stream().map(NewEvent::entityId).distinct().sorted().toList();
+        jdbcTemplate.batchUpdate(INSERT_HEAD_SQL,
+                entityIds.stream().map(entityId -> new Object[] { tenantId, entityId, entityType }).toList());
+
+        String placeholders = String.join(", ", Collections.nCopies(entityIds.size(), "?"));
+        List<Object> args = new ArrayList<>(entityIds.size() + 1);
+        args.add(tenantId);
+        args.addAll(entityIds);
+
+        Map<UUID, Head> heads = new HashMap<>();
+        jdbcTemplate.query("SELECT entity_id, sequence, state, state_entered_at FROM workflow_event_heads " +
+                        "WHERE tenant_id = ? AND entity_id IN (" + placeholders + ") ORDER BY entity_id FOR UPDATE",
+                rs -> {
+                    Timestamp enteredAt = rs.getTimestamp("state_entered_at");
+                    heads.put(rs.getObject("entity_id", UUID.class), new Head(rs.getLong("sequence"),
+                            rs.getString("state"), enteredAt != null ? enteredAt.toLocalDateTime() : null));
+                },
+                args.toArray());
+        return heads;
+    }
+
+    private String toJson(Map<String, Object> values) {
+        try {
+            return values != null ? objectMapper.writeValueAsString(values) : null;
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Cannot serialize workflow event fields", e);
+        }
+    }
+
+    private Map<String, Object> fromJson(String json) {
+        if (json == null) {
+            return Map.of();
+        }
+        try {
+            return objectMapper.readValue(json, FIELDS);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot read workflow event fields", e);
+        }
+    }
+
+    /**
+     * Latest sequence and state of an entity, advanced in place while appending.
+     */
+    private static final class Head {
+        private long sequence;
+        private String state;
+        private LocalDateTime stateEnteredAt;
+
+        private Head(long sequence, String state, LocalDateTime stateEnteredAt) {
+            this.sequence = sequence;
+            this.state = state;
+            this.stateEnteredAt = stateEnteredAt;
+        }
+    }
+
+    /**
+     * An event to append; {@code fieldsBefore} and {@code fieldsAfter} are diffed into the stored changes.
+     */
+    public record NewEvent(UUID entityId, String eventType, String fromState, String toState, String event,
+                           Map<String, Object> fieldsBefore, Map<String, Object> fieldsAfter, UUID userId) {
+    }
+
+    /**
+     * A stored event.
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class Event {
+        private final long sequence;
+        private final String eventType;
+        private final String fromState;
+        private final String toState;
+        private final String event;
+        private final Map<String, Object> changes;
+        private final UUID userId;
+        private final LocalDateTime occurredAt;
+    }
+
+    /**
+     * An entity's state as of a given event.
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class EntityState {
+        private final long sequence;
+        private final String state;
+        private final Map<String, Object> fields;
+        private final LocalDateTime stateEnteredAt;
+        private final LocalDateTime occurredAt;
+    }
+
+}
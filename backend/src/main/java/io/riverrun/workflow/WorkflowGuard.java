@@ -8,6 +8,12 @@ import java.util.Map;
 @FunctionalInterface
 public interface WorkflowGuard {
 
+    /** Cost of a guard that only inspects the context. */
+    int COST_CHEAP = 1;
+
+    /** Cost from which a guard is considered expensive (I/O, queries); parallel-safe ones run concurrently. */
+    int COST_EXPENSIVE = 100;
+
     /**
      * Evaluate if the transition should be allowed.
      *
@@ -17,4 +23,66 @@ public interface WorkflowGuard {
      */
     boolean evaluate(WorkflowContext context, Map<String, Object> parameters);
 
+    /**
+     * Estimated relative cost of one evaluation; used to order guards before any timings exist
+     * and to decide which parallel-safe guards run concurrently.
+     */
+    default int getCost() {
+        return COST_CHEAP;
+    }
+
+    /**
+     * Whether the guard is free of side effects; it may still read the database. Pure guards may
+     * be reordered and skipped once another guard fails; impure guards always run in declaration
+     * order after them.
+     */
+    default boolean isPure() {
+        return true;
+    }
+
+    /**
+     * Whether the guard, if pure and expensive, may run concurrently with its peers on a virtual
+     * thread, outside the caller's transaction and persistence context. That thread only carries
+     * the tenant id, so a guard querying the database qualifies when it filters by tenant itself
+     * (e.g. through {@code JdbcTemplate}) and does not need to see the caller's uncommitted writes;
+     * one relying on the Hibernate tenant filter does not.
+     */
+    default boolean isParallelSafe() {
+        return false;
+    }
+
+    /**
+     * Declare the cost and purity of a guard.
+     */
+    static WorkflowGuard of(WorkflowGuard guard, int cost, boolean pure) {
+        return of(guard, cost, pure, false);
+    }
+
+    /**
+     * Declare the cost, purity and parallel safety of a guard.
+     */
+    static WorkflowGuard of(WorkflowGuard guard, int cost, boolean pure, boolean parallelSafe) {
+        return new WorkflowGuard() {
+            @Override
+            public boolean evaluate(WorkflowContext context, Map<String, Object> parameters) {
+                return guard.evaluate(context, parameters);
+            }
+
+            @Override
+            public int getCost() {
+                return cost;
+            }
+
+            @Override
+            public boolean isPure() {
+                return pure;
+            }
+
+            @Override
+            public boolean isParallelSafe() {
+                return parallelSafe;
+            }
+        };
+    }
+
 }
@@ -1,30 +1,75 @@
 package io.riverrun.workflow;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationContext;
 import org.springframework.stereotype.Component;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
 
 /**
  * Registry for workflow guards. Guards are registered by name and can be looked up.
+ * Lookups read an immutable snapshot that registration replaces (copy-on-write), so readers
+ * never lock; {@link WorkflowGuard} beans are registered under their bean name at startup.
+ * The {@value #EXPRESSION_RULE} rule is special: its guard is compiled from the guard's
+ * expression text and cached by that text, so identical expressions share one predicate.
  */
 @Component
 @Slf4j
-public class WorkflowGuardRegistry {
+public class WorkflowGuardRegistry implements SmartInitializingSingleton {
 
-    private final Map<String, WorkflowGuard> guards = new HashMap<>();
+    public static final String EXPRESSION_RULE = "expr";
 
-    public WorkflowGuardRegistry() {
+    private static final WorkflowGuard DENY = (context, params) -> false;
+
+    private final ApplicationContext applicationContext;
+    private volatile Map<String, WorkflowGuard> guards = Map.of();
+    private final Map<String, Boolean> reportedMissing = new ConcurrentHashMap<>();
+    private final Cache<String, WorkflowGuard> expressions;
+    private volatile boolean started;
+
+    public WorkflowGuardRegistry(ApplicationContext applicationContext,
+                                 @Value("${riverrun.workflow.guards.expression-cache-size:10000}") long cacheSize) {
+        this.applicationContext = applicationContext;
+        this.expressions = Caffeine.newBuilder().maximumSize(cacheSize).build();
         registerDefaultGuards();
     }
 
     /**
-     * Register a guard with a name.
+     * Register guard beans from the application context; a bean overrides a default of the same name.
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        Map<String, WorkflowGuard> beans = applicationContext.getBeansOfType(WorkflowGuard.class);
+        if (!beans.isEmpty()) {
+            log.info("Registering guard beans: {}", beans.keySet());
+            update(snapshot -> snapshot.putAll(beans));
+        }
+        started = true;
+    }
+
+    /**
+     * Register a guard with a name. Safe to call at runtime: readers keep using the previous
+     * snapshot until the new one is published, and compiled workflows are invalidated so they
+     * pick the guard up.
      */
     public void register(String name, WorkflowGuard guard) {
         log.debug("Registering guard: {}", name);
-        guards.put(name, guard);
+        update(snapshot -> snapshot.put(name, guard));
+    }
+
+    /**
+     * Remove a guard; transitions using it are denied from then on.
+     */
+    public void unregister(String name) {
+        log.debug("Unregistering guard: {}", name);
+        update(snapshot -> snapshot.remove(name));
     }
 
     /**
@@ -33,12 +78,40 @@ public class WorkflowGuardRegistry {
     public WorkflowGuard getGuard(String name) {
         WorkflowGuard guard = guards.get(name);
         if (guard == null) {
-            log.warn("Guard not found: {}", name);
-            return (context, params) -> false;
+            if (reportedMissing.putIfAbsent(name, Boolean.TRUE) == null) {
+                log.warn("Guard not found: {}", name);
+            }
+            return DENY;
         }
         return guard;
     }
 
+    public boolean contains(String name) {
+        return guards.containsKey(name);
+    }
+
+    private synchronized void update(Consumer<Map<String, WorkflowGuard>> change) {
+        Map<String, WorkflowGuard> snapshot = new HashMap<>(guards);
+        change.accept(snapshot);
+        guards = Map.copyOf(snapshot);
+        reportedMissing.clear();
+        if (started) {
+            applicationContext.publishEvent(new WorkflowRegistryChangedEvent("guard"));
+        }
+    }
+
+    /**
+     * Get the compiled guard for an expression, compiling it on first use.
+     *
+     * @throws IllegalArgumentException if the expression does not parse or type-check
+     */
+    public WorkflowGuard getExpressionGuard(String expression) {
+        if (expression == null) {
+            throw new IllegalArgumentException("Guard expression is empty");
+        }
+        return expressions.get(expression, GuardExpression::compile);
+    }
+
     /**
      * Register default guards.
      */
@@ -0,0 +1,169 @@
+package io.riverrun.workflow;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.riverrun.multitenancy.TenantContext;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Drains the workflow action outbox on virtual threads.
+ * Rows are claimed with {@code FOR UPDATE SKIP LOCKED} under a time-limited lease, so several
+ * instances can poll concurrently and rows held by a crashed instance are picked up again once
+ * their lease expires. Failed actions are retried with exponential backoff until
+ * {@code max-attempts} is reached, after which they are parked as FAILED; so are actions this
+ * instance has no bean for.
+ */
+@Component
+@Slf4j
+public class WorkflowOutboxDispatcher {
+
+    private static final String CLAIM_SQL =
+            "UPDATE workflow_action_outbox SET status = 'PROCESSING', locked_until = ?, attempts = attempts + 1, " +
+            "updated_at = ? WHERE id IN (" +
+            "SELECT id FROM workflow_action_outbox " +
+            "WHERE (status = 'PENDING' AND next_attempt_at <= ?) OR (status = 'PROCESSING' AND locked_until < ?) " +
+            "ORDER BY next_attempt_at LIMIT ? FOR UPDATE SKIP LOCKED) " +
+            "RETURNING id, tenant_id, action_type, parameters, context, attempts";
+
+    private static final String DELETE_SQL = "DELETE FROM workflow_action_outbox WHERE id = ?";
+
+    private static final String RETRY_SQL =
+            "UPDATE workflow_action_outbox SET status = ?, next_attempt_at = ?, locked_until = NULL, " +
+            "last_error = ?, updated_at = ? WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final WorkflowActionRegistry actionRegistry;
+    private final TenantContext tenantContext;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final int batchSize;
+    private final int maxAttempts;
+    private final long leaseMillis;
+    private final long backoffMillis;
+    private final long maxBackoffMillis;
+
+    public WorkflowOutboxDispatcher(JdbcTemplate jdbcTemplate,
+                                    ObjectMapper objectMapper,
+                                    WorkflowActionRegistry actionRegistry,
+                                    TenantContext tenantContext,
+                                    @Value("${riverrun.workflow.outbox.batch-size:100}") int batchSize,
+                                    @Value("${riverrun.workflow.outbox.max-attempts:10}") int maxAttempts,
+                                    @Value("${riverrun.workflow.outbox.lease-millis:60000}") long leaseMillis,
+                                    @Value("${riverrun.workflow.outbox.backoff-millis:1000}") long backoffMillis,
+                                    @Value("${riverrun.workflow.outbox.max-backoff-millis:3600000}") long maxBackoffMillis) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.actionRegistry = actionRegistry;
+        this.tenantContext = tenantContext;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.leaseMillis = leaseMillis;
+        this.backoffMillis = backoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+    }
+
+    @Scheduled(fixedDelayString = "${riverrun.workflow.outbox.poll-interval-millis:1000}")
+    public void drain() {
+        List<OutboxEntry> claimed;
+        do {
+            claimed = claim();
+            if (claimed.isEmpty()) {
+                return;
+            }
+
+            List<Callable<Void>> tasks = new ArrayList<>(claimed.size());
+            for (OutboxEntry entry : claimed) {
+                tasks.add(() -> {
+                    dispatch(entry);
+                    return null;
+                });
+            }
+            try {
+                executor.invokeAll(tasks);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        } while (claimed.size() == batchSize);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private List<OutboxEntry> claim() {
+        LocalDateTime now = LocalDateTime.now();
+        return jdbcTemplate.query(CLAIM_SQL, (rs, rowNum) -> new OutboxEntry(
+                        rs.getObject("id", UUID.class),
+                        rs.getObject("tenant_id", UUID.class),
+                        rs.getString("action_type"),
+                        rs.getString("parameters"),
+                        rs.getString("context"),
+                        rs.getInt("attempts")),
+                Timestamp.valueOf(now.plus(Duration.ofMillis(leaseMillis))),
+                Timestamp.valueOf(now),
+                Timestamp.valueOf(now),
+                Timestamp.valueOf(now),
+                batchSize);
+    }
+
+    private void dispatch(OutboxEntry entry) {
+        try {
+            tenantContext.setCurrentTenant(entry.tenantId());
+            WorkflowContext context = objectMapper.readValue(entry.context(), WorkflowContext.class);
+            Map<String, Object> parameters = entry.parameters() != null
+                    ? objectMapper.readValue(entry.parameters(), new TypeReference<Map<String, Object>>() { })
+                    : null;
+
+            // During a rolling deploy this instance may not know the action yet: retry, never drop
+            if (!actionRegistry.contains(entry.actionType())) {
+                throw new IllegalStateException("Unknown action type " + entry.actionType());
+            }
+            actionRegistry.getAction(entry.actionType()).execute(context, parameters);
+            jdbcTemplate.update(DELETE_SQL, entry.id());
+            log.debug("Executed async action {} for entity {}", entry.actionType(), context.getEntityId());
+        } catch (Exception e) {
+            boolean exhausted = entry.attempts() >= maxAttempts;
+            long delay = Math.min(maxBackoffMillis, backoffMillis << Math.min(entry.attempts() - 1, 30));
+            LocalDateTime now = LocalDateTime.now();
+            jdbcTemplate.update(RETRY_SQL,
+                    exhausted ? "FAILED" : "PENDING",
+                    Timestamp.valueOf(now.plus(Duration.ofMillis(delay))),
+                    e.getMessage(),
+                    Timestamp.valueOf(now),
+                    entry.id());
+            if (exhausted) {
+                log.error("Async action " + entry.actionType() + " failed permanently after "
+                        + entry.attempts() + " attempts", e);
+            } else {
+                log.warn("Async action {} failed (attempt {}), retrying in {} ms: {}",
+                        entry.actionType(), entry.attempts(), delay, e.getMessage());
+            }
+        } finally {
+            tenantContext.clear();
+        }
+    }
+
+    private record OutboxEntry(UUID id, UUID tenantId, String actionType, String parameters, String context,
+                               int attempts) {
+    }
+
+}
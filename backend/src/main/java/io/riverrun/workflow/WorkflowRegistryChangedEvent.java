@@ -0,0 +1,10 @@
+package io.riverrun.workflow;
+
+/**
+ * Published when a guard or action is registered or removed at runtime, so that workflows
+ * compiled against the previous registry contents are recompiled.
+ *
+ * @param registry "guard" or "action"
+ */
+public record WorkflowRegistryChangedEvent(String registry) {
+}
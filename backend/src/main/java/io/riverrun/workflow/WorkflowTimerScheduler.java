@@ -0,0 +1,161 @@
+package io.riverrun.workflow;
+
+import io.riverrun.multitenancy.TenantContext;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Fires due workflow timers.
+ * Timers coming due within the look-ahead horizon are leased from the database with
+ * {@code FOR UPDATE SKIP LOCKED} and held in an in-memory {@link TimingWheel}, so every instance
+ * of the cluster works on a disjoint set and the database is only touched for timers that are
+ * about to fire. Expired timers fire on virtual threads; each one is deleted in the transaction
+ * that applies its transition (a lost lease or a cancelled timer simply drops out there), so a
+ * failed or interrupted firing leaves the timer leased. Leases of failed firings and of crashed
+ * instances expire and the timers are picked up again.
+ */
+@Component
+@Slf4j
+public class WorkflowTimerScheduler {
+
+    private static final String LEASE_SQL =
+            "UPDATE workflow_timers SET lease_owner = ?, locked_until = ? WHERE id IN (" +
+            "SELECT id FROM workflow_timers WHERE fire_at <= ? AND (locked_until IS NULL OR locked_until < ?) " +
+            "ORDER BY fire_at LIMIT ? FOR UPDATE SKIP LOCKED) " +
+            "RETURNING id, tenant_id, entity_type, entity_id, from_state, transition_index, target_state, event, " +
+            "fire_at";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final CaseTransitionService caseTransitionService;
+    private final WorkflowTimerService timerService;
+    private final TenantContext tenantContext;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final String leaseOwner = UUID.randomUUID().toString();
+
+    private final TimingWheel<WorkflowTimerService.LeasedTimer> wheel;
+    private final long horizonMillis;
+    private final long leaseMillis;
+    private final int batchSize;
+
+    public WorkflowTimerScheduler(JdbcTemplate jdbcTemplate,
+                                  CaseTransitionService caseTransitionService,
+                                  WorkflowTimerService timerService,
+                                  TenantContext tenantContext,
+                                  @Value("${riverrun.workflow.timers.tick-millis:1000}") long tickMillis,
+                                  @Value("${riverrun.workflow.timers.horizon-millis:60000}") long horizonMillis,
+                                  @Value("${riverrun.workflow.timers.lease-millis:300000}") long leaseMillis,
+                                  @Value("${riverrun.workflow.timers.batch-size:1000}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.caseTransitionService = caseTransitionService;
+        this.timerService = timerService;
+        this.tenantContext = tenantContext;
+        this.horizonMillis = horizonMillis;
+        this.leaseMillis = Math.max(leaseMillis, horizonMillis * 2);
+        this.batchSize = batchSize;
+        this.wheel = new TimingWheel<>(tickMillis, 64, 3, System.currentTimeMillis());
+    }
+
+    /**
+     * Lease timers due within the horizon and load them into the wheel.
+     */
+    @Scheduled(fixedDelayString = "${riverrun.workflow.timers.load-interval-millis:30000}")
+    public void loadDueTimers() {
+        List<WorkflowTimerService.LeasedTimer> leased;
+        do {
+            LocalDateTime now = LocalDateTime.now();
+            leased = jdbcTemplate.query(LEASE_SQL, (rs, rowNum) -> new WorkflowTimerService.LeasedTimer(
+                            rs.getObject("id", UUID.class),
+                            rs.getObject("tenant_id", UUID.class),
+                            rs.getString("entity_type"),
+                            rs.getObject("entity_id", UUID.class),
+                            rs.getString("from_state"),
+                            rs.getObject("transition_index") != null ? rs.getInt("transition_index") : -1,
+                            rs.getString("target_state"),
+                            rs.getString("event"),
+                            rs.getTimestamp("fire_at").toLocalDateTime()),
+                    leaseOwner,
+                    Timestamp.valueOf(now.plus(Duration.ofMillis(leaseMillis))),
+                    Timestamp.valueOf(now.plus(Duration.ofMillis(horizonMillis))),
+                    Timestamp.valueOf(now),
+                    batchSize);
+
+            for (WorkflowTimerService.LeasedTimer timer : leased) {
+                wheel.schedule(timer, timer.fireAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+            }
+            if (!leased.isEmpty()) {
+                log.debug("Leased {} workflow timers ({} pending in wheel)", leased.size(), wheel.size());
+            }
+        } while (leased.size() == batchSize);
+    }
+
+    /**
+     * Advance the wheel and fire everything that expired.
+     */
+    @Scheduled(fixedDelayString = "${riverrun.workflow.timers.tick-millis:1000}")
+    public void tick() {
+        List<WorkflowTimerService.LeasedTimer> expired = new ArrayList<>();
+        wheel.advance(System.currentTimeMillis(), expired::add);
+        if (!expired.isEmpty()) {
+            fire(expired);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private void fire(List<WorkflowTimerService.LeasedTimer> expired) {
+        List<Callable<Void>> tasks = new ArrayList<>(expired.size());
+        for (WorkflowTimerService.LeasedTimer timer : expired) {
+            tasks.add(() -> {
+                fire(timer);
+                return null;
+            });
+        }
+
+        try {
+            executor.invokeAll(tasks);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        log.debug("Fired {} workflow timers", tasks.size());
+    }
+
+    private void fire(WorkflowTimerService.LeasedTimer timer) {
+        if (!CaseTransitionService.ENTITY_TYPE.equals(timer.entityType())) {
+            log.warn("Dropping timer {} for unsupported entity type {}", timer.id(), timer.entityType());
+            timerService.claim(timer.id(), leaseOwner);
+            return;
+        }
+        try {
+            tenantContext.setCurrentTenant(timer.tenantId());
+            CaseTransitionService.CaseTransitionResult result = caseTransitionService.fireTimer(timer, leaseOwner);
+            if (!result.isSuccess()) {
+                log.debug("Timer transition of case {} to {} not applied: {}",
+                        timer.entityId(), timer.targetState(), result.getErrorMessage());
+            }
+        } catch (Exception e) {
+            // Still leased: fires again once the lease expires
+            log.error("Error firing workflow timer " + timer.id(), e);
+        } finally {
+            tenantContext.clear();
+        }
+    }
+
+}
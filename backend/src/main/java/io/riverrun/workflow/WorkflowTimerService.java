@@ -0,0 +1,140 @@
+package io.riverrun.workflow;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Persists timer-driven transitions ({@code after} and {@code onDue}) declared on workflow states.
+ * Timers are created when an entity enters a state and removed when it leaves it;
+ * {@link WorkflowTimerScheduler} leases and fires the ones that come due. A timer records the
+ * index of its transition among the outgoing ones of its state, so the transition it was
+ * scheduled for is the one that fires.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class WorkflowTimerService {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO workflow_timers (id, tenant_id, entity_type, entity_id, from_state, transition_index, " +
+            "target_state, event, fire_at, created_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String DELETE_BY_ENTITY_SQL = "DELETE FROM workflow_timers WHERE entity_id = ?";
+
+    private static final String DELETE_BY_TRANSITION_SQL =
+            "DELETE FROM workflow_timers WHERE entity_id = ? AND from_state = ? AND transition_index = ?";
+
+    private static final String CLAIM_SQL = "DELETE FROM workflow_timers WHERE id = ? AND lease_owner = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Create the timers of the states the given entities just entered.
+     */
+    public void schedule(UUID tenantId, CompiledWorkflow workflow, String entityType, List<StateEntry> entries) {
+        LocalDateTime now = LocalDateTime.now();
+        List<Object[]> rows = new ArrayList<>();
+        for (StateEntry entry : entries) {
+            int state = workflow.stateOrdinal(entry.state());
+            if (state < 0) {
+                continue;
+            }
+            for (CompiledWorkflow.CompiledTransition timer : workflow.timers(state)) {
+                addRow(rows, tenantId, workflow, entityType, entry, timer, fireAt(timer, now, entry.dueDate()), now);
+            }
+        }
+
+        if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_SQL, rows);
+            log.debug("Scheduled {} workflow timers", rows.size());
+        }
+    }
+
+    /**
+     * Recreate the {@code onDue} timers of an entity whose due date changed while it stays in its state;
+     * {@code after} timers keep counting from the state entry.
+     */
+    public void rescheduleDue(UUID tenantId, CompiledWorkflow workflow, String entityType, StateEntry entry) {
+        int state = workflow.stateOrdinal(entry.state());
+        if (state < 0) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        List<Object[]> rows = new ArrayList<>();
+        for (CompiledWorkflow.CompiledTransition timer : workflow.timers(state)) {
+            if (timer.getAfter() != null || !timer.isOnDue()) {
+                continue;
+            }
+            jdbcTemplate.update(DELETE_BY_TRANSITION_SQL, entry.entityId(), entry.state(), timer.getIndex());
+            addRow(rows, tenantId, workflow, entityType, entry, timer, entry.dueDate(), now);
+        }
+        if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_SQL, rows);
+        }
+    }
+
+    /**
+     * Take a leased timer out of the table. Call this in the transaction that applies the timer's
+     * transition, so the timer stays leased, and is delivered again after the lease expires, if that fails.
+     *
+     * @return false if the timer was cancelled or its lease passed to another owner
+     */
+    public boolean claim(UUID timerId, String leaseOwner) {
+        return jdbcTemplate.update(CLAIM_SQL, timerId, leaseOwner) > 0;
+    }
+
+    /**
+     * Remove the pending timers of entities that left their state.
+     */
+    public void cancel(Collection<UUID> entityIds) {
+        if (entityIds.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(DELETE_BY_ENTITY_SQL, entityIds.stream().map(id -> new Object[] { id }).toList());
+    }
+
+    private static void addRow(List<Object[]> rows, UUID tenantId, CompiledWorkflow workflow, String entityType,
+                               StateEntry entry, CompiledWorkflow.CompiledTransition timer, LocalDateTime fireAt,
+                               LocalDateTime now) {
+        if (fireAt == null) {
+            return;
+        }
+        rows.add(new Object[] {
+                UUID.randomUUID(), tenantId, entityType, entry.entityId(), entry.state(), timer.getIndex(),
+                workflow.stateName(timer.getToOrdinal()), timer.getDefinition().getEvent(),
+                Timestamp.valueOf(fireAt), Timestamp.valueOf(now)
+        });
+    }
+
+    private static LocalDateTime fireAt(CompiledWorkflow.CompiledTransition timer, LocalDateTime enteredAt,
+                                        LocalDateTime dueDate) {
+        if (timer.getAfter() != null) {
+            return enteredAt.plus(timer.getAfter());
+        }
+        return timer.isOnDue() ? dueDate : null;
+    }
+
+    /**
+     * An entity that entered {@code state}; {@code dueDate} feeds {@code onDue} timers and may be null.
+     */
+    public record StateEntry(UUID entityId, String state, LocalDateTime dueDate) {
+    }
+
+    /**
+     * A timer leased by {@link WorkflowTimerScheduler}; {@code transitionIndex} is -1 for timers
+     * scheduled before the index was recorded.
+     */
+    public record LeasedTimer(UUID id, UUID tenantId, String entityType, UUID entityId, String fromState,
+                              int transitionIndex, String targetState, String event, LocalDateTime fireAt) {
+    }
+
+}
@@ -0,0 +1,158 @@
+package io.riverrun.audit;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AuditArchiveFileTest {
+
+    private static final AuditArchiveFile.Filter EVERYTHING = new AuditArchiveFile.Filter(null, null, null, null, null);
+    private static final LocalDateTime START = LocalDateTime.of(2024, 3, 1, 0, 0);
+
+    private final UUID tenantA = UUID.fromString("00000000-0000-0000-0000-00000000000a");
+    private final UUID tenantB = UUID.fromString("ffffffff-0000-0000-0000-00000000000b");
+    private final List<UUID> entities = List.of(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID());
+
+    @Test
+    void roundTripsEveryColumnAcrossRowGroups() throws IOException {
+        List<AuditArchiveFile.Row> rows = rows(50);
+        Path file = write(rows, 7);
+
+        assertEquals(rows, scan(file, EVERYTHING));
+    }
+
+    @Test
+    void keepsNullsEmptyStringsAndNonAsciiText() throws IOException {
+        List<AuditArchiveFile.Row> rows = List.of(
+                new AuditArchiveFile.Row(UUID.randomUUID(), tenantA, "Case", entities.get(0), "CREATE", null, null,
+                        null, "{\"title\":\"Gr\u00fc\u00dfe \u2713\"}", null, null, null, START),
+                new AuditArchiveFile.Row(UUID.randomUUID(), tenantA, "Case", entities.get(0), "UPDATE",
+                        UUID.randomUUID(), "", "{}", "", "{}", "::1", "curl/8", START.minusNanos(1000)),
+                new AuditArchiveFile.Row(UUID.randomUUID(), tenantB, "Form", entities.get(1), "DELETE", null, "bob",
+                        null, null, null, null, null, LocalDateTime.of(1969, 12, 31, 23, 59, 59, 999_999_000)));
+        Path file = write(rows, 2);
+
+        assertEquals(rows, scan(file, EVERYTHING));
+    }
+
+    @Test
+    void filtersByTenantEntityAndTimeRange() throws IOException {
+        List<AuditArchiveFile.Row> rows = rows(200);
+        Path file = write(rows, 16);
+        LocalDateTime from = START.plusHours(40);
+        LocalDateTime to = START.plusHours(120);
+
+        for (AuditArchiveFile.Filter filter : List.of(
+                new AuditArchiveFile.Filter(tenantA, null, null, null, null),
+                new AuditArchiveFile.Filter(tenantB, "Case", null, null, null),
+                new AuditArchiveFile.Filter(null, null, entities.get(2), from, null),
+                new AuditArchiveFile.Filter(tenantA, "Form", entities.get(1), from, to),
+                new AuditArchiveFile.Filter(UUID.randomUUID(), null, null, null, null))) {
+            List<AuditArchiveFile.Row> expected = rows.stream().filter(row -> matches(filter, row)).toList();
+            assertEquals(expected, scan(file, filter), filter.toString());
+        }
+    }
+
+    @Test
+    void stopsWhenTheSinkIsFull() throws IOException {
+        Path file = write(rows(30), 4);
+        List<AuditArchiveFile.Row> taken = new ArrayList<>();
+
+        try (AuditArchiveFile.Reader reader = AuditArchiveFile.Reader.open(file)) {
+            assertFalse(reader.scan(EVERYTHING, row -> {
+                taken.add(row);
+                return taken.size() < 5;
+            }));
+        }
+        assertEquals(5, taken.size());
+    }
+
+    @Test
+    void unfinishedWritersLeaveNothingBehind() throws IOException {
+        Path directory = Files.createTempDirectory("audit-archive");
+        Path file = directory.resolve("audit_logs_p202403" + AuditArchiveFile.EXTENSION);
+        try (AuditArchiveFile.Writer writer = new AuditArchiveFile.Writer(file, 4)) {
+            for (AuditArchiveFile.Row row : rows(10)) {
+                writer.add(row);
+            }
+        }
+
+        try (var files = Files.list(directory)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    void rejectsFilesThatAreNoArchive() throws IOException {
+        Path file = Files.createTempFile("audit-archive", AuditArchiveFile.EXTENSION);
+        Files.writeString(file, "{\"not\": \"an archive\", \"padding\": \"....................\"}");
+
+        assertThrows(IOException.class, () -> AuditArchiveFile.Reader.open(file));
+    }
+
+    private List<AuditArchiveFile.Row> rows(int count) {
+        Random random = new Random(7);
+        List<AuditArchiveFile.Row> rows = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            UUID tenant = random.nextBoolean() ? tenantA : tenantB;
+            String entityType = random.nextBoolean() ? "Case" : "Form";
+            UUID entity = entities.get(random.nextInt(entities.size()));
+            // Out of order on purpose: timestamps are delta encoded
+            LocalDateTime createdAt = START.plusHours(random.nextInt(160)).plusNanos(random.nextInt(1_000_000) * 1000L);
+            rows.add(new AuditArchiveFile.Row(UUID.randomUUID(), tenant, entityType, entity,
+                    List.of("CREATE", "UPDATE", "DELETE").get(random.nextInt(3)),
+                    random.nextInt(4) == 0 ? null : UUID.randomUUID(),
+                    random.nextInt(4) == 0 ? null : "user" + random.nextInt(3),
+                    random.nextBoolean() ? null : "{\"n\":" + i + "}",
+                    "{\"n\":" + (i + 1) + "}",
+                    random.nextBoolean() ? null : "{\"/n\":[" + i + "," + (i + 1) + "]}",
+                    random.nextBoolean() ? null : "10.0.0." + random.nextInt(3),
+                    random.nextBoolean() ? null : "agent/" + random.nextInt(2),
+                    createdAt));
+        }
+        return rows;
+    }
+
+    private static boolean matches(AuditArchiveFile.Filter filter, AuditArchiveFile.Row row) {
+        return (filter.tenantId() == null || filter.tenantId().equals(row.tenantId()))
+                && (filter.entityType() == null || filter.entityType().equals(row.entityType()))
+                && (filter.entityId() == null || filter.entityId().equals(row.entityId()))
+                && (filter.from() == null || !row.createdAt().isBefore(filter.from()))
+                && (filter.to() == null || row.createdAt().isBefore(filter.to()));
+    }
+
+    private static Path write(List<AuditArchiveFile.Row> rows, int rowGroupSize) throws IOException {
+        Path directory = Files.createTempDirectory("audit-archive");
+        Path file = directory.resolve("audit_logs_p202403" + AuditArchiveFile.EXTENSION);
+        try (AuditArchiveFile.Writer writer = new AuditArchiveFile.Writer(file, rowGroupSize)) {
+            for (AuditArchiveFile.Row row : rows) {
+                writer.add(row);
+            }
+            long bytes = writer.finish();
+            assertEquals(Files.size(file), bytes);
+        }
+        assertTrue(Files.exists(file));
+        return file;
+    }
+
+    private static List<AuditArchiveFile.Row> scan(Path file, AuditArchiveFile.Filter filter) throws IOException {
+        List<AuditArchiveFile.Row> rows = new ArrayList<>();
+        try (AuditArchiveFile.Reader reader = AuditArchiveFile.Reader.open(file)) {
+            assertTrue(reader.scan(filter, rows::add));
+        }
+        return rows;
+    }
+
+}
@@ -0,0 +1,134 @@
+package io.riverrun.audit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AuditDiffTest {
+
+    @Test
+    void treatsNullsAsValues() {
+        Map<String, Object> oldValues = map("assignee", null, "priority", "LOW", "closedAt", null);
+        Map<String, Object> newValues = map("assignee", "ann", "priority", null, "closedAt", null);
+
+        assertEquals(map(
+                "/assignee", operation("replace", null, "ann"),
+                "/priority", operation("replace", "LOW", null)), AuditDiff.diff(oldValues, newValues));
+    }
+
+    @Test
+    void addsAndRemovesKeysWithNullValues() {
+        assertEquals(map("/note", added(null)), AuditDiff.diff(map(), map("note", null)));
+        assertEquals(map("/note", removed(null)), AuditDiff.diff(map("note", null), map()));
+    }
+
+    @Test
+    void recordsOnlyTheChangedLeavesOfNestedMaps() {
+        Map<String, Object> oldValues = map("status", "OPEN",
+                "customFields", map("priority", "LOW", "region", "EU", "address", map("city", "Oslo", "zip", "0150")));
+        Map<String, Object> newValues = map("status", "OPEN",
+                "customFields", map("priority", "HIGH", "address", map("city", "Bergen", "zip", "0150"), "vip", true));
+
+        Map<String, Object> changes = AuditDiff.diff(oldValues, newValues);
+
+        assertEquals(map(
+                "/customFields/priority", operation("replace", "LOW", "HIGH"),
+                "/customFields/address/city", operation("replace", "Oslo", "Bergen"),
+                "/customFields/vip", added(true),
+                "/customFields/region", removed("EU")), changes);
+        assertEquals(List.of("/customFields/priority", "/customFields/address/city", "/customFields/vip",
+                "/customFields/region"), List.copyOf(changes.keySet()));
+    }
+
+    @Test
+    void diffsListsByIndex() {
+        assertEquals(map("/tags/1", operation("replace", "b", "x")),
+                AuditDiff.diff(map("tags", List.of("a", "b", "c")), map("tags", List.of("a", "x", "c"))));
+        assertEquals(map("/tags/2", added("c"), "/tags/3", added("d")),
+                AuditDiff.diff(map("tags", List.of("a", "b")), map("tags", List.of("a", "b", "c", "d"))));
+
+        Map<String, Object> shrunk = AuditDiff.diff(map("tags", List.of("a", "b", "c", "d")),
+                map("tags", List.of("a")));
+        assertEquals(map("/tags/3", removed("d"), "/tags/2", removed("c"), "/tags/1", removed("b")), shrunk);
+        // Highest index first, so the removals can be applied in order
+        assertEquals(List.of("/tags/3", "/tags/2", "/tags/1"), List.copyOf(shrunk.keySet()));
+    }
+
+    @Test
+    void walksMapsInsideLists() {
+        Map<String, Object> oldValues = map("lines", List.of(map("sku", "x", "qty", 1), map("sku", "y", "qty", 2)));
+        Map<String, Object> newValues = map("lines", List.of(map("sku", "x", "qty", 1), map("sku", "y", "qty", 3)));
+
+        assertEquals(map("/lines/1/qty", operation("replace", 2, 3)), AuditDiff.diff(oldValues, newValues));
+    }
+
+    @Test
+    void replacesValuesThatChangeShape() {
+        assertEquals(map("/tags", operation("replace", "a", List.of("a"))),
+                AuditDiff.diff(map("tags", "a"), map("tags", List.of("a"))));
+        assertEquals(map("/address", operation("replace", map("city", "Oslo"), List.of("Oslo"))),
+                AuditDiff.diff(map("address", map("city", "Oslo")), map("address", List.of("Oslo"))));
+    }
+
+    @Test
+    void escapesPointerSegments() {
+        Map<String, Object> changes = AuditDiff.diff(
+                map("fields", map("a/b", 1, "c~d", 1, "~/", 1)),
+                map("fields", map("a/b", 2, "c~d", 2, "~/", 2)));
+
+        assertEquals(List.of("/fields/a~1b", "/fields/c~0d", "/fields/~0~1"), List.copyOf(changes.keySet()));
+    }
+
+    @Test
+    void returnsTheSharedEmptyMapWithoutChanges() {
+        Map<String, Object> values = map("status", "OPEN", "customFields", map("tags", new ArrayList<>(List.of("a"))));
+        Map<String, Object> copy = map("status", "OPEN", "customFields", map("tags", Arrays.asList("a")));
+
+        assertSame(Map.of(), AuditDiff.diff(values, copy));
+        assertSame(Map.of(), AuditDiff.diff(map(), map()));
+        assertTrue(AuditDiff.diff(map("a", null), map("a", null)).isEmpty());
+    }
+
+    /**
+     * An insertion-ordered map that, unlike {@link Map#of}, takes null values.
+     */
+    private static Map<String, Object> map(Object... entries) {
+        Map<String, Object> map = new LinkedHashMap<>();
+        for (int i = 0; i < entries.length; i += 2) {
+            map.put((String) entries[i], entries[i + 1]);
+        }
+        return map;
+    }
+
+    private static Map<String, Object> operation(String op, Object old, Object value) {
+        Map<String, Object> operation = new HashMap<>();
+        operation.put("op", op);
+        operation.put("old", old);
+        operation.put("value", value);
+        return operation;
+    }
+
+    private static Map<String, Object> added(Object value) {
+        Map<String, Object> operation = new HashMap<>();
+        operation.put("op", "add");
+        operation.put("value", value);
+        return operation;
+    }
+
+    private static Map<String, Object> removed(Object old) {
+        Map<String, Object> operation = new HashMap<>();
+        operation.put("op", "remove");
+        operation.put("old", old);
+        return operation;
+    }
+
+}
@@ -0,0 +1,112 @@
+package io.riverrun.audit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AuditWalTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper().findAndRegisterModules();
+
+    @Test
+    void replaysUnwrittenEntriesOnTheNextStart() throws IOException {
+        Path directory = Files.createTempDirectory("audit-wal");
+        List<AuditEntry> entries = List.of(entry("created"), entry("updated"), entry("deleted"));
+
+        AuditWal crashed = open(directory, 1 << 20);
+        crashed.recover();
+        for (AuditEntry entry : entries) {
+            crashed.append(entry);
+        }
+        crashed.sync();
+        // No close: the process died with the entries still queued
+
+        AuditWal restarted = open(directory, 1 << 20);
+        assertEquals(entries, restarted.recover());
+        restarted.deleteRecovered();
+        assertTrue(restarted.recover().isEmpty());
+        assertEquals(0, segmentCount(directory));
+    }
+
+    @Test
+    void forgetsWrittenEntries() throws IOException {
+        Path directory = Files.createTempDirectory("audit-wal");
+        AuditWal wal = open(directory, 1 << 20);
+        wal.recover();
+        long segment = wal.append(entry("created"));
+        wal.append(entry("updated"));
+        wal.sync();
+        wal.written(segment, 2);
+
+        assertTrue(open(directory, 1 << 20).recover().isEmpty());
+        wal.close();
+        assertEquals(0, segmentCount(directory));
+    }
+
+    @Test
+    void keepsRotatedSegmentsUntilTheirEntriesAreWritten() throws IOException {
+        Path directory = Files.createTempDirectory("audit-wal");
+        AuditWal wal = open(directory, 1);
+        wal.recover();
+        AuditEntry first = entry("created");
+        AuditEntry second = entry("updated");
+        long firstSegment = wal.append(first);
+        long secondSegment = wal.append(second);
+        wal.sync();
+        assertNotEquals(firstSegment, secondSegment);
+        assertEquals(2, segmentCount(directory));
+
+        wal.written(firstSegment, 1);
+        assertEquals(1, segmentCount(directory));
+        assertEquals(List.of(second), open(directory, 1).recover());
+
+        wal.close();
+        assertEquals(List.of(second), open(directory, 1).recover());
+    }
+
+    @Test
+    void skipsATornLastLine() throws IOException {
+        Path directory = Files.createTempDirectory("audit-wal");
+        AuditWal wal = open(directory, 1 << 20);
+        wal.recover();
+        AuditEntry entry = entry("created");
+        wal.append(entry);
+        wal.sync();
+        try (var files = Files.list(directory)) {
+            Path segment = files.findFirst().orElseThrow();
+            Files.writeString(segment, "{\"id\":\"" + UUID.randomUUID() + "\",\"tenan",
+                    StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+        }
+
+        assertEquals(List.of(entry), open(directory, 1 << 20).recover());
+    }
+
+    private static AuditWal open(Path directory, long segmentBytes) {
+        return new AuditWal(directory, MAPPER, segmentBytes, true);
+    }
+
+    private static AuditEntry entry(String action) {
+        return new AuditEntry(UUID.randomUUID(), UUID.randomUUID(), "Case", UUID.randomUUID(), action,
+                UUID.randomUUID(), "alice", null, "{\"status\":\"OPEN\"}", null,
+                LocalDateTime.of(2024, 5, 1, 12, 30, 15, 123_000_000));
+    }
+
+    private static long segmentCount(Path directory) throws IOException {
+        try (var files = Files.list(directory)) {
+            return files.count();
+        }
+    }
+
+}
@@ -0,0 +1,137 @@
+package io.riverrun.forms;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FieldValidationIndexTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final List<JsonNode> compiled = new ArrayList<>();
+    private final SchemaValidator recorder = new SchemaValidator() {
+        @Override
+        public String getName() {
+            return "recorder";
+        }
+
+        @Override
+        public CompiledSchema compile(JsonNode schema) {
+            compiled.add(schema);
+            return (data, maxErrors) -> List.of();
+        }
+    };
+
+    @Test
+    void followsReferencesIntoDefinitions() {
+        JsonNode schema = json("""
+                {"type": "object",
+                 "definitions": {"address": {"type": "object", "required": ["city"],
+                                             "properties": {"city": {"type": "string"}}}},
+                 "properties": {"address": {"$ref": "#/definitions/address"}}}""");
+        FieldValidationIndex index = FieldValidationIndex.build(recorder, schema);
+
+        assertNotNull(index.schemaFor("address.city"));
+        JsonNode slice = compiled.get(0);
+        assertEquals("string", slice.at("/properties/address/properties/city/type").asText());
+        assertEquals("city", slice.at("/properties/address/required/0").asText());
+        assertTrue(slice.has("definitions"));
+    }
+
+    @Test
+    void validatesCompositeFieldsAgainstTheWholeSchema() {
+        JsonNode schema = json("""
+                {"type": "object",
+                 "properties": {"kind": {"type": "string"},
+                                "amount": {"oneOf": [{"type": "integer"}, {"type": "string"}]},
+                                "extra": {"type": "object",
+                                          "allOf": [{"properties": {"note": {"type": "string"}}}]}}}""");
+        FieldValidationIndex index = FieldValidationIndex.build(recorder, schema);
+
+        assertNotNull(index.schemaFor("kind"));
+        assertNotNull(index.schemaFor("amount"));
+        assertNotNull(index.schemaFor("extra"));
+        assertNotNull(index.schemaFor("extra.note"));
+        assertNull(index.schemaFor("other"));
+
+        // The slice of "kind", then the whole schema once for all the others
+        assertEquals(2, compiled.size());
+        assertFalse(compiled.get(0) == schema);
+        assertTrue(compiled.get(1) == schema);
+    }
+
+    @Test
+    void validatesFieldsKeepingReferencesIntoPropertiesAgainstTheWholeSchema() {
+        JsonNode schema = json("""
+                {"type": "object",
+                 "properties": {"shipping": {"type": "object", "properties": {"city": {"type": "string"}}},
+                                "billing": {"$ref": "#/properties/shipping"},
+                                "copy": {"type": "object", "properties": {
+                                        "city": {"$ref": "#/properties/shipping/properties/city"}}}}}""");
+        FieldValidationIndex index = FieldValidationIndex.build(recorder, schema);
+
+        // The reference inside "copy" would dangle in a slice
+        assertNotNull(index.schemaFor("copy"));
+        assertTrue(compiled.get(0) == schema);
+
+        // References met on the way down are resolved before slicing
+        assertNotNull(index.schemaFor("billing.city"));
+        assertNotNull(index.schemaFor("copy.city"));
+        assertEquals("string", compiled.get(1).at("/properties/billing/properties/city/type").asText());
+        assertEquals("string", compiled.get(2).at("/properties/copy/properties/city/type").asText());
+    }
+
+    @Test
+    void walksRecursiveSchemasOnce() {
+        JsonNode schema = json("""
+                {"type": "object",
+                 "properties": {"name": {"type": "string"},
+                                "children": {"type": "array", "items": {"$ref": "#"}}}}""");
+        FieldValidationIndex index = FieldValidationIndex.build(recorder, schema);
+
+        assertNotNull(index.schemaFor("children.0"));
+        assertNull(index.schemaFor("children.0.name"));
+    }
+
+    @Test
+    void removesFieldsWithoutValue() {
+        JsonNode data = json("{\"a\": {\"b\": 1, \"c\": 2}, \"lines\": [{\"sku\": \"x\"}, {\"sku\": \"y\"}]}");
+
+        assertEquals(json("{\"a\": {\"c\": 2}, \"lines\": [{\"sku\": \"x\"}, {\"sku\": \"y\"}]}"),
+                FieldValidationIndex.instance("a.b", null, data, true));
+        assertEquals(json("{\"a\": {\"b\": 1, \"c\": 2}, \"lines\": [{}]}"),
+                FieldValidationIndex.instance("lines.1.sku", null, data, true));
+        assertEquals(json("{\"a\": {\"b\": null, \"c\": 2}, \"lines\": [{\"sku\": \"x\"}, {\"sku\": \"y\"}]}"),
+                FieldValidationIndex.instance("a.b", json("null"), data, true));
+    }
+
+    @Test
+    void keepsArrayItemsInPlaceForTheWholeSchema() {
+        JsonNode data = json("{\"lines\": [{\"sku\": \"x\"}, {\"sku\": \"y\"}]}");
+
+        assertEquals(json("{\"lines\": [{\"sku\": \"z\"}]}"),
+                FieldValidationIndex.instance("lines.1.sku", json("\"z\""), data, true));
+        assertEquals(json("{\"lines\": [{\"sku\": \"x\"}, {\"sku\": \"z\"}]}"),
+                FieldValidationIndex.instance("lines.1.sku", json("\"z\""), data, false));
+        assertEquals(json("{\"lines\": [{\"sku\": \"x\"}]}"),
+                FieldValidationIndex.instance("lines.1", null, data, false));
+    }
+
+    private static JsonNode json(String text) {
+        try {
+            return MAPPER.readTree(text);
+        } catch (Exception e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+}
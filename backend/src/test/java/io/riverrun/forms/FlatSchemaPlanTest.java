@@ -0,0 +1,145 @@
+package io.riverrun.forms;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FlatSchemaPlanTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static final String CONTACT = """
+            {"type": "object",
+             "properties": {
+               "name": {"type": "string", "minLength": 2, "maxLength": 5},
+               "age": {"type": "integer", "minimum": 0, "maximum": 150},
+               "score": {"type": "number", "maximum": 1.5},
+               "tier": {"enum": ["GOLD", "SILVER", 3]},
+               "active": {"type": "boolean"}
+             },
+             "required": ["name", "id"],
+             "additionalProperties": true}""";
+
+    private static final String CLOSED = """
+            {"type": "object",
+             "properties": {"code": {"type": "string", "pattern": "^[A-Z]{3}-\\\\d+"}},
+             "additionalProperties": false}""";
+
+    private static final String ANCHORED = """
+            {"type": "object", "properties": {"code": {"type": "string", "pattern": "^[A-Z]{3}-\\\\d+$"}}}""";
+
+    private static final String LETTERS = """
+            {"type": "object", "properties": {"name": {"type": "string", "pattern": "^\\\\p{L}+"}}}""";
+
+    private static final List<String> PAYLOADS = List.of(
+            "{\"name\": \"Ann\", \"id\": 1}",
+            "{\"name\": \"Ann\", \"id\": null, \"age\": 150, \"score\": 1.5, \"tier\": 3, \"active\": false}",
+            "{\"name\": \"\u00c5se\", \"id\": \"x\", \"extra\": [1, 2]}",
+            "{\"name\": \"A\", \"id\": 1}",
+            "{\"name\": \"Annabel\", \"id\": 1}",
+            "{\"name\": \"Ann\"}",
+            "{\"name\": \"Ann\", \"id\": 1, \"age\": -1}",
+            "{\"name\": \"Ann\", \"id\": 1, \"age\": 1.5}",
+            "{\"name\": \"Ann\", \"id\": 1, \"tier\": \"BRONZE\"}",
+            "{\"name\": \"Ann\", \"id\": 1, \"tier\": 3.0}",
+            "{\"name\": 5, \"id\": 1}",
+            "{\"code\": \"ABC-12\"}",
+            "{\"code\": \"abc-12\"}",
+            "{\"code\": \"ABC-12\", \"other\": 1}",
+            "{\"code\": \"ABC-12\\n\"}",
+            "{}",
+            "[]");
+
+    @Test
+    void acceptedPayloadsAreValidForEveryEngine() {
+        List<SchemaValidator> engines = List.of(new NetworkntSchemaValidator(), new FgeSchemaValidator());
+        int accepted = 0;
+        for (SchemaValidator engine : engines) {
+            for (String schema : List.of(CONTACT, CLOSED, ANCHORED, LETTERS)) {
+                JsonNode schemaNode = json(schema);
+                FlatSchemaPlan plan = FlatSchemaPlan.compile(schemaNode, engine.hasJavaPatterns());
+                SchemaValidator.CompiledSchema compiled = engine.compile(schemaNode);
+                for (String payload : PAYLOADS) {
+                    JsonNode data = json(payload);
+                    if (plan != null && plan.accepts(data)) {
+                        accepted++;
+                        assertTrue(compiled.validate(data, 0).isEmpty(),
+                                engine.getName() + " rejects " + payload + " accepted by the plan for " + schema);
+                    }
+                }
+            }
+        }
+        assertTrue(accepted > 0);
+    }
+
+    @Test
+    void rejectsPayloadsOutsideTheSchema() {
+        FlatSchemaPlan plan = FlatSchemaPlan.compile(json(CONTACT), true);
+
+        assertTrue(plan.accepts(json(PAYLOADS.get(0))));
+        assertTrue(plan.accepts(json(PAYLOADS.get(1))));
+        for (String payload : PAYLOADS.subList(3, 11)) {
+            assertFalse(plan.accepts(json(payload)), payload);
+        }
+        assertFalse(plan.accepts(json("[]")));
+    }
+
+    @Test
+    void closedSchemasRejectUndeclaredProperties() {
+        FlatSchemaPlan plan = FlatSchemaPlan.compile(json(CLOSED), true);
+
+        assertTrue(plan.accepts(json("{\"code\": \"ABC-12\"}")));
+        assertTrue(plan.accepts(json("{}")));
+        assertFalse(plan.accepts(json("{\"code\": \"abc-12\"}")));
+        assertFalse(plan.accepts(json("{\"code\": \"ABC-12\", \"other\": 1}")));
+    }
+
+    @Test
+    void leavesPatternsToEnginesWithoutJavaRegex() {
+        // \p{L} is a letter class to java.util.regex but an escaped "p" to ECMA 262
+        assertNotNull(FlatSchemaPlan.compile(json(LETTERS), true));
+        assertNull(FlatSchemaPlan.compile(json(LETTERS), false));
+        assertNull(FlatSchemaPlan.compile(json(CLOSED), false));
+        assertNotNull(FlatSchemaPlan.compile(json(CONTACT), false));
+    }
+
+    @Test
+    void leavesEndAnchorsAndInlineFlagsToTheEngine() {
+        // Java lets $ match before a final line break, the engines rewrite it to the end of the input
+        assertNull(FlatSchemaPlan.compile(json(ANCHORED), true));
+        assertNull(FlatSchemaPlan.compile(json(
+                "{\"type\": \"object\", \"properties\": {\"a\": {\"pattern\": \"^a\\\\Z\"}}}"), true));
+        assertNull(FlatSchemaPlan.compile(json(
+                "{\"type\": \"object\", \"properties\": {\"a\": {\"pattern\": \"(?m)^a\"}}}"), true));
+        assertNotNull(FlatSchemaPlan.compile(json(
+                "{\"type\": \"object\", \"properties\": {\"a\": {\"pattern\": \"^(?:ab)+\"}}}"), true));
+    }
+
+    @Test
+    void refusesSchemasOutsideTheSubset() {
+        assertNull(FlatSchemaPlan.compile(json("{\"type\": \"array\"}"), true));
+        assertNull(FlatSchemaPlan.compile(json("{\"type\": \"object\", \"allOf\": []}"), true));
+        assertNull(FlatSchemaPlan.compile(json(
+                "{\"type\": \"object\", \"properties\": {\"a\": {\"type\": \"object\"}}}"), true));
+        assertNull(FlatSchemaPlan.compile(json(
+                "{\"type\": \"object\", \"properties\": {\"a\": {\"format\": \"email\"}}}"), true));
+        assertNull(FlatSchemaPlan.compile(json(
+                "{\"type\": \"object\", \"properties\": {\"a\": {\"pattern\": \"(\"}}}"), true));
+    }
+
+    private static JsonNode json(String text) {
+        try {
+            return MAPPER.readTree(text);
+        } catch (Exception e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+}
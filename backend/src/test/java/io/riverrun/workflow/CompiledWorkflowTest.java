@@ -0,0 +1,110 @@
+package io.riverrun.workflow;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.context.support.GenericApplicationContext;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class CompiledWorkflowTest {
+
+    private final WorkflowGuardRegistry guardRegistry = new WorkflowGuardRegistry(new GenericApplicationContext(), 100);
+    private final WorkflowActionRegistry actionRegistry = new WorkflowActionRegistry(new GenericApplicationContext());
+
+    @Test
+    void findsTheFirstDeclaredTransitionByTargetAndEvent() {
+        Map<String, List<WorkflowDefinition.TransitionDefinition>> transitions = new LinkedHashMap<>();
+        transitions.put("A", List.of(to("C", "escalate"), to("B", null), to("C", null), to("B", "escalate"),
+                to("C", "close")));
+        transitions.put("B", List.of());
+        transitions.put("C", List.of());
+        CompiledWorkflow workflow = compile(transitions);
+        CompiledWorkflow.CompiledTransition[] outgoing = workflow.outgoing(0);
+        int escalate = workflow.eventOrdinal("escalate");
+        int close = workflow.eventOrdinal("close");
+
+        assertSame(outgoing[0], workflow.findTransition(0, 2, -1));
+        assertSame(outgoing[1], workflow.findTransition(0, 1, -1));
+        assertSame(outgoing[4], workflow.findTransition(0, 2, close));
+        assertSame(outgoing[3], workflow.findTransition(0, 1, escalate));
+        assertNull(workflow.findTransition(0, 1, close));
+        assertNull(workflow.findTransition(0, 0, -1));
+        assertNull(workflow.findTransition(1, 0, -1));
+
+        assertSame(outgoing[0], workflow.findTransitionByEvent(0, escalate));
+        assertSame(outgoing[4], workflow.findTransitionByEvent(0, close));
+        assertNull(workflow.findTransitionByEvent(1, escalate));
+        assertNull(workflow.findTransitionByEvent(0, -1));
+    }
+
+    @Test
+    void lookupsMatchALinearScanOnRandomWorkflows() {
+        Random random = new Random(7);
+        for (int round = 0; round < 20; round++) {
+            int n = 1 + random.nextInt(60);
+            int eventCount = 1 + random.nextInt(8);
+            Map<String, List<WorkflowDefinition.TransitionDefinition>> transitions = new LinkedHashMap<>();
+            for (int state = 0; state < n; state++) {
+                List<WorkflowDefinition.TransitionDefinition> outgoing = new ArrayList<>();
+                for (int i = random.nextInt(12); i > 0; i--) {
+                    String event = random.nextBoolean() ? "e" + random.nextInt(eventCount) : null;
+                    outgoing.add(to("S" + random.nextInt(n), event));
+                }
+                transitions.put("S" + state, outgoing);
+            }
+            CompiledWorkflow workflow = compile(transitions);
+
+            for (int from = 0; from < n; from++) {
+                for (int event = -1; event < eventCount; event++) {
+                    int ordinal = event < 0 ? -1 : workflow.eventOrdinal("e" + event);
+                    if (event >= 0 && ordinal < 0) {
+                        continue;
+                    }
+                    assertSame(scan(workflow, from, -1, ordinal), workflow.findTransitionByEvent(from, ordinal));
+                    for (int target = 0; target < n; target++) {
+                        assertSame(scan(workflow, from, target, ordinal),
+                                workflow.findTransition(from, target, ordinal),
+                                "round " + round + ": S" + from + " -> S" + target + " on " + event);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * First outgoing transition matching a target (if non-negative) and an event (if non-negative).
+     */
+    private static CompiledWorkflow.CompiledTransition scan(CompiledWorkflow workflow, int from, int to, int event) {
+        if (to < 0 && event < 0) {
+            return null;
+        }
+        for (CompiledWorkflow.CompiledTransition transition : workflow.outgoing(from)) {
+            if ((to < 0 || transition.getToOrdinal() == to) && (event < 0 || transition.getEventOrdinal() == event)) {
+                return transition;
+            }
+        }
+        return null;
+    }
+
+    private CompiledWorkflow compile(Map<String, List<WorkflowDefinition.TransitionDefinition>> transitions) {
+        Map<String, WorkflowDefinition.StateDefinition> states = new LinkedHashMap<>();
+        transitions.forEach((name, outgoing) -> states.put(name,
+                WorkflowDefinition.StateDefinition.builder().name(name).transitions(outgoing).build()));
+        WorkflowDefinition definition = WorkflowDefinition.builder()
+                .initialState(transitions.keySet().iterator().next())
+                .states(states)
+                .build();
+        return CompiledWorkflow.compile(definition, guardRegistry, actionRegistry);
+    }
+
+    private static WorkflowDefinition.TransitionDefinition to(String state, String event) {
+        return WorkflowDefinition.TransitionDefinition.builder().to(state).event(event).build();
+    }
+
+}
@@ -0,0 +1,112 @@
+package io.riverrun.workflow;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GuardExpressionTest {
+
+    private static final UUID USER = UUID.fromString("00000000-0000-0000-0000-000000000001");
+
+    @Test
+    void comparesNumbersAcrossIntegralAndDecimal() {
+        WorkflowContext context = context(Map.of("amount", 15000, "rate", 0.5));
+
+        assertTrue(eval("data.amount > 10000", context));
+        assertTrue(eval("amount >= 15000.0", context));
+        assertTrue(eval("data.rate * 2 == 1", context));
+        assertFalse(eval("data.amount < 10000", context));
+    }
+
+    @Test
+    void honoursPrecedenceAndParentheses() {
+        WorkflowContext context = context(Map.of());
+
+        assertTrue(eval("1 + 2 * 3 == 7", context));
+        assertTrue(eval("(1 + 2) * 3 == 9", context));
+        assertTrue(eval("true || false && false", context));
+        assertFalse(eval("(true || false) && false", context));
+        assertTrue(eval("!false && 7 % 4 == 3", context));
+        assertTrue(eval("-2 + 5 == 3", context));
+    }
+
+    @Test
+    void resolvesContextAttributesAndNestedData() {
+        WorkflowContext context = context(Map.of("customer",
+                Map.of("tier", "GOLD", "address", Map.of("country", "NO"))));
+        context.setCurrentState("OPEN");
+        context.setTargetState("RESOLVED");
+        context.setEvent("resolve");
+        context.setUserId(USER);
+
+        assertTrue(eval("currentState == 'OPEN' && targetState == \"RESOLVED\" && event == 'resolve'", context));
+        assertTrue(eval("userId == '" + USER + "'", context));
+        assertTrue(eval("data.customer.tier == 'GOLD'", context));
+        assertTrue(eval("customer.address.country == 'NO'", context));
+    }
+
+    @Test
+    void matchesMembershipInListsAndStrings() {
+        WorkflowContext context = context(Map.of("userRoles", List.of("AGENT", "MANAGER"), "priority", "HIGH"));
+
+        assertTrue(eval("'MANAGER' in userRoles", context));
+        assertFalse(eval("'ADMIN' in userRoles", context));
+        assertTrue(eval("priority in ['HIGH', 'URGENT']", context));
+        assertTrue(eval("'IG' in priority", context));
+    }
+
+    @Test
+    void treatsMissingValuesAsNull() {
+        WorkflowContext context = context(Map.of("present", 1));
+
+        // A bare missing value is not true, but null is an ordinary value to the other operators
+        assertFalse(eval("data.flag", context));
+        assertTrue(eval("!data.flag", context));
+        assertTrue(eval("data.x != 5", context));
+        assertTrue(eval("data.x == null", context));
+        assertTrue(eval("data.present.child == null", context));
+
+        // Ordering comparisons, arithmetic and membership with a null operand never pass
+        assertFalse(eval("data.x < 5", context));
+        assertFalse(eval("data.x >= 5", context));
+        assertFalse(eval("data.x + 1 == 1", context));
+        assertFalse(eval("'a' in data.list", context));
+    }
+
+    @Test
+    void rejectsMalformedExpressions() {
+        assertThrows(IllegalArgumentException.class, () -> GuardExpression.compile(""));
+        assertThrows(IllegalArgumentException.class, () -> GuardExpression.compile("data.amount >"));
+        assertThrows(IllegalArgumentException.class, () -> GuardExpression.compile("(true"));
+        assertThrows(IllegalArgumentException.class, () -> GuardExpression.compile("'open"));
+        assertThrows(IllegalArgumentException.class, () -> GuardExpression.compile("1.2.3 > 1"));
+        assertThrows(IllegalArgumentException.class, () -> GuardExpression.compile("true true"));
+    }
+
+    @Test
+    void rejectsIllTypedExpressions() {
+        assertThrows(IllegalArgumentException.class, () -> GuardExpression.compile("1 + 2"));
+        assertThrows(IllegalArgumentException.class, () -> GuardExpression.compile("'a' && true"));
+        assertThrows(IllegalArgumentException.class, () -> GuardExpression.compile("1 < 'a'"));
+        assertThrows(IllegalArgumentException.class, () -> GuardExpression.compile("true > false"));
+        assertThrows(IllegalArgumentException.class, () -> GuardExpression.compile("'a' in 5"));
+    }
+
+    private static boolean eval(String expression, WorkflowContext context) {
+        return GuardExpression.compile(expression).evaluate(context, Map.of());
+    }
+
+    private static WorkflowContext context(Map<String, Object> data) {
+        WorkflowContext context = new WorkflowContext();
+        context.setData(new HashMap<>(data));
+        return context;
+    }
+
+}
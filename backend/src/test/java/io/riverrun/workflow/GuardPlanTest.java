@@ -0,0 +1,58 @@
+package io.riverrun.workflow;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class GuardPlanTest {
+
+    private static final WorkflowGuard PASS = (context, params) -> true;
+
+    private int order;
+
+    @Test
+    void runsOnlyParallelSafeExpensiveGuardsConcurrently() {
+        GuardPlan plan = new GuardPlan(new CompiledWorkflow.BoundGuard[] {
+                bind("cheap", WorkflowGuard.of(PASS, WorkflowGuard.COST_CHEAP, true, true)),
+                bind("query", WorkflowGuard.of(PASS, WorkflowGuard.COST_EXPENSIVE, true, true)),
+                bind("jpaQuery", WorkflowGuard.of(PASS, WorkflowGuard.COST_EXPENSIVE, true)),
+                bind("remote", WorkflowGuard.of(PASS, WorkflowGuard.COST_EXPENSIVE, true, true)),
+                bind("notify", WorkflowGuard.of(PASS, WorkflowGuard.COST_EXPENSIVE, false, true))});
+
+        assertEquals(List.of("cheap", "jpaQuery"), rules(plan.sequential()));
+        assertEquals(List.of("query", "remote"), rules(plan.concurrent()));
+        assertEquals(List.of("notify"), rules(plan.impure()));
+    }
+
+    @Test
+    void keepsGuardsSequentialByDefault() {
+        WorkflowGuard expensive = new WorkflowGuard() {
+            @Override
+            public boolean evaluate(WorkflowContext context, Map<String, Object> parameters) {
+                return true;
+            }
+
+            @Override
+            public int getCost() {
+                return COST_EXPENSIVE;
+            }
+        };
+        GuardPlan plan = new GuardPlan(new CompiledWorkflow.BoundGuard[] {bind("a", expensive), bind("b", expensive)});
+
+        assertEquals(2, plan.sequential().length);
+        assertEquals(0, plan.concurrent().length);
+    }
+
+    private CompiledWorkflow.BoundGuard bind(String rule, WorkflowGuard guard) {
+        return new CompiledWorkflow.BoundGuard(rule, guard, Map.of(), order++);
+    }
+
+    private static List<String> rules(CompiledWorkflow.BoundGuard[] guards) {
+        return Arrays.stream(guards).map(CompiledWorkflow.BoundGuard::getRule).toList();
+    }
+
+}
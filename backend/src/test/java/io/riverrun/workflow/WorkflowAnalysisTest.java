@@ -0,0 +1,178 @@
+package io.riverrun.workflow;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.context.support.GenericApplicationContext;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WorkflowAnalysisTest {
+
+    private final WorkflowGuardRegistry guardRegistry = new WorkflowGuardRegistry(new GenericApplicationContext(), 100);
+    private final WorkflowActionRegistry actionRegistry = new WorkflowActionRegistry(new GenericApplicationContext());
+
+    @Test
+    void reachabilityFollowsCyclesButNotBackwards() {
+        CompiledWorkflow workflow = compile("NEW", Map.of(
+                "NEW", List.of(to("OPEN")),
+                "OPEN", List.of(to("PENDING"), to("RESOLVED")),
+                "PENDING", List.of(to("OPEN")),
+                "RESOLVED", List.of(to("CLOSED")),
+                "CLOSED", List.of()));
+
+        assertTrue(canReach(workflow, "NEW", "CLOSED"));
+        assertTrue(canReach(workflow, "PENDING", "RESOLVED"));
+        assertTrue(canReach(workflow, "OPEN", "OPEN"));
+        assertTrue(canReach(workflow, "PENDING", "PENDING"));
+        assertFalse(canReach(workflow, "NEW", "NEW"));
+        assertFalse(canReach(workflow, "RESOLVED", "OPEN"));
+        assertFalse(canReach(workflow, "CLOSED", "NEW"));
+        assertTrue(workflow.getAnalysis().isTerminal(workflow.stateOrdinal("CLOSED")));
+        assertEquals(List.of(List.of("OPEN", "PENDING")), sorted(workflow.getAnalysis().getUnguardedCycles()));
+    }
+
+    @Test
+    void selfLoopReachesItself() {
+        CompiledWorkflow workflow = compile("A", Map.of(
+                "A", List.of(to("A"), to("B")),
+                "B", List.of()));
+
+        assertTrue(canReach(workflow, "A", "A"));
+        assertFalse(canReach(workflow, "B", "B"));
+        assertEquals(List.of(List.of("A")), workflow.getAnalysis().getUnguardedCycles());
+    }
+
+    @Test
+    void closureMatchesBreadthFirstSearchOnRandomGraphs() {
+        Random random = new Random(42);
+        for (int round = 0; round < 50; round++) {
+            int n = 2 + random.nextInt(40);
+            int[][] edges = new int[n][];
+            Map<String, List<WorkflowDefinition.TransitionDefinition>> transitions = new LinkedHashMap<>();
+            for (int state = 0; state < n; state++) {
+                int degree = random.nextInt(4);
+                edges[state] = new int[degree];
+                List<WorkflowDefinition.TransitionDefinition> outgoing = new ArrayList<>();
+                for (int i = 0; i < degree; i++) {
+                    edges[state][i] = random.nextInt(n);
+                    outgoing.add(to("S" + edges[state][i]));
+                }
+                transitions.put("S" + state, outgoing);
+            }
+            CompiledWorkflow workflow = compile("S0", transitions);
+
+            for (int from = 0; from < n; from++) {
+                BitSet expected = bfs(edges, from);
+                for (int to = 0; to < n; to++) {
+                    assertEquals(expected.get(to), canReach(workflow, "S" + from, "S" + to),
+                            "round " + round + ": S" + from + " -> S" + to);
+                }
+            }
+        }
+    }
+
+    @Test
+    void longChainReachesItsEnd() {
+        int n = 2_000;
+        Map<String, List<WorkflowDefinition.TransitionDefinition>> transitions = new LinkedHashMap<>();
+        for (int state = 0; state < n; state++) {
+            transitions.put("S" + state, state + 1 < n ? List.of(to("S" + (state + 1))) : List.of());
+        }
+        CompiledWorkflow workflow = compile("S0", transitions);
+
+        assertTrue(canReach(workflow, "S0", "S" + (n - 1)));
+        assertFalse(canReach(workflow, "S" + (n - 1), "S0"));
+        assertTrue(workflow.getAnalysis().getUnreachableStates().isEmpty());
+    }
+
+    @Test
+    void reportsUnreachableAndStuckStates() {
+        CompiledWorkflow workflow = compile("NEW", Map.of(
+                "NEW", List.of(to("DONE"), to("LOOP1")),
+                "LOOP1", List.of(to("LOOP2")),
+                "LOOP2", List.of(to("LOOP1")),
+                "ORPHAN", List.of(to("DONE")),
+                "DONE", List.of()));
+
+        WorkflowAnalysis analysis = workflow.getAnalysis();
+        assertEquals(List.of("ORPHAN"), analysis.getUnreachableStates());
+        assertEquals(List.of("LOOP1", "LOOP2"), analysis.getStuckStates().stream().sorted().toList());
+        assertFalse(analysis.getErrors().isEmpty());
+    }
+
+    @Test
+    void rejectsTimerLoopsOnlyWithoutGuards() {
+        WorkflowDefinition.TransitionDefinition guarded = after("A");
+        guarded.setGuards(List.of(WorkflowDefinition.GuardDefinition.builder().rule("hasAssignee").build()));
+
+        CompiledWorkflow unguarded = compile("A", Map.of(
+                "A", List.of(after("B"), to("DONE")),
+                "B", List.of(after("A")),
+                "DONE", List.of()));
+        CompiledWorkflow withGuard = compile("A", Map.of(
+                "A", List.of(after("B"), to("DONE")),
+                "B", List.of(guarded),
+                "DONE", List.of()));
+
+        assertEquals(List.of(List.of("A", "B")), sorted(unguarded.getAnalysis().getAutomaticCycles()));
+        assertTrue(withGuard.getAnalysis().getAutomaticCycles().isEmpty());
+        assertTrue(withGuard.getAnalysis().getUnguardedCycles().isEmpty());
+    }
+
+    private CompiledWorkflow compile(String initialState,
+                                     Map<String, List<WorkflowDefinition.TransitionDefinition>> transitions) {
+        Map<String, WorkflowDefinition.StateDefinition> states = new LinkedHashMap<>();
+        transitions.keySet().stream().sorted().forEach(name -> states.put(name,
+                WorkflowDefinition.StateDefinition.builder().name(name).transitions(transitions.get(name)).build()));
+        WorkflowDefinition definition = WorkflowDefinition.builder()
+                .initialState(initialState)
+                .states(states)
+                .build();
+        return CompiledWorkflow.compile(definition, guardRegistry, actionRegistry);
+    }
+
+    private static WorkflowDefinition.TransitionDefinition to(String state) {
+        return WorkflowDefinition.TransitionDefinition.builder().to(state).build();
+    }
+
+    private static WorkflowDefinition.TransitionDefinition after(String state) {
+        return WorkflowDefinition.TransitionDefinition.builder().to(state).after("PT1H").build();
+    }
+
+    private static boolean canReach(CompiledWorkflow workflow, String from, String to) {
+        return workflow.getAnalysis().canReach(workflow.stateOrdinal(from), workflow.stateOrdinal(to));
+    }
+
+    private static List<List<String>> sorted(List<List<String>> cycles) {
+        return cycles.stream().map(cycle -> cycle.stream().sorted().toList()).toList();
+    }
+
+    /**
+     * States reachable from {@code from} by one or more edges.
+     */
+    private static BitSet bfs(int[][] edges, int from) {
+        BitSet seen = new BitSet(edges.length);
+        Deque<Integer> queue = new ArrayDeque<>();
+        queue.add(from);
+        while (!queue.isEmpty()) {
+            for (int to : edges[queue.poll()]) {
+                if (!seen.get(to)) {
+                    seen.set(to);
+                    queue.add(to);
+                }
+            }
+        }
+        return seen;
+    }
+
+}